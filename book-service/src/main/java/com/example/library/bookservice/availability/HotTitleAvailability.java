@@ -0,0 +1,433 @@
+package com.example.library.bookservice.availability;
+
+import com.example.library.bookservice.availability.StripedAvailability.Outcome;
+import com.example.library.bookservice.cache.BookDtoCache;
+import com.example.library.bookservice.dto.BookDto;
+import com.example.library.bookservice.dto.CopiesBatchEntry;
+import com.example.library.bookservice.exception.HotTitleOwnedElsewhereException;
+import com.example.library.bookservice.outbox.CatalogChangeRecorder;
+import com.example.library.bookservice.repository.BookCopiesBatchRepository;
+import com.example.library.bookservice.repository.BookCopiesBatchRepository.CopyCounts;
+import com.example.library.bookservice.repository.CatalogVersionRepository;
+import com.example.library.bookservice.repository.HotTitleJournalRepository;
+import com.example.library.bookservice.search.FacetIndex;
+import com.example.library.bookservice.support.TransactionCallbacks;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Stock de copies des titres tres demandes tenu en memoire (mode optionnel).
+ *
+ * <p>Pour les livres designes par {@code catalog.hot-titles.book-ids}, les variations de
+ * copies sont appliquees a un compteur reparti en bandes ({@link StripedAvailability})
+ * au lieu d'une mise a jour de la ligne {@code books} : les emprunts concurrents d'un
+ * meme titre ne se serialisent plus sur le verrou de ligne. Chaque variation appliquee
+ * est inseree dans un journal en base avant d'etre acquittee (insertion sans verrou de
+ * ligne partage) ; le journal est reporte sur {@code books} par lot toutes les
+ * {@code catalog.hot-titles.flush-interval-ms}, a l'arret et avant toute ecriture en
+ * valeurs absolues. Un arret brutal ne perd donc aucune variation acquittee : le
+ * journal restant est reporte par le proprietaire suivant avant de recharger le compteur.
+ * Un cumul que {@code books} refuse au report (stock incoherent, livre supprime) est
+ * conserve dans {@code hot_title_dead_letter} avant que le compteur ne soit recharge.</p>
+ *
+ * <p>Un titre chaud n'a qu'un proprietaire a la fois, designe par un bail en base
+ * ({@code catalog.hot-titles.lease-duration}, renouvele periodiquement). Une instance
+ * qui ne detient pas le bail refuse les variations et les ecritures de ce livre (503, ou
+ * statut {@code OWNED_ELSEWHERE} pour une entree de lot ; rien n'est applique) au lieu de
+ * tenir un second compteur ; le compteur du proprietaire fait autorite : le disponible
+ * ne devient jamais negatif ni superieur au total.</p>
+ *
+ * @since 1.1
+ */
+@Component
+public class HotTitleAvailability {
+    private static final Logger log = LoggerFactory.getLogger(HotTitleAvailability.class);
+
+    private final BookCopiesBatchRepository copiesRepository;
+    private final HotTitleJournalRepository journalRepository;
+    private final CatalogVersionRepository catalogVersionRepository;
+    private final CatalogChangeRecorder changeRecorder;
+    private final BookDtoCache bookCache;
+    private final FacetIndex facetIndex;
+    private final TransactionTemplate newTransaction;
+    private final boolean enabled;
+    private final Set<Long> bookIds;
+    private final int stripeCount;
+    private final Duration leaseDuration;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Map<Long, StripedAvailability> counters = new ConcurrentHashMap<>();
+    private final Set<Long> owned = ConcurrentHashMap.newKeySet();
+    private final Counter applied;
+    private final Counter rejected;
+    private final Counter flushRejected;
+    private final Counter flushFailed;
+
+    public HotTitleAvailability(BookCopiesBatchRepository copiesRepository,
+                                HotTitleJournalRepository journalRepository,
+                                CatalogVersionRepository catalogVersionRepository,
+                                CatalogChangeRecorder changeRecorder,
+                                BookDtoCache bookCache,
+                                FacetIndex facetIndex,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry,
+                                @Value("${catalog.hot-titles.enabled:false}") boolean enabled,
+                                @Value("${catalog.hot-titles.book-ids:}") Set<Long> bookIds,
+                                @Value("${catalog.hot-titles.stripes:16}") int stripeCount,
+                                @Value("${catalog.hot-titles.lease-duration:30s}") Duration leaseDuration) {
+        this.copiesRepository = copiesRepository;
+        this.journalRepository = journalRepository;
+        this.catalogVersionRepository = catalogVersionRepository;
+        this.changeRecorder = changeRecorder;
+        this.bookCache = bookCache;
+        this.facetIndex = facetIndex;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = enabled;
+        this.bookIds = bookIds;
+        this.stripeCount = stripeCount;
+        this.leaseDuration = leaseDuration;
+        this.applied = Counter.builder("books.hot.adjustments")
+                .tag("result", "applied")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("books.hot.adjustments")
+                .tag("result", "rejected")
+                .register(meterRegistry);
+        this.flushRejected = Counter.builder("books.hot.flush.errors")
+                .tag("reason", "rejected")
+                .register(meterRegistry);
+        this.flushFailed = Counter.builder("books.hot.flush.errors")
+                .tag("reason", "failed")
+                .register(meterRegistry);
+        Gauge.builder("books.hot.titles", counters, Map::size)
+                .description("Books whose availability is held in memory")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Prend les baux des livres designes et charge leurs compteurs.
+     */
+    public void load() {
+        if (!enabled || bookIds.isEmpty()) {
+            return;
+        }
+        renewLeases();
+        log.info("Hot title availability held in memory for {} of {} books", counters.size(), bookIds.size());
+    }
+
+    /**
+     * Renouvelle les baux detenus et prend ceux qui sont libres ou expires ; un bail perdu
+     * retire le compteur du livre.
+     */
+    @Scheduled(fixedDelayString = "${catalog.hot-titles.lease-renew-interval-ms:5000}")
+    public synchronized void renewLeases() {
+        if (!enabled) {
+            return;
+        }
+        for (Long bookId : bookIds) {
+            boolean held;
+            try {
+                held = journalRepository.acquireLease(bookId, instanceId, leaseDuration);
+            } catch (RuntimeException ex) {
+                log.warn("Hot title {} lease renewal failed", bookId, ex);
+                held = false;
+            }
+            if (held) {
+                if (owned.add(bookId)) {
+                    log.info("Hot title {} is now managed by this instance", bookId);
+                }
+                if (!counters.containsKey(bookId)) {
+                    start(bookId);
+                }
+            } else if (owned.remove(bookId)) {
+                log.warn("Hot title {} lease lost, its copies are refused on this instance", bookId);
+                StripedAvailability counter = counters.remove(bookId);
+                if (counter != null) {
+                    counter.lockAll();
+                    counter.retireLocked();
+                    counter.unlockAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Applique une variation de copies en memoire si le livre est un titre chaud, puis la
+     * journalise avant de l'acquitter.
+     *
+     * @param bookId identifiant livre.
+     * @param deltaAvailable variation des copies disponibles.
+     * @param deltaTotal variation du total de copies.
+     * @return resultat, ou null si le livre doit passer par la base.
+     * @throws HotTitleOwnedElsewhereException si le livre est gere par une autre instance.
+     */
+    public Adjustment adjust(Long bookId, int deltaAvailable, int deltaTotal) {
+        StripedAvailability counter = counters.get(bookId);
+        if (counter == null) {
+            requireOwnership(bookId);
+            return null;
+        }
+        Outcome outcome = applyInMemory(counter, deltaAvailable, deltaTotal);
+        if (outcome == Outcome.RETIRED) {
+            requireOwnership(bookId);
+            return null;
+        }
+        if (outcome == Outcome.APPLIED) {
+            boolean journaled;
+            try {
+                journaled = journalRepository.append(bookId, deltaAvailable, deltaTotal, instanceId);
+            } catch (RuntimeException ex) {
+                revert(bookId, deltaAvailable, deltaTotal);
+                throw ex;
+            }
+            if (!journaled) {
+                revert(bookId, deltaAvailable, deltaTotal);
+                throw new HotTitleOwnedElsewhereException(bookId);
+            }
+        }
+        (outcome == Outcome.APPLIED ? applied : rejected).increment();
+        return new Adjustment(outcome == Outcome.APPLIED,
+                new CopyCounts(counter.available(), counter.totalCopies()));
+    }
+
+    /**
+     * Annule en memoire une variation appliquee par {@link #adjust(Long, int, int)} dont la
+     * transaction a ete annulee (sa ligne de journal l'est avec elle).
+     *
+     * @param bookId identifiant livre.
+     * @param deltaAvailable variation des copies disponibles a annuler.
+     * @param deltaTotal variation du total de copies a annuler.
+     */
+    public void revert(Long bookId, int deltaAvailable, int deltaTotal) {
+        StripedAvailability counter = counters.get(bookId);
+        if (counter != null && applyInMemory(counter, -deltaAvailable, -deltaTotal) == Outcome.REJECTED) {
+            counter.lockAll();
+            reloadAndUnlock(bookId, counter);
+        }
+    }
+
+    /**
+     * Execute une ecriture en base sur un livre (valeurs absolues, modification complete) :
+     * le journal du livre est d'abord reporte, le compteur est gele pendant l'ecriture puis
+     * recharge a la fin de la transaction courante.
+     *
+     * @param bookId identifiant livre.
+     * @param action ecriture en base.
+     * @param <T> type du resultat.
+     * @return resultat de l'action.
+     * @throws HotTitleOwnedElsewhereException si le livre est gere par une autre instance.
+     */
+    public <T> T exclusive(Long bookId, Supplier<T> action) {
+        StripedAvailability counter = counters.get(bookId);
+        if (counter == null) {
+            requireOwnership(bookId);
+            return action.get();
+        }
+        counter.lockAll();
+        if (!flush(Set.of(bookId))) {
+            counter.unlockAll();
+            throw new IllegalStateException("Pending copies of hot title " + bookId + " could not be written");
+        }
+        T result;
+        try {
+            result = action.get();
+        } catch (RuntimeException ex) {
+            reloadAndUnlock(bookId, counter);
+            throw ex;
+        }
+        TransactionCallbacks.afterCompletion(() -> reloadAndUnlock(bookId, counter));
+        return result;
+    }
+
+    /**
+     * Remplace le stock d'un livre lu en base par celui tenu en memoire.
+     *
+     * @param book livre lu en base ou en cache.
+     * @return livre avec le stock courant.
+     */
+    public BookDto withCurrentCopies(BookDto book) {
+        StripedAvailability counter = counters.get(book.getId());
+        if (counter == null) {
+            return book;
+        }
+        return book.toBuilder()
+                .availableCopies(counter.available())
+                .totalCopies(counter.totalCopies())
+                .build();
+    }
+
+    /**
+     * Reporte en base le journal de tous les titres chauds detenus.
+     */
+    @Scheduled(fixedDelayString = "${catalog.hot-titles.flush-interval-ms:100}")
+    public void flush() {
+        if (owned.isEmpty()) {
+            return;
+        }
+        flush(Set.copyOf(owned));
+    }
+
+    /**
+     * Reporte le journal et libere les baux avant l'arret.
+     */
+    @PreDestroy
+    public synchronized void shutdown() {
+        counters.forEach((id, counter) -> {
+            counter.lockAll();
+            counter.retireLocked();
+            counter.unlockAll();
+        });
+        counters.clear();
+        flush();
+        for (Long bookId : owned) {
+            try {
+                journalRepository.releaseLease(bookId, instanceId);
+            } catch (RuntimeException ex) {
+                log.warn("Hot title {} lease release failed, it will expire", bookId, ex);
+            }
+        }
+        owned.clear();
+    }
+
+    private void requireOwnership(Long bookId) {
+        if (enabled && bookIds.contains(bookId) && !owned.contains(bookId)) {
+            throw new HotTitleOwnedElsewhereException(bookId);
+        }
+    }
+
+    private static Outcome applyInMemory(StripedAvailability counter, int deltaAvailable, int deltaTotal) {
+        if (deltaTotal == 0) {
+            return counter.transfer(deltaAvailable);
+        }
+        counter.lockAll();
+        try {
+            return counter.adjustLocked(deltaAvailable, deltaTotal);
+        } finally {
+            counter.unlockAll();
+        }
+    }
+
+    private void start(Long bookId) {
+        try {
+            CopyCounts counts = newTransaction.execute(status -> {
+                applyJournal(Set.of(bookId));
+                return copiesRepository.findCounts(Set.of(bookId)).get(bookId);
+            });
+            if (counts != null) {
+                counters.put(bookId, new StripedAvailability(stripeCount, counts));
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Hot title {} load failed, its copies will be updated in the database", bookId, ex);
+        }
+    }
+
+    private boolean flush(Collection<Long> ids) {
+        List<Long> diverged;
+        try {
+            diverged = newTransaction.execute(status -> applyJournal(ids));
+        } catch (RuntimeException ex) {
+            flushFailed.increment();
+            log.warn("Hot title flush failed for {} books, journal kept for next interval", ids.size(), ex);
+            return false;
+        }
+        for (Long id : diverged) {
+            flushRejected.increment();
+            log.warn("Hot title {} journal refused by the database, kept in hot_title_dead_letter; reloading its counter",
+                    id);
+            StripedAvailability counter = counters.get(id);
+            if (counter != null) {
+                counter.lockAll();
+                reloadAndUnlock(id, counter);
+            }
+        }
+        return true;
+    }
+
+    private List<Long> applyJournal(Collection<Long> ids) {
+        Map<Long, CopyCounts> pending = journalRepository.drain(ids);
+        if (pending.isEmpty()) {
+            return List.of();
+        }
+        List<CopiesBatchEntry> entries = new ArrayList<>(pending.size());
+        pending.forEach((id, delta) -> {
+            CopiesBatchEntry entry = new CopiesBatchEntry();
+            entry.setBookId(id);
+            entry.setDeltaAvailable(delta.availableCopies());
+            entry.setDeltaTotal(delta.totalCopies());
+            entries.add(entry);
+        });
+        int[] updated = copiesRepository.adjustCopies(entries);
+        Map<Long, CopyCounts> counts = copiesRepository.findCounts(pending.keySet());
+        Map<Long, CopyCounts> changed = new LinkedHashMap<>();
+        Map<Long, CopyCounts> rejected = new LinkedHashMap<>();
+        Map<Long, CopyCounts> missing = new LinkedHashMap<>();
+        for (int i = 0; i < entries.size(); i++) {
+            Long id = entries.get(i).getBookId();
+            if (updated[i] > 0 && counts.containsKey(id)) {
+                changed.put(id, counts.get(id));
+            } else {
+                (counts.containsKey(id) ? rejected : missing).put(id, pending.get(id));
+            }
+        }
+        journalRepository.deadLetter(rejected, "REJECTED");
+        journalRepository.deadLetter(missing, "NOT_FOUND");
+        List<Long> refused = new ArrayList<>(rejected.keySet());
+        refused.addAll(missing.keySet());
+        bookCache.evictAll(changed.keySet());
+        catalogVersionRepository.incrementAfterCommit();
+        changeRecorder.copiesUpdated(changed);
+        TransactionCallbacks.afterCommit(() -> changed.forEach((id, current) ->
+                facetIndex.updateAvailability(id, current.availableCopies())));
+        return refused;
+    }
+
+    private void reloadAndUnlock(Long bookId, StripedAvailability counter) {
+        try {
+            CopyCounts counts = newTransaction.execute(status -> {
+                applyJournal(Set.of(bookId));
+                return copiesRepository.findCounts(Set.of(bookId)).get(bookId);
+            });
+            if (counts != null) {
+                counter.reseedLocked(counts);
+            } else {
+                counter.retireLocked();
+                counters.remove(bookId, counter);
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Hot title {} reload failed, falling back to database updates", bookId, ex);
+            counter.retireLocked();
+            counters.remove(bookId, counter);
+        } finally {
+            counter.unlockAll();
+        }
+    }
+
+    /**
+     * Resultat d'une variation en memoire.
+     *
+     * @param applied true si la variation a ete appliquee.
+     * @param counts stock courant du livre.
+     */
+    public record Adjustment(boolean applied, CopyCounts counts) {
+    }
+}
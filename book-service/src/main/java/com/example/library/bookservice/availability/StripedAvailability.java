@@ -0,0 +1,199 @@
+package com.example.library.bookservice.availability;
+
+import com.example.library.bookservice.repository.BookCopiesBatchRepository.CopyCounts;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Stock de copies d'un livre reparti en bandes independantes.
+ *
+ * <p>Chaque bande detient une part des copies disponibles et des copies sorties ; une
+ * reservation deplace des copies de « disponible » vers « sorti » sous le seul verrou de
+ * sa bande (puis des bandes voisines si la sienne ne suffit pas), un retour fait l'inverse.
+ * Si le premier passage ne suffit pas, le reste est pris sous tous les verrous : une
+ * reservation n'est refusee que si la somme des bandes ne la couvre pas. Aucune bande ne
+ * devient negative, donc ni le disponible ni le sorti. Les variations
+ * sont journalisees en base par l'appelant ({@link HotTitleAvailability}).</p>
+ *
+ * <p>Un fil ne detient jamais qu'un verrou de bande a la fois, sauf {@link #lockAll()}
+ * qui les prend tous dans l'ordre (et qu'un fil ne demande qu'en ne tenant aucun verrou) :
+ * l'etat global est alors stable.</p>
+ *
+ * @since 1.1
+ */
+final class StripedAvailability {
+    private final Stripe[] stripes;
+    private volatile int totalCopies;
+    private volatile boolean retired;
+
+    StripedAvailability(int stripeCount, CopyCounts counts) {
+        this.stripes = new Stripe[Math.max(1, stripeCount)];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+        distribute(counts.availableCopies(), counts.totalCopies());
+    }
+
+    /**
+     * Reserve (delta negatif) ou rend (delta positif) des copies disponibles.
+     *
+     * @param deltaAvailable variation des copies disponibles.
+     * @return REJECTED si le stock (ou les copies sorties) de l'ensemble des bandes ne suffit
+     *         pas, RETIRED si le compteur a ete retire ; rien n'est alors modifie.
+     */
+    Outcome transfer(int deltaAvailable) {
+        if (retired) {
+            return Outcome.RETIRED;
+        }
+        if (deltaAvailable == 0) {
+            return Outcome.APPLIED;
+        }
+        boolean reserve = deltaAvailable < 0;
+        int remaining = Math.abs(deltaAvailable);
+        int[] moved = new int[stripes.length];
+        int home = ThreadLocalRandom.current().nextInt(stripes.length);
+        for (int k = 0; k < stripes.length && remaining > 0; k++) {
+            int index = (home + k) % stripes.length;
+            Stripe stripe = stripes[index];
+            stripe.lock.lock();
+            try {
+                if (retired) {
+                    break;
+                }
+                int take = Math.min(remaining, reserve ? stripe.available : stripe.checkedOut);
+                stripe.move(reserve ? -take : take);
+                moved[index] = take;
+                remaining -= take;
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        if (remaining == 0) {
+            return Outcome.APPLIED;
+        }
+        // Des retours concurrents ont pu remplir une bande deja visitee : on termine sous
+        // tous les verrous, avec un etat global stable, avant de refuser.
+        lockAll();
+        try {
+            if (!retired) {
+                for (int index = 0; index < stripes.length && remaining > 0; index++) {
+                    Stripe stripe = stripes[index];
+                    int take = Math.min(remaining, reserve ? stripe.available : stripe.checkedOut);
+                    stripe.move(reserve ? -take : take);
+                    moved[index] += take;
+                    remaining -= take;
+                }
+                if (remaining == 0) {
+                    return Outcome.APPLIED;
+                }
+            }
+            for (int index = 0; index < stripes.length; index++) {
+                stripes[index].move(reserve ? moved[index] : -moved[index]);
+            }
+            return retired ? Outcome.RETIRED : Outcome.REJECTED;
+        } finally {
+            unlockAll();
+        }
+    }
+
+    /**
+     * Applique une variation du disponible et du total ; l'appelant detient {@link #lockAll()}.
+     *
+     * @param deltaAvailable variation des copies disponibles.
+     * @param deltaTotal variation du total de copies.
+     * @return REJECTED si le resultat serait incoherent (0 &lt;= disponibles &lt;= total).
+     */
+    Outcome adjustLocked(int deltaAvailable, int deltaTotal) {
+        if (retired) {
+            return Outcome.RETIRED;
+        }
+        int newAvailable = available() + deltaAvailable;
+        int newTotal = totalCopies + deltaTotal;
+        if (newAvailable < 0 || newAvailable > newTotal) {
+            return Outcome.REJECTED;
+        }
+        distribute(newAvailable, newTotal);
+        return Outcome.APPLIED;
+    }
+
+    /**
+     * Remplace l'etat par celui de la base ; l'appelant detient {@link #lockAll()}.
+     *
+     * @param counts compteurs lus en base.
+     */
+    void reseedLocked(CopyCounts counts) {
+        distribute(counts.availableCopies(), counts.totalCopies());
+    }
+
+    /**
+     * Copies disponibles : somme des bandes lue sans verrou (estimation instantanee).
+     *
+     * @return copies disponibles.
+     */
+    int available() {
+        int available = 0;
+        for (Stripe stripe : stripes) {
+            available += stripe.available;
+        }
+        return available;
+    }
+
+    int totalCopies() {
+        return totalCopies;
+    }
+
+    boolean isRetired() {
+        return retired;
+    }
+
+    /**
+     * Retire le compteur ; l'appelant detient {@link #lockAll()}. Les operations en
+     * attente sur ses bandes echouent et repassent par la base.
+     */
+    void retireLocked() {
+        retired = true;
+    }
+
+    void lockAll() {
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+        }
+    }
+
+    void unlockAll() {
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            stripes[i].lock.unlock();
+        }
+    }
+
+    private void distribute(int available, int total) {
+        int checkedOut = total - available;
+        int count = stripes.length;
+        for (int i = 0; i < count; i++) {
+            stripes[i].available = available / count + (i < available % count ? 1 : 0);
+            stripes[i].checkedOut = checkedOut / count + (i < checkedOut % count ? 1 : 0);
+        }
+        totalCopies = total;
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile int available;
+        private int checkedOut;
+        // Evite que deux bandes partagent une ligne de cache.
+        @SuppressWarnings("unused")
+        private long p1, p2, p3, p4, p5, p6;
+
+        private void move(int deltaAvailable) {
+            available += deltaAvailable;
+            checkedOut -= deltaAvailable;
+        }
+    }
+
+    enum Outcome {
+        APPLIED,
+        REJECTED,
+        RETIRED
+    }
+}
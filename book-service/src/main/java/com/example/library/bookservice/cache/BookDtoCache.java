@@ -0,0 +1,156 @@
+package com.example.library.bookservice.cache;
+
+import com.example.library.bookservice.dto.BookDto;
+import com.example.library.bookservice.support.TransactionCallbacks;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Cache borne (taille et TTL) des {@link BookDto} deja mappes, par id et par ISBN.
+ *
+ * <p>Le cache ISBN ne contient que l'id du livre (l'ISBN n'est jamais modifie), de sorte
+ * qu'une invalidation par id suffit pour les mises a jour. Les invalidations sont
+ * rejouees apres le commit de la transaction courante pour eviter qu'une lecture
+ * concurrente ne remette en cache une version non encore committee. Une lecture faite
+ * hors du chargeur du cache n'est mise en cache que si aucune invalidation n'a eu lieu
+ * depuis son debut (generation d'invalidation). Les mutations faites par les autres
+ * instances sont invalidees a reception du flux de changements.</p>
+ *
+ * @since 1.1
+ */
+@Component
+public class BookDtoCache {
+    private final Cache<Long, BookDto> byId;
+    private final Cache<String, Long> idByIsbn;
+    private final AtomicLong generation = new AtomicLong();
+
+    public BookDtoCache(MeterRegistry meterRegistry,
+                        @Value("${catalog.cache.max-size:10000}") long maxSize,
+                        @Value("${catalog.cache.ttl:10m}") Duration ttl) {
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.idByIsbn = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, byId, "books.byId");
+        CaffeineCacheMetrics.monitor(meterRegistry, idByIsbn, "books.byIsbn");
+    }
+
+    /**
+     * Retourne le livre en cache ou le charge.
+     *
+     * @param id identifiant livre.
+     * @param loader chargement en cas d'absence (une exception n'est pas mise en cache).
+     * @return livre.
+     */
+    public BookDto get(Long id, Function<Long, BookDto> loader) {
+        return byId.get(id, loader);
+    }
+
+    /**
+     * Retourne l'id associe a un ISBN s'il est en cache.
+     *
+     * @param isbn ISBN.
+     * @return id ou null.
+     */
+    public Long findIdByIsbn(String isbn) {
+        return idByIsbn.getIfPresent(isbn);
+    }
+
+    /**
+     * Generation d'invalidation courante, a lire avant une lecture en base destinee a
+     * {@link #put(BookDto, long)}.
+     *
+     * @return generation.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Met un livre en cache (par id et par ISBN), sauf si une invalidation a eu lieu
+     * depuis la generation lue avant la lecture en base.
+     *
+     * @param book livre mappe.
+     * @param readGeneration generation lue avant la lecture.
+     */
+    public void put(BookDto book, long readGeneration) {
+        byId.asMap().compute(book.getId(), (id, current) ->
+                generation.get() == readGeneration ? book : current);
+        idByIsbn.put(book.getIsbn(), book.getId());
+    }
+
+    /**
+     * Invalide un livre, maintenant et apres le commit de la transaction courante.
+     *
+     * @param id identifiant livre.
+     */
+    public void evict(Long id) {
+        evictAll(List.of(id));
+    }
+
+    /**
+     * Invalide plusieurs livres, maintenant et apres le commit de la transaction courante.
+     *
+     * @param ids identifiants livres.
+     */
+    public void evictAll(Collection<Long> ids) {
+        invalidate(ids);
+        TransactionCallbacks.afterCommit(() -> invalidate(ids));
+    }
+
+    /**
+     * Invalide tous les livres (modification d'une donnee partagee, ex. categorie).
+     */
+    public void clear() {
+        invalidateAll();
+        TransactionCallbacks.afterCommit(this::invalidateAll);
+    }
+
+    /**
+     * Invalide l'association ISBN vers id (suppression d'un livre).
+     *
+     * @param isbn ISBN.
+     */
+    public void evictIsbn(String isbn) {
+        idByIsbn.invalidate(isbn);
+        TransactionCallbacks.afterCommit(() -> idByIsbn.invalidate(isbn));
+    }
+
+    /**
+     * Invalide des livres modifies par une transaction deja committee, sur une autre
+     * instance (flux de changements).
+     *
+     * @param ids identifiants livres.
+     * @param deletedIsbns ISBN des livres supprimes.
+     */
+    public void evictPublished(Collection<Long> ids, Collection<String> deletedIsbns) {
+        invalidate(ids);
+        idByIsbn.invalidateAll(deletedIsbns);
+    }
+
+    private void invalidate(Collection<Long> ids) {
+        generation.incrementAndGet();
+        byId.invalidateAll(ids);
+    }
+
+    private void invalidateAll() {
+        generation.incrementAndGet();
+        byId.invalidateAll();
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.library.bookservice.cache;
+
+import com.example.library.bookservice.model.Author;
+import com.example.library.bookservice.model.Category;
+import com.example.library.bookservice.search.TextNormalizer;
+import com.example.library.bookservice.support.TransactionCallbacks;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index en memoire des categories (nom insensible a la casse) et des auteurs (identite
+ * normalisee prenom + nom), pour eviter les requetes de resolution sur le chemin d'ecriture.
+ *
+ * <p>Les valeurs retournees sont des copies detachees. Tant que l'index n'a pas ete
+ * charge, les appelants retombent sur la base. Les ajouts sont publies apres le commit
+ * de la transaction courante ; ceux des autres instances arrivent par le flux de
+ * changements. Une absence n'est donc pas une preuve : avant de creer, les appelants
+ * verifient en base et inserent sans conflit ({@code on conflict do nothing}).</p>
+ *
+ * @since 1.1
+ */
+@Component
+public class CatalogReferenceCache {
+    private final Map<String, Category> categories = new ConcurrentHashMap<>();
+    private final Map<String, Author> authors = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    /**
+     * Indique si l'index a ete charge et fait autorite.
+     *
+     * @return true si l'index est pret.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Marque l'index comme charge.
+     */
+    public void markReady() {
+        ready = true;
+    }
+
+    /**
+     * Retourne la categorie portant ce nom (insensible a la casse).
+     *
+     * @param name nom de categorie.
+     * @return copie detachee eventuelle.
+     */
+    public Optional<Category> findCategory(String name) {
+        return Optional.ofNullable(categories.get(categoryKey(name))).map(CatalogReferenceCache::copy);
+    }
+
+    /**
+     * Retourne l'auteur ayant cette identite normalisee.
+     *
+     * @param firstName prenom.
+     * @param lastName nom.
+     * @return copie detachee eventuelle.
+     */
+    public Optional<Author> findAuthor(String firstName, String lastName) {
+        return Optional.ofNullable(authors.get(authorKey(firstName, lastName))).map(CatalogReferenceCache::copy);
+    }
+
+    /**
+     * Enregistre (ou remplace) une categorie persistee.
+     *
+     * @param category categorie avec id.
+     */
+    public void putCategory(Category category) {
+        categories.put(categoryKey(category.getName()), copy(category));
+    }
+
+    /**
+     * Enregistre (ou remplace) un auteur persiste ; le premier auteur d'une identite est conserve
+     * lors du chargement initial.
+     *
+     * @param author auteur avec id.
+     */
+    public void putAuthor(Author author) {
+        authors.merge(authorKey(author.getFirstName(), author.getLastName()), copy(author),
+                (current, candidate) -> current.getId().equals(candidate.getId()) ? candidate : current);
+    }
+
+    /**
+     * Enregistre une categorie apres le commit de la transaction courante.
+     *
+     * @param category categorie avec id.
+     */
+    public void putCategoryAfterCommit(Category category) {
+        Category snapshot = copy(category);
+        TransactionCallbacks.afterCommit(() -> putCategory(snapshot));
+    }
+
+    /**
+     * Enregistre un auteur apres le commit de la transaction courante.
+     *
+     * @param author auteur avec id.
+     */
+    public void putAuthorAfterCommit(Author author) {
+        Author snapshot = copy(author);
+        TransactionCallbacks.afterCommit(() -> putAuthor(snapshot));
+    }
+
+    /**
+     * Cle d'une categorie : nom en minuscules.
+     *
+     * @param name nom de categorie.
+     * @return cle.
+     */
+    public static String categoryKey(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Cle d'un auteur : prenom et nom sans accents ni casse (aussi stockee dans
+     * {@code authors.identity_key}).
+     *
+     * @param firstName prenom.
+     * @param lastName nom.
+     * @return cle.
+     */
+    public static String authorKey(String firstName, String lastName) {
+        return TextNormalizer.fold(firstName).trim() + '\u001f' + TextNormalizer.fold(lastName).trim();
+    }
+
+    private static Category copy(Category category) {
+        return Category.builder()
+                .id(category.getId())
+                .name(category.getName())
+                .description(category.getDescription())
+                .build();
+    }
+
+    private static Author copy(Author author) {
+        return Author.builder()
+                .id(author.getId())
+                .firstName(author.getFirstName())
+                .lastName(author.getLastName())
+                .biography(author.getBiography())
+                .identityKey(author.getIdentityKey())
+                .build();
+    }
+}
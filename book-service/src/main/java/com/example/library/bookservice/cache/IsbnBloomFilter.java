@@ -0,0 +1,211 @@
+package com.example.library.bookservice.cache;
+
+import com.example.library.bookservice.outbox.CatalogChangeFeed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * Filtre de Bloom sur les ISBN du catalogue.
+ *
+ * <p>Une reponse negative est certaine : l'ISBN n'existe pas et aucune requete n'est
+ * necessaire. Une reponse positive doit etre confirmee en base ; la proportion de
+ * confirmations negatives est publiee comme taux de faux positifs observe. Les ISBN
+ * sont ajoutes avant l'insertion (un rollback ne produit qu'un faux positif), ceux crees
+ * par les autres instances sont recus par {@link CatalogChangeFeed}, et les suppressions ne
+ * sont pas retirees ; le filtre est reconstruit au demarrage.</p>
+ *
+ * @since 1.1
+ */
+@Component
+public class IsbnBloomFilter {
+    private final int expectedInsertions;
+    private final double targetFalsePositiveRate;
+    private final Counter negatives;
+    private final Counter truePositives;
+    private final Counter falsePositives;
+    private volatile BitArray bits;
+    private volatile BitArray building;
+    private volatile boolean ready;
+
+    public IsbnBloomFilter(MeterRegistry meterRegistry,
+                           @Value("${catalog.isbn-filter.expected-insertions:1000000}") int expectedInsertions,
+                           @Value("${catalog.isbn-filter.false-positive-rate:0.01}") double targetFalsePositiveRate) {
+        this.expectedInsertions = expectedInsertions;
+        this.targetFalsePositiveRate = targetFalsePositiveRate;
+        this.bits = BitArray.sized(expectedInsertions, targetFalsePositiveRate);
+        this.negatives = Counter.builder("books.isbn.filter")
+                .tag("result", "negative")
+                .register(meterRegistry);
+        this.truePositives = Counter.builder("books.isbn.filter")
+                .tag("result", "true_positive")
+                .register(meterRegistry);
+        this.falsePositives = Counter.builder("books.isbn.filter")
+                .tag("result", "false_positive")
+                .register(meterRegistry);
+        Gauge.builder("books.isbn.filter.false.positive.rate", this, IsbnBloomFilter::observedFalsePositiveRate)
+                .description("Share of filter hits not confirmed by the database")
+                .register(meterRegistry);
+        Gauge.builder("books.isbn.filter.expected.false.positive.rate", this,
+                        filter -> filter.bits.expectedFalsePositiveRate())
+                .description("False positive rate predicted from the filter fill ratio")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Reconstruit le filtre, dimensionne pour au moins le double du catalogue actuel.
+     *
+     * @param bookCount nombre de livres actuel.
+     * @param source parcourt tous les ISBN existants.
+     */
+    public void rebuild(long bookCount, Consumer<Consumer<String>> source) {
+        long capacity = Math.max(expectedInsertions, bookCount * 2);
+        BitArray rebuilt = BitArray.sized(capacity, targetFalsePositiveRate);
+        building = rebuilt;
+        try {
+            source.accept(rebuilt::put);
+            bits = rebuilt;
+            ready = true;
+        } finally {
+            building = null;
+        }
+    }
+
+    /**
+     * Indique si le filtre a ete construit.
+     *
+     * @return true si les reponses negatives font autorite.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Indique si l'ISBN peut exister ; toujours vrai tant que le filtre n'est pas construit.
+     *
+     * @param isbn ISBN.
+     * @return false si l'ISBN est certainement absent.
+     */
+    public boolean mightContain(String isbn) {
+        if (!ready) {
+            return true;
+        }
+        if (!bits.mightContain(isbn)) {
+            negatives.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Enregistre le resultat de la verification en base d'une reponse positive.
+     *
+     * @param present true si l'ISBN existait.
+     */
+    public void recordLookup(boolean present) {
+        if (!ready) {
+            return;
+        }
+        if (present) {
+            truePositives.increment();
+        } else {
+            falsePositives.increment();
+        }
+    }
+
+    /**
+     * Ajoute un ISBN (a appeler avant l'insertion).
+     *
+     * @param isbn ISBN.
+     */
+    public void add(String isbn) {
+        bits.put(isbn);
+        BitArray next = building;
+        if (next != null) {
+            next.put(isbn);
+        }
+    }
+
+    private double observedFalsePositiveRate() {
+        double positives = truePositives.count() + falsePositives.count();
+        return positives == 0 ? 0.0 : falsePositives.count() / positives;
+    }
+
+    private static final class BitArray {
+        private final AtomicLongArray words;
+        private final long size;
+        private final int hashCount;
+
+        private BitArray(long size, int hashCount) {
+            this.words = new AtomicLongArray(Math.toIntExact((size + 63) / 64));
+            this.size = size;
+            this.hashCount = hashCount;
+        }
+
+        private static BitArray sized(long insertions, double falsePositiveRate) {
+            long n = Math.max(1, insertions);
+            long size = Math.max(64, (long) (-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2))));
+            int hashCount = Math.max(1, (int) Math.round((double) size / n * Math.log(2)));
+            return new BitArray(size, hashCount);
+        }
+
+        private void put(String value) {
+            long hash = hash64(value);
+            long h1 = hash;
+            long h2 = Long.rotateLeft(hash, 32) * 0x9E3779B97F4A7C15L | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + i * h2, size);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long current;
+                do {
+                    current = words.get(word);
+                    if ((current & mask) != 0) {
+                        break;
+                    }
+                } while (!words.compareAndSet(word, current, current | mask));
+            }
+        }
+
+        private boolean mightContain(String value) {
+            long hash = hash64(value);
+            long h1 = hash;
+            long h2 = Long.rotateLeft(hash, 32) * 0x9E3779B97F4A7C15L | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + i * h2, size);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private double expectedFalsePositiveRate() {
+            long set = 0;
+            for (int i = 0; i < words.length(); i++) {
+                set += Long.bitCount(words.get(i));
+            }
+            return Math.pow((double) set / size, hashCount);
+        }
+
+        private static long hash64(String value) {
+            long hash = 0xCBF29CE484222325L;
+            for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+                hash ^= b & 0xFF;
+                hash *= 0x100000001B3L;
+            }
+            hash ^= hash >>> 33;
+            hash *= 0xFF51AFD7ED558CCDL;
+            hash ^= hash >>> 33;
+            hash *= 0xC4CEB9FE1A85EC53L;
+            hash ^= hash >>> 33;
+            return hash;
+        }
+    }
+}
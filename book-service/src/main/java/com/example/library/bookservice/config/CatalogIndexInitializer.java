@@ -0,0 +1,124 @@
+package com.example.library.bookservice.config;
+
+import com.example.library.bookservice.availability.HotTitleAvailability;
+import com.example.library.bookservice.cache.CatalogReferenceCache;
+import com.example.library.bookservice.cache.IsbnBloomFilter;
+import com.example.library.bookservice.model.Book;
+import com.example.library.bookservice.outbox.CatalogChangeFeed;
+import com.example.library.bookservice.repository.BookRepository;
+import com.example.library.bookservice.repository.CatalogImportRepository;
+import com.example.library.bookservice.search.BookSearchIndex;
+import com.example.library.bookservice.search.CatalogIndexer;
+import com.example.library.bookservice.snapshot.CatalogSnapshotService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Construit les index en memoire du catalogue au demarrage.
+ *
+ * <p>Le catalogue est charge depuis le snapshot local s'il existe (rattrape depuis la base),
+ * sinon par une requete unique. En cas d'echec, les recherches retombent sur les requetes JPQL.
+ * Les mutations locales commitees pendant la construction sont memorisees par
+ * {@link CatalogIndexer} et rejouees sur les index construits ; le flux de changements
+ * ({@link CatalogChangeFeed}) est suivi depuis une sequence lue avant ce chargement.</p>
+ *
+ * @since 1.1
+ */
+@Component
+public class CatalogIndexInitializer implements CommandLineRunner {
+    private static final Logger log = LoggerFactory.getLogger(CatalogIndexInitializer.class);
+
+    private final BookRepository bookRepository;
+    private final CatalogIndexer catalogIndexer;
+    private final BookSearchIndex searchIndex;
+    private final CatalogImportRepository importRepository;
+    private final CatalogReferenceCache referenceCache;
+    private final IsbnBloomFilter isbnFilter;
+    private final CatalogChangeFeed changeFeed;
+    private final CatalogSnapshotService snapshotService;
+    private final HotTitleAvailability hotTitleAvailability;
+
+    public CatalogIndexInitializer(BookRepository bookRepository,
+                                   CatalogIndexer catalogIndexer,
+                                   BookSearchIndex searchIndex,
+                                   CatalogImportRepository importRepository,
+                                   CatalogReferenceCache referenceCache,
+                                   IsbnBloomFilter isbnFilter,
+                                   CatalogChangeFeed changeFeed,
+                                   CatalogSnapshotService snapshotService,
+                                   HotTitleAvailability hotTitleAvailability) {
+        this.bookRepository = bookRepository;
+        this.catalogIndexer = catalogIndexer;
+        this.searchIndex = searchIndex;
+        this.importRepository = importRepository;
+        this.referenceCache = referenceCache;
+        this.isbnFilter = isbnFilter;
+        this.changeFeed = changeFeed;
+        this.snapshotService = snapshotService;
+        this.hotTitleAvailability = hotTitleAvailability;
+    }
+
+    @Override
+    public void run(String... args) {
+        try {
+            int assigned = importRepository.assignMissingAuthorIdentityKeys(CatalogReferenceCache::authorKey);
+            if (assigned > 0) {
+                log.info("Assigned identity keys to {} existing authors", assigned);
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Author identity key backfill failed", ex);
+        }
+        try {
+            importRepository.forEachCategory(referenceCache::putCategory);
+            importRepository.forEachAuthor(referenceCache::putAuthor);
+            referenceCache.markReady();
+        } catch (RuntimeException ex) {
+            log.warn("Category/author cache warm-up failed, falling back to database lookups", ex);
+        }
+        try {
+            hotTitleAvailability.load();
+        } catch (RuntimeException ex) {
+            log.warn("Hot title counters load failed, copies of hot titles will be updated in the database", ex);
+        }
+        boolean feedStarted = false;
+        try {
+            changeFeed.start();
+            feedStarted = true;
+        } catch (RuntimeException ex) {
+            log.warn("Catalog change feed start failed, ISBN lookups will always query the database "
+                    + "and indexes will miss changes made by other instances", ex);
+        }
+        catalogIndexer.beginRebuild();
+        List<Book> books;
+        try {
+            books = snapshotService.load().orElseGet(bookRepository::findAllWithAssociations);
+        } catch (RuntimeException ex) {
+            catalogIndexer.cancelRebuild();
+            log.warn("Catalog load failed, falling back to database search and ISBN lookups", ex);
+            return;
+        }
+        if (feedStarted) {
+            try {
+                isbnFilter.rebuild(books.size(), consumer -> books.forEach(book -> consumer.accept(book.getIsbn())));
+            } catch (RuntimeException ex) {
+                log.warn("ISBN filter build failed, ISBN lookups will always query the database", ex);
+            }
+        }
+        try {
+            catalogIndexer.rebuild(books);
+            log.info("Catalog indexes built with {} books", searchIndex.size());
+        } catch (RuntimeException ex) {
+            log.warn("Catalog index build failed, falling back to database search", ex);
+        }
+        changeFeed.activate();
+        try {
+            snapshotService.writeIfMissing();
+        } catch (RuntimeException ex) {
+            log.warn("Initial catalog snapshot write failed", ex);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.library.bookservice.config;
+
+import com.example.library.bookservice.support.OptimisticLockRetry;
+import io.micrometer.core.instrument.config.MeterFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Borne la cardinalite des metriques de conflits par livre.
+ *
+ * <p>Seuls les premiers livres en conflit recoivent un compteur dedie ; au-dela, les
+ * conflits restent visibles dans le compteur agrege par operation.</p>
+ *
+ * @since 1.1
+ */
+@Configuration
+public class ConflictMetricsConfig {
+
+    @Bean
+    public MeterFilter conflictsByBookCardinalityLimit(
+            @Value("${catalog.concurrency.max-tracked-books:200}") int maxTrackedBooks) {
+        return MeterFilter.maximumAllowableTags(OptimisticLockRetry.CONFLICTS_BY_BOOK, "bookId",
+                maxTrackedBooks, MeterFilter.deny());
+    }
+}
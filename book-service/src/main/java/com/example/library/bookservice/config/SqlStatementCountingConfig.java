@@ -0,0 +1,42 @@
+package com.example.library.bookservice.config;
+
+import com.example.library.bookservice.support.SqlStatementCounter;
+import com.example.library.bookservice.support.StatementCountingDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+
+import javax.sql.DataSource;
+
+/**
+ * Branche le comptage des instructions SQL par requete ({@link SqlStatementMetricsFilter}).
+ *
+ * <p>La source de donnees est enveloppee pour compter toutes les instructions, Hibernate
+ * comme JdbcTemplate. Le decorateur de taches est applique par Spring Boot a l'executeur
+ * des traitements MVC asynchrones : le flux NDJSON, ecrit sur un autre thread, est compte
+ * avec la requete qui l'a lance.</p>
+ *
+ * @since 1.1
+ */
+@Configuration
+public class SqlStatementCountingConfig {
+
+    @Bean
+    public static BeanPostProcessor statementCountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof StatementCountingDataSource)) {
+                    return new StatementCountingDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public TaskDecorator sqlStatementCounterPropagation() {
+        return SqlStatementCounter::propagate;
+    }
+}
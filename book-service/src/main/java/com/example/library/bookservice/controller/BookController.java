@@ -1,11 +1,26 @@
 package com.example.library.bookservice.controller;
 
 import com.example.library.bookservice.dto.BookDto;
+import com.example.library.bookservice.dto.BookPage;
+import com.example.library.bookservice.dto.CatalogChangeDto;
+import com.example.library.bookservice.dto.CopiesBatchEntry;
+import com.example.library.bookservice.dto.CopiesBatchResult;
 import com.example.library.bookservice.dto.CreateBookRequest;
+import com.example.library.bookservice.dto.FacetFilter;
+import com.example.library.bookservice.dto.FacetedSearchResult;
+import com.example.library.bookservice.dto.ImportReport;
+import com.example.library.bookservice.dto.SuggestionDto;
 import com.example.library.bookservice.dto.UpdateBookRequest;
 import com.example.library.bookservice.dto.UpdateCopiesRequest;
+import com.example.library.bookservice.exception.BadRequestException;
 import com.example.library.bookservice.service.BookService;
+import com.example.library.bookservice.service.CatalogImportService;
+import com.example.library.bookservice.snapshot.CatalogSnapshotService;
 import jakarta.validation.Valid;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -15,10 +30,18 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.ObjectMapper;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 /**
@@ -31,41 +54,135 @@ import java.util.List;
 public class BookController {
 
     private final BookService bookService;
+    private final CatalogImportService catalogImportService;
+    private final CatalogSnapshotService snapshotService;
+    private final ObjectMapper objectMapper;
 
-    public BookController(BookService bookService) {
+    public BookController(BookService bookService,
+                          CatalogImportService catalogImportService,
+                          CatalogSnapshotService snapshotService,
+                          ObjectMapper objectMapper) {
         this.bookService = bookService;
+        this.catalogImportService = catalogImportService;
+        this.snapshotService = snapshotService;
+        this.objectMapper = objectMapper;
     }
 
     /**
      * Liste tous les livres.
      *
+     * <p>Répond 304 sans charger le catalogue si l'ETag fourni correspond à la version courante.</p>
+     *
+     * @param webRequest requête (en-têtes conditionnels).
      * @return liste des livres.
      */
     @GetMapping
-    public ResponseEntity<List<BookDto>> findAll() {
+    public ResponseEntity<List<BookDto>> findAll(WebRequest webRequest) {
+        if (webRequest.checkNotModified(catalogETag(""))) {
+            return null;
+        }
         return ResponseEntity.ok(bookService.findAll());
     }
 
+    /**
+     * Liste une page du catalogue par curseur (keyset sur l'id).
+     *
+     * @param after dernier id de la page précédente.
+     * @param size taille de page (plafonnée).
+     * @param webRequest requête (en-têtes conditionnels).
+     * @return page de livres et curseur suivant.
+     */
+    @GetMapping(params = "size")
+    public ResponseEntity<BookPage> findPage(@RequestParam(value = "after", required = false) Long after,
+                                             @RequestParam("size") int size,
+                                             WebRequest webRequest) {
+        if (webRequest.checkNotModified(catalogETag("-" + after + "-" + size))) {
+            return null;
+        }
+        return ResponseEntity.ok(bookService.findPage(after, size));
+    }
+
+    /**
+     * Diffuse tout le catalogue en NDJSON (une ligne JSON par livre).
+     *
+     * @return flux NDJSON.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> stream() {
+        StreamingResponseBody body = out -> bookService.streamAll(book -> writeLine(out, book));
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    /**
+     * Exporte le dernier snapshot binaire du catalogue (format colonnaire, voir README).
+     *
+     * @return fichier snapshot, ou 404 si aucun n'a encore été écrit.
+     */
+    @GetMapping(value = "/snapshot", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @PreAuthorize("hasRole('ADMIN') or hasRole('LIBRARIAN')")
+    public ResponseEntity<Resource> snapshot() {
+        return snapshotService.latest()
+                .<ResponseEntity<Resource>>map(path -> ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .body(new FileSystemResource(path)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Suit les mutations du catalogue (outbox) après une séquence donnée.
+     *
+     * @param after dernière séquence déjà traitée.
+     * @param limit nombre maximal d'entrées.
+     * @return mutations triées par séquence.
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<List<CatalogChangeDto>> changes(@RequestParam(value = "after", defaultValue = "0") long after,
+                                                          @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        return ResponseEntity.ok(bookService.findChanges(after, limit));
+    }
+
+    /**
+     * Dernière séquence publiée du flux de mutations (point de départ d'une réplique).
+     *
+     * @return séquence courante.
+     */
+    @GetMapping("/changes/head")
+    public ResponseEntity<Long> changesHead() {
+        return ResponseEntity.ok(bookService.getChangesHead());
+    }
+
     /**
      * Récupère un livre par id.
      *
      * @param id identifiant livre.
+     * @param webRequest requête (en-têtes conditionnels).
      * @return livre.
      */
     @GetMapping("/{id}")
-    public ResponseEntity<BookDto> findById(@PathVariable Long id) {
-        return ResponseEntity.ok(bookService.findById(id));
+    public ResponseEntity<BookDto> findById(@PathVariable Long id, WebRequest webRequest) {
+        BookDto book = bookService.findById(id);
+        if (webRequest.checkNotModified(bookETag(book))) {
+            return null;
+        }
+        return ResponseEntity.ok(book);
     }
 
     /**
      * Récupère un livre par ISBN.
      *
      * @param isbn ISBN du livre.
+     * @param webRequest requête (en-têtes conditionnels).
      * @return livre.
      */
     @GetMapping("/isbn/{isbn}")
-    public ResponseEntity<BookDto> findByIsbn(@PathVariable String isbn) {
-        return ResponseEntity.ok(bookService.findByIsbn(isbn));
+    public ResponseEntity<BookDto> findByIsbn(@PathVariable String isbn, WebRequest webRequest) {
+        BookDto book = bookService.findByIsbn(isbn);
+        if (webRequest.checkNotModified(bookETag(book))) {
+            return null;
+        }
+        return ResponseEntity.ok(book);
     }
 
     /**
@@ -79,6 +196,44 @@ public class BookController {
         return ResponseEntity.ok(bookService.search(query));
     }
 
+    /**
+     * Recherche full-text avec filtres et compteurs de facettes.
+     *
+     * @param query terme de recherche.
+     * @param category catégorie sélectionnée.
+     * @param publisher éditeur sélectionné.
+     * @param publicationYears tranche d'années sélectionnée (ex. 1990-1999).
+     * @param available ne garder que les livres disponibles (true) ou indisponibles (false).
+     * @return résultats et compteurs par facette.
+     */
+    @GetMapping("/search/facets")
+    public ResponseEntity<FacetedSearchResult> facetedSearch(@RequestParam("q") String query,
+                                                             @RequestParam(value = "category", required = false) String category,
+                                                             @RequestParam(value = "publisher", required = false) String publisher,
+                                                             @RequestParam(value = "publicationYears", required = false) String publicationYears,
+                                                             @RequestParam(value = "available", required = false) Boolean available) {
+        FacetFilter filter = FacetFilter.builder()
+                .category(category)
+                .publisher(publisher)
+                .publicationYears(publicationYears)
+                .available(available)
+                .build();
+        return ResponseEntity.ok(bookService.facetedSearch(query, filter));
+    }
+
+    /**
+     * Suggestions d'autocomplétion par préfixe (titres, auteurs, catégories).
+     *
+     * @param prefix début de saisie.
+     * @param limit nombre maximal de suggestions.
+     * @return suggestions.
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SuggestionDto>> suggest(@RequestParam("q") String prefix,
+                                                       @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return ResponseEntity.ok(bookService.suggest(prefix, limit));
+    }
+
     /**
      * Crée un livre (ADMIN/LIBRARIAN).
      *
@@ -91,17 +246,50 @@ public class BookController {
         return ResponseEntity.ok(bookService.create(request));
     }
 
+    /**
+     * Importe en masse un flux NDJSON de livres (ADMIN/LIBRARIAN).
+     *
+     * @param body flux NDJSON de demandes de création.
+     * @return bilan de l'import.
+     * @throws IOException en cas d'erreur de lecture.
+     */
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasRole('ADMIN') or hasRole('LIBRARIAN')")
+    public ResponseEntity<ImportReport> importNdjson(InputStream body) throws IOException {
+        return ResponseEntity.ok(catalogImportService.importFeed(body, CatalogImportService.Format.NDJSON));
+    }
+
+    /**
+     * Importe en masse un flux CSV de livres avec ligne d'en-tête (ADMIN/LIBRARIAN).
+     *
+     * @param body flux CSV dont les colonnes reprennent les champs de création.
+     * @return bilan de l'import.
+     * @throws IOException en cas d'erreur de lecture.
+     */
+    @PostMapping(value = "/import", consumes = "text/csv")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('LIBRARIAN')")
+    public ResponseEntity<ImportReport> importCsv(InputStream body) throws IOException {
+        return ResponseEntity.ok(catalogImportService.importFeed(body, CatalogImportService.Format.CSV));
+    }
+
     /**
      * Met à jour un livre (ADMIN/LIBRARIAN).
      *
+     * <p>Un en-tête {@code If-Match} portant l'ETag lu précédemment rend la mise à jour
+     * conditionnelle : 409 si le livre a été modifié depuis.</p>
+     *
      * @param id identifiant livre.
+     * @param ifMatch ETag attendu (optionnel).
      * @param request données de mise à jour.
      * @return livre mis à jour.
      */
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN') or hasRole('LIBRARIAN')")
-    public ResponseEntity<BookDto> update(@PathVariable Long id, @Valid @RequestBody UpdateBookRequest request) {
-        return ResponseEntity.ok(bookService.update(id, request));
+    public ResponseEntity<BookDto> update(@PathVariable Long id,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                          @Valid @RequestBody UpdateBookRequest request) {
+        BookDto book = bookService.update(id, request, expectedVersion(id, ifMatch));
+        return ResponseEntity.ok().eTag(bookETag(book)).body(book);
     }
 
     /**
@@ -120,12 +308,75 @@ public class BookController {
     /**
      * Met à jour le stock de copies.
      *
+     * <p>Avec un en-tête {@code Idempotency-Key}, des variations ne sont appliquées qu'une
+     * fois par clé.</p>
+     *
      * @param id identifiant livre.
+     * @param key clé d'idempotence (optionnelle, variations seules).
      * @param request mises à jour.
      * @return livre mis à jour.
      */
     @PatchMapping("/{id}/copies")
-    public ResponseEntity<BookDto> updateCopies(@PathVariable Long id, @RequestBody UpdateCopiesRequest request) {
+    public ResponseEntity<BookDto> updateCopies(@PathVariable Long id,
+                                                @RequestHeader(value = "Idempotency-Key", required = false) String key,
+                                                @RequestBody UpdateCopiesRequest request) {
+        if (key != null) {
+            return ResponseEntity.ok(bookService.updateCopiesOnce(id, key, request));
+        }
         return ResponseEntity.ok(bookService.updateCopies(id, request));
     }
+
+    /**
+     * Applique un lot de variations de copies en une transaction, au plus une fois par
+     * clé d'idempotence.
+     *
+     * @param batchId clé d'idempotence du lot (optionnelle).
+     * @param entries variations par livre.
+     * @return résultat par entrée.
+     */
+    @PatchMapping("/copies")
+    public ResponseEntity<List<CopiesBatchResult>> updateCopiesBatch(@RequestHeader(value = "Idempotency-Key", required = false) String batchId,
+                                                                     @RequestBody List<CopiesBatchEntry> entries) {
+        return ResponseEntity.ok(bookService.updateCopiesBatch(batchId, entries));
+    }
+
+    private String catalogETag(String suffix) {
+        return "\"catalog-" + bookService.getCatalogVersion() + suffix + "\"";
+    }
+
+    private static Long expectedVersion(Long id, String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || "*".equals(ifMatch.trim())) {
+            return null;
+        }
+        String prefix = "\"book-" + id + "-";
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        if (!tag.startsWith(prefix) || !tag.endsWith("\"") || tag.length() <= prefix.length() + 1) {
+            throw new BadRequestException("If-Match does not match book " + id);
+        }
+        String value = tag.substring(prefix.length(), tag.length() - 1);
+        int end = value.indexOf('-');
+        try {
+            return Long.parseLong(end >= 0 ? value.substring(0, end) : value);
+        } catch (NumberFormatException ex) {
+            throw new BadRequestException("If-Match does not match book " + id);
+        }
+    }
+
+    // Le stock servi fait partie de l'ETag : celui d'un titre chaud change sans nouvelle version.
+    private static String bookETag(BookDto book) {
+        return "\"book-" + book.getId() + "-" + book.getVersion()
+                + "-" + book.getAvailableCopies() + "-" + book.getTotalCopies() + "\"";
+    }
+
+    private void writeLine(OutputStream out, BookDto book) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(book));
+            out.write('\n');
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
 }
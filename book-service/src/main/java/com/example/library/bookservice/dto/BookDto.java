@@ -4,7 +4,7 @@ import lombok.Builder;
 import lombok.Data;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 public class BookDto {
     private Long id;
     private String isbn;
@@ -16,4 +16,5 @@ public class BookDto {
     private Integer availableCopies;
     private AuthorDto author;
     private CategoryDto category;
+    private Long version;
 }
@@ -0,0 +1,13 @@
+package com.example.library.bookservice.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class BookPage {
+    private List<BookDto> items;
+    private Long nextCursor;
+}
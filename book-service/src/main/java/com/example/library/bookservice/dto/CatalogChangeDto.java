@@ -0,0 +1,19 @@
+package com.example.library.bookservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@Builder
+public class CatalogChangeDto {
+    private long sequence;
+    private long eventId;
+    private Long bookId;
+    private CatalogChangeType type;
+    @JsonRawValue
+    private String payload;
+    private Instant occurredAt;
+}
@@ -0,0 +1,8 @@
+package com.example.library.bookservice.dto;
+
+public enum CatalogChangeType {
+    BOOK_CREATED,
+    BOOK_UPDATED,
+    BOOK_DELETED,
+    COPIES_UPDATED
+}
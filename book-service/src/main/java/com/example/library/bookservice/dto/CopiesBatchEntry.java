@@ -0,0 +1,10 @@
+package com.example.library.bookservice.dto;
+
+import lombok.Data;
+
+@Data
+public class CopiesBatchEntry {
+    private Long bookId;
+    private Integer deltaAvailable;
+    private Integer deltaTotal;
+}
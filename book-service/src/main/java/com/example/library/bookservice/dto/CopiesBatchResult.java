@@ -0,0 +1,13 @@
+package com.example.library.bookservice.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class CopiesBatchResult {
+    private Long bookId;
+    private CopiesUpdateStatus status;
+    private Integer availableCopies;
+    private Integer totalCopies;
+}
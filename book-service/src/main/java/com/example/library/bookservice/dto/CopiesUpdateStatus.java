@@ -0,0 +1,9 @@
+package com.example.library.bookservice.dto;
+
+public enum CopiesUpdateStatus {
+    UPDATED,
+    NOT_FOUND,
+    INSUFFICIENT_COPIES,
+    INVALID,
+    OWNED_ELSEWHERE
+}
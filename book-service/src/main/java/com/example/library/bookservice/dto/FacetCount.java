@@ -0,0 +1,11 @@
+package com.example.library.bookservice.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class FacetCount {
+    private String value;
+    private long count;
+}
@@ -0,0 +1,13 @@
+package com.example.library.bookservice.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class FacetFilter {
+    private String category;
+    private String publisher;
+    private String publicationYears;
+    private Boolean available;
+}
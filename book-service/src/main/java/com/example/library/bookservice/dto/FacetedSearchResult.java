@@ -0,0 +1,16 @@
+package com.example.library.bookservice.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class FacetedSearchResult {
+    private List<BookDto> items;
+    private List<FacetCount> categories;
+    private List<FacetCount> publishers;
+    private List<FacetCount> publicationYears;
+    private long availableNow;
+}
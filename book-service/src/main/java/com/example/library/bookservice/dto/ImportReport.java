@@ -0,0 +1,16 @@
+package com.example.library.bookservice.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class ImportReport {
+    private long received;
+    private long imported;
+    private long duplicates;
+    private long rejected;
+    private List<String> errors;
+}
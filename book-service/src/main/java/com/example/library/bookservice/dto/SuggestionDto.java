@@ -0,0 +1,12 @@
+package com.example.library.bookservice.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class SuggestionDto {
+    private String text;
+    private SuggestionType type;
+    private int bookCount;
+}
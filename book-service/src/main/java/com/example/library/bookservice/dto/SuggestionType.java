@@ -0,0 +1,7 @@
+package com.example.library.bookservice.dto;
+
+public enum SuggestionType {
+    TITLE,
+    AUTHOR,
+    CATEGORY
+}
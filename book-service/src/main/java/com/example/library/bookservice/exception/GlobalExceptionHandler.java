@@ -1,6 +1,7 @@
 package com.example.library.bookservice.exception;
 
 import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -42,6 +43,44 @@ public class GlobalExceptionHandler {
         return buildError(HttpStatus.BAD_REQUEST, ex.getMessage(), request.getRequestURI());
     }
 
+    /**
+     * Geree les stocks de copies insuffisants.
+     *
+     * @param ex exception.
+     * @param request requete HTTP.
+     * @return reponse 409.
+     */
+    @ExceptionHandler(InsufficientCopiesException.class)
+    public ResponseEntity<ErrorResponse> handleInsufficientCopies(InsufficientCopiesException ex, HttpServletRequest request) {
+        return buildError(HttpStatus.CONFLICT, ex.getMessage(), request.getRequestURI());
+    }
+
+    /**
+     * Geree les variations de titres chauds tenus par une autre instance.
+     *
+     * @param ex exception.
+     * @param request requete HTTP.
+     * @return reponse 503 (rien n'a ete applique, la requete peut etre renvoyee).
+     */
+    @ExceptionHandler(HotTitleOwnedElsewhereException.class)
+    public ResponseEntity<ErrorResponse> handleHotTitleOwnedElsewhere(HotTitleOwnedElsewhereException ex,
+                                                                      HttpServletRequest request) {
+        return buildError(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage(), request.getRequestURI());
+    }
+
+    /**
+     * Geree les conflits de version (modification concurrente d'un livre).
+     *
+     * @param ex exception.
+     * @param request requete HTTP.
+     * @return reponse 409.
+     */
+    @ExceptionHandler({VersionConflictException.class, OptimisticLockingFailureException.class})
+    public ResponseEntity<ErrorResponse> handleVersionConflict(RuntimeException ex, HttpServletRequest request) {
+        String message = ex instanceof VersionConflictException ? ex.getMessage() : "Book was modified concurrently";
+        return buildError(HttpStatus.CONFLICT, message, request.getRequestURI());
+    }
+
     /**
      * Geree les erreurs de validation.
      *
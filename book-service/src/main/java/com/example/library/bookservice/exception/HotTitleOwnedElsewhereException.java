@@ -0,0 +1,18 @@
+package com.example.library.bookservice.exception;
+
+/**
+ * Exception levee quand le stock d'un titre chaud est tenu par une autre instance : la
+ * variation n'est pas appliquee et peut etre renvoyee.
+ *
+ * @since 1.1
+ */
+public class HotTitleOwnedElsewhereException extends RuntimeException {
+    /**
+     * Construit l'exception pour un titre chaud gere ailleurs.
+     *
+     * @param bookId identifiant du livre.
+     */
+    public HotTitleOwnedElsewhereException(Long bookId) {
+        super("Copies of book " + bookId + " are managed by another instance");
+    }
+}
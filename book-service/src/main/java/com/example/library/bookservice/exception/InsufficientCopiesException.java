@@ -0,0 +1,17 @@
+package com.example.library.bookservice.exception;
+
+/**
+ * Exception levee quand un livre n'a plus assez de copies disponibles.
+ *
+ * @since 1.1
+ */
+public class InsufficientCopiesException extends RuntimeException {
+    /**
+     * Construit l'exception pour un livre sans copies suffisantes.
+     *
+     * @param bookId identifiant du livre.
+     */
+    public InsufficientCopiesException(Long bookId) {
+        super("Insufficient copies for book: " + bookId);
+    }
+}
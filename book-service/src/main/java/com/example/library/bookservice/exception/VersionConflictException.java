@@ -0,0 +1,17 @@
+package com.example.library.bookservice.exception;
+
+/**
+ * Exception levee quand un livre a ete modifie par une autre transaction.
+ *
+ * @since 1.1
+ */
+public class VersionConflictException extends RuntimeException {
+    /**
+     * Construit l'exception pour un livre modifie concurremment.
+     *
+     * @param bookId identifiant du livre.
+     */
+    public VersionConflictException(Long bookId) {
+        super("Book was modified concurrently: " + bookId);
+    }
+}
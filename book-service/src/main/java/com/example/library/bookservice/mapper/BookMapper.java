@@ -6,6 +6,7 @@ import com.example.library.bookservice.dto.CategoryDto;
 import com.example.library.bookservice.model.Author;
 import com.example.library.bookservice.model.Book;
 import com.example.library.bookservice.model.Category;
+import com.example.library.bookservice.repository.BookRow;
 
 public final class BookMapper {
     private BookMapper() {}
@@ -25,6 +26,35 @@ public final class BookMapper {
                 .availableCopies(book.getAvailableCopies())
                 .author(toDto(book.getAuthor()))
                 .category(toDto(book.getCategory()))
+                .version(book.getVersion())
+                .build();
+    }
+
+    public static BookDto toDto(BookRow row) {
+        if (row == null) {
+            return null;
+        }
+        return BookDto.builder()
+                .id(row.id())
+                .isbn(row.isbn())
+                .title(row.title())
+                .description(row.description())
+                .publicationYear(row.publicationYear())
+                .publisher(row.publisher())
+                .totalCopies(row.totalCopies())
+                .availableCopies(row.availableCopies())
+                .author(row.authorId() == null ? null : AuthorDto.builder()
+                        .id(row.authorId())
+                        .firstName(row.authorFirstName())
+                        .lastName(row.authorLastName())
+                        .biography(row.authorBiography())
+                        .build())
+                .category(row.categoryId() == null ? null : CategoryDto.builder()
+                        .id(row.categoryId())
+                        .name(row.categoryName())
+                        .description(row.categoryDescription())
+                        .build())
+                .version(row.version())
                 .build();
     }
 
@@ -30,4 +30,11 @@ public class Author {
 
     @Column(length = 2000)
     private String biography;
+
+    /**
+     * Identite normalisee (prenom + nom sans accents ni casse), unique en base pour
+     * qu'une creation concurrente du meme auteur ne produise pas de doublon.
+     */
+    @Column(name = "identity_key", unique = true, length = 600)
+    private String identityKey;
 }
@@ -0,0 +1,197 @@
+package com.example.library.bookservice.outbox;
+
+import com.example.library.bookservice.cache.BookDtoCache;
+import com.example.library.bookservice.cache.CatalogReferenceCache;
+import com.example.library.bookservice.cache.IsbnBloomFilter;
+import com.example.library.bookservice.dto.CatalogChangeDto;
+import com.example.library.bookservice.model.Book;
+import com.example.library.bookservice.repository.BookRepository;
+import com.example.library.bookservice.repository.CatalogOutboxRepository;
+import com.example.library.bookservice.search.CatalogIndexer;
+import com.example.library.bookservice.search.FacetIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.node.MissingNode;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Applique aux structures en memoire de l'instance les mutations du catalogue publiees
+ * par toutes les instances, en suivant le flux de changements.
+ *
+ * <p>Les mutations locales sont appliquees des leur commit ; ce flux apporte celles des
+ * autres instances : ISBN crees pour le {@link IsbnBloomFilter}, livres crees, modifies ou
+ * supprimes pour les index de recherche, de suggestions et de facettes, disponibilite pour
+ * la facette « disponible », invalidation du {@link BookDtoCache} (stock et ETag servis) et
+ * categories et auteurs du {@link CatalogReferenceCache}.
+ * Les livres crees ou modifies sont relus en base par lot (etat courant, associations
+ * comprises) ; rejouer une mutation locale est sans effet.</p>
+ *
+ * <p>Le curseur est pose avant le chargement du catalogue qui sert a construire les index,
+ * et le flux n'est applique qu'une fois les index construits : toute mutation publiee
+ * apres ce chargement est donc rejouee. Reste une fenetre egale au delai de publication du
+ * relais pendant laquelle une autre instance sert l'etat precedent ; la contrainte
+ * d'unicite en base reste la reference pour les creations.</p>
+ *
+ * @since 1.1
+ */
+@Component
+public class CatalogChangeFeed {
+    private static final Logger log = LoggerFactory.getLogger(CatalogChangeFeed.class);
+
+    private final CatalogOutboxRepository outboxRepository;
+    private final BookRepository bookRepository;
+    private final IsbnBloomFilter isbnFilter;
+    private final CatalogIndexer catalogIndexer;
+    private final FacetIndex facetIndex;
+    private final BookDtoCache bookCache;
+    private final CatalogReferenceCache referenceCache;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private volatile long cursor = -1;
+    private volatile boolean active;
+
+    public CatalogChangeFeed(CatalogOutboxRepository outboxRepository,
+                             BookRepository bookRepository,
+                             IsbnBloomFilter isbnFilter,
+                             CatalogIndexer catalogIndexer,
+                             FacetIndex facetIndex,
+                             BookDtoCache bookCache,
+                             CatalogReferenceCache referenceCache,
+                             ObjectMapper objectMapper,
+                             @Value("${catalog.outbox.batch-size:500}") int batchSize) {
+        this.outboxRepository = outboxRepository;
+        this.bookRepository = bookRepository;
+        this.isbnFilter = isbnFilter;
+        this.catalogIndexer = catalogIndexer;
+        this.facetIndex = facetIndex;
+        this.bookCache = bookCache;
+        this.referenceCache = referenceCache;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Pose le curseur sur la derniere sequence publiee ; a appeler avant de charger le
+     * catalogue qui sert a construire le filtre et les index.
+     */
+    public void start() {
+        cursor = outboxRepository.lastPublishedSequence();
+    }
+
+    /**
+     * Commence a appliquer le flux depuis le curseur ; a appeler une fois les structures
+     * en memoire construites.
+     */
+    public void activate() {
+        active = cursor >= 0;
+    }
+
+    /**
+     * Applique les mutations publiees depuis le curseur, lot par lot.
+     */
+    @Scheduled(fixedDelayString = "${catalog.change-feed.interval-ms:1000}")
+    public void poll() {
+        if (!active) {
+            return;
+        }
+        try {
+            List<CatalogChangeDto> changes;
+            do {
+                changes = outboxRepository.findPublishedAfter(cursor, batchSize);
+                if (!changes.isEmpty()) {
+                    apply(changes);
+                    cursor = changes.get(changes.size() - 1).getSequence();
+                }
+            } while (changes.size() == batchSize);
+        } catch (RuntimeException ex) {
+            log.warn("Catalog change feed failed after sequence {}, will retry", cursor, ex);
+        }
+    }
+
+    private void apply(List<CatalogChangeDto> changes) {
+        Set<Long> reindexed = new LinkedHashSet<>();
+        Set<Long> removed = new LinkedHashSet<>();
+        Map<Long, Integer> availability = new LinkedHashMap<>();
+        Set<Long> changed = new LinkedHashSet<>();
+        List<String> deletedIsbns = new ArrayList<>();
+        for (CatalogChangeDto change : changes) {
+            Long bookId = change.getBookId();
+            changed.add(bookId);
+            switch (change.getType()) {
+                case BOOK_CREATED -> {
+                    addIsbn(change);
+                    reindexed.add(bookId);
+                    removed.remove(bookId);
+                }
+                case BOOK_UPDATED -> {
+                    reindexed.add(bookId);
+                    removed.remove(bookId);
+                }
+                case BOOK_DELETED -> {
+                    reindexed.remove(bookId);
+                    removed.add(bookId);
+                    JsonNode isbn = readPayload(change).path("isbn");
+                    if (isbn.isString()) {
+                        deletedIsbns.add(isbn.asString());
+                    }
+                }
+                case COPIES_UPDATED -> {
+                    JsonNode available = readPayload(change).path("availableCopies");
+                    if (available.isInt()) {
+                        availability.put(bookId, available.asInt());
+                    }
+                }
+            }
+        }
+        bookCache.evictPublished(changed, deletedIsbns);
+        removed.forEach(catalogIndexer::remove);
+        if (!reindexed.isEmpty()) {
+            Set<Long> missing = new LinkedHashSet<>(reindexed);
+            for (Book book : bookRepository.findAllWithAssociationsByIdIn(reindexed)) {
+                if (book.getCategory() != null) {
+                    referenceCache.putCategory(book.getCategory());
+                }
+                if (book.getAuthor() != null) {
+                    referenceCache.putAuthor(book.getAuthor());
+                }
+                catalogIndexer.index(book);
+                missing.remove(book.getId());
+            }
+            missing.forEach(catalogIndexer::remove);
+        }
+        // Un livre relu porte deja sa disponibilite courante.
+        availability.forEach((bookId, available) -> {
+            if (!reindexed.contains(bookId)) {
+                facetIndex.updateAvailability(bookId, available);
+            }
+        });
+    }
+
+    private void addIsbn(CatalogChangeDto change) {
+        JsonNode isbn = readPayload(change).path("isbn");
+        if (isbn.isString()) {
+            isbnFilter.add(isbn.asString());
+        }
+    }
+
+    private JsonNode readPayload(CatalogChangeDto change) {
+        try {
+            return objectMapper.readTree(change.getPayload());
+        } catch (JacksonException ex) {
+            log.warn("Unreadable payload for catalog change {}, ignored", change.getSequence(), ex);
+            return MissingNode.getInstance();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.library.bookservice.outbox;
+
+import com.example.library.bookservice.dto.BookDto;
+import com.example.library.bookservice.dto.CatalogChangeType;
+import com.example.library.bookservice.repository.BookCopiesBatchRepository.CopyCounts;
+import com.example.library.bookservice.repository.CatalogOutboxRepository;
+import com.example.library.bookservice.repository.CatalogOutboxRepository.OutboxEntry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ecrit les mutations du catalogue dans l'outbox, dans la transaction de la mutation.
+ *
+ * @since 1.1
+ */
+@Component
+public class CatalogChangeRecorder {
+    private final CatalogOutboxRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+
+    public CatalogChangeRecorder(CatalogOutboxRepository outboxRepository, ObjectMapper objectMapper) {
+        this.outboxRepository = outboxRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Enregistre la creation de livres (livre complet en contenu).
+     *
+     * @param books livres crees.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void booksCreated(Collection<BookDto> books) {
+        List<OutboxEntry> entries = new ArrayList<>(books.size());
+        for (BookDto book : books) {
+            entries.add(new OutboxEntry(book.getId(), CatalogChangeType.BOOK_CREATED,
+                    objectMapper.writeValueAsString(book)));
+        }
+        outboxRepository.append(entries);
+    }
+
+    /**
+     * Enregistre la modification d'un livre (livre complet en contenu).
+     *
+     * @param book livre modifie.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void bookUpdated(BookDto book) {
+        outboxRepository.append(List.of(new OutboxEntry(book.getId(), CatalogChangeType.BOOK_UPDATED,
+                objectMapper.writeValueAsString(book))));
+    }
+
+    /**
+     * Enregistre la suppression d'un livre.
+     *
+     * @param id identifiant livre.
+     * @param isbn ISBN du livre supprime.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void bookDeleted(Long id, String isbn) {
+        outboxRepository.append(List.of(new OutboxEntry(id, CatalogChangeType.BOOK_DELETED,
+                objectMapper.writeValueAsString(Map.of("isbn", isbn)))));
+    }
+
+    /**
+     * Enregistre les compteurs de copies apres variation.
+     *
+     * @param counts compteurs par livre.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void copiesUpdated(Map<Long, CopyCounts> counts) {
+        List<OutboxEntry> entries = new ArrayList<>(counts.size());
+        counts.forEach((bookId, current) -> {
+            Map<String, Integer> payload = new LinkedHashMap<>();
+            payload.put("availableCopies", current.availableCopies());
+            payload.put("totalCopies", current.totalCopies());
+            entries.add(new OutboxEntry(bookId, CatalogChangeType.COPIES_UPDATED,
+                    objectMapper.writeValueAsString(payload)));
+        });
+        outboxRepository.append(entries);
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.library.bookservice.outbox;
+
+import com.example.library.bookservice.dto.CatalogChangeDto;
+
+import java.util.List;
+
+/**
+ * Destination des mutations du catalogue relayees depuis l'outbox (broker, bus, etc.).
+ *
+ * <p>La livraison est « au moins une fois » : un lot peut etre republie si la
+ * transaction du relais echoue apres l'envoi. Les consommateurs dedoublonnent sur
+ * {@link CatalogChangeDto#getEventId()}.</p>
+ *
+ * @since 1.1
+ */
+public interface CatalogChangeSink {
+    /**
+     * Publie un lot d'entrees, dans l'ordre croissant des sequences.
+     *
+     * @param changes entrees a publier.
+     */
+    void publish(List<CatalogChangeDto> changes);
+}
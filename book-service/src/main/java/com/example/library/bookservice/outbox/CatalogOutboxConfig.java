@@ -0,0 +1,20 @@
+package com.example.library.bookservice.outbox;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Destination par defaut du relais d'outbox, remplacable par un bean {@link CatalogChangeSink}.
+ *
+ * @since 1.1
+ */
+@Configuration
+public class CatalogOutboxConfig {
+    @Bean
+    @ConditionalOnMissingBean(CatalogChangeSink.class)
+    public CatalogChangeSink catalogChangeSink(@Value("${catalog.outbox.memory-capacity:10000}") int capacity) {
+        return new InMemoryCatalogChangeSink(capacity);
+    }
+}
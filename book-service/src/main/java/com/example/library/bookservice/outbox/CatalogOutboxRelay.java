@@ -0,0 +1,88 @@
+package com.example.library.bookservice.outbox;
+
+import com.example.library.bookservice.dto.CatalogChangeDto;
+import com.example.library.bookservice.repository.CatalogOutboxRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Relaie les entrees de l'outbox vers le {@link CatalogChangeSink}.
+ *
+ * <p>Chaque lot est traite dans une transaction portant un verrou consultatif : un seul
+ * relais est actif entre instances, de sorte que les sequences sont attribuees et
+ * committees dans l'ordre de publication.</p>
+ *
+ * @since 1.1
+ */
+@Component
+public class CatalogOutboxRelay {
+    private static final Logger log = LoggerFactory.getLogger(CatalogOutboxRelay.class);
+
+    private final CatalogOutboxRepository outboxRepository;
+    private final CatalogChangeSink sink;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration retention;
+
+    public CatalogOutboxRelay(CatalogOutboxRepository outboxRepository,
+                              CatalogChangeSink sink,
+                              TransactionTemplate transactionTemplate,
+                              @Value("${catalog.outbox.batch-size:500}") int batchSize,
+                              @Value("${catalog.outbox.retention:7d}") Duration retention) {
+        this.outboxRepository = outboxRepository;
+        this.sink = sink;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.retention = retention;
+    }
+
+    /**
+     * Publie les entrees en attente, lot par lot, jusqu'a epuisement.
+     */
+    @Scheduled(fixedDelayString = "${catalog.outbox.relay-interval-ms:1000}")
+    public void relay() {
+        try {
+            Integer published;
+            do {
+                published = transactionTemplate.execute(status -> relayBatch());
+            } while (published != null && published == batchSize);
+        } catch (RuntimeException ex) {
+            log.warn("Catalog outbox relay failed, pending changes will be retried", ex);
+        }
+    }
+
+    /**
+     * Supprime les entrees publiees au-dela de la retention.
+     */
+    @Scheduled(fixedDelayString = "${catalog.outbox.purge-interval-ms:3600000}")
+    public void purge() {
+        try {
+            int deleted = outboxRepository.deletePublishedBefore(retention);
+            if (deleted > 0) {
+                log.info("Purged {} published catalog changes", deleted);
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Catalog outbox purge failed", ex);
+        }
+    }
+
+    private int relayBatch() {
+        if (!outboxRepository.tryLockRelay()) {
+            return 0;
+        }
+        List<CatalogChangeDto> pending = outboxRepository.findPending(batchSize);
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        outboxRepository.assignSequences(pending);
+        sink.publish(pending);
+        return pending.size();
+    }
+}
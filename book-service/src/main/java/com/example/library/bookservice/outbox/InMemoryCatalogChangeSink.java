@@ -0,0 +1,57 @@
+package com.example.library.bookservice.outbox;
+
+import com.example.library.bookservice.dto.CatalogChangeDto;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Broker embarque : conserve les dernieres entrees publiees et les diffuse aux abonnes
+ * du meme processus. Sert de destination par defaut tant qu'aucun broker n'est configure.
+ *
+ * @since 1.1
+ */
+public class InMemoryCatalogChangeSink implements CatalogChangeSink {
+    private final int capacity;
+    private final Deque<CatalogChangeDto> recent = new ArrayDeque<>();
+    private final List<Consumer<CatalogChangeDto>> subscribers = new ArrayList<>();
+
+    public InMemoryCatalogChangeSink(int capacity) {
+        this.capacity = capacity;
+    }
+
+    @Override
+    public synchronized void publish(List<CatalogChangeDto> changes) {
+        for (CatalogChangeDto change : changes) {
+            if (recent.size() >= capacity) {
+                recent.removeFirst();
+            }
+            recent.addLast(change);
+            subscribers.forEach(subscriber -> subscriber.accept(change));
+        }
+    }
+
+    /**
+     * Abonne un consommateur aux entrees publiees a partir de maintenant.
+     *
+     * @param subscriber consommateur.
+     */
+    public synchronized void subscribe(Consumer<CatalogChangeDto> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    /**
+     * Retourne les entrees retenues dont la sequence depasse celle fournie.
+     *
+     * @param afterSequence derniere sequence deja lue.
+     * @return entrees triees par sequence.
+     */
+    public synchronized List<CatalogChangeDto> after(long afterSequence) {
+        return recent.stream()
+                .filter(change -> change.getSequence() > afterSequence)
+                .toList();
+    }
+}
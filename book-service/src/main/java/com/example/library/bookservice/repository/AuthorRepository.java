@@ -2,6 +2,11 @@ package com.example.library.bookservice.repository;
 
 import com.example.library.bookservice.model.Author;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
 
 /**
  * Repository JPA pour les auteurs.
@@ -9,4 +14,30 @@ import org.springframework.data.jpa.repository.JpaRepository;
  * @since 1.0
  */
 public interface AuthorRepository extends JpaRepository<Author, Long> {
+    /**
+     * Recherche un auteur par identite normalisee.
+     *
+     * @param identityKey identite normalisee (prenom + nom).
+     * @return auteur eventuel.
+     */
+    Optional<Author> findByIdentityKey(String identityKey);
+
+    /**
+     * Insere un auteur sauf si son identite normalisee existe deja ; une creation
+     * concurrente attend le commit de l'autre transaction au lieu d'echouer.
+     *
+     * @param firstName prenom.
+     * @param lastName nom.
+     * @param biography biographie.
+     * @param identityKey identite normalisee.
+     * @return nombre de lignes inserees (0 ou 1).
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "insert into authors (first_name, last_name, biography, identity_key) "
+            + "values (:firstName, :lastName, :biography, :identityKey) "
+            + "on conflict (identity_key) do nothing", nativeQuery = true)
+    int insertIfAbsent(@Param("firstName") String firstName,
+                       @Param("lastName") String lastName,
+                       @Param("biography") String biography,
+                       @Param("identityKey") String identityKey);
 }
@@ -0,0 +1,81 @@
+package com.example.library.bookservice.repository;
+
+import com.example.library.bookservice.dto.CopiesBatchEntry;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Acces JDBC par lots au stock de copies (sans hydratation d'entites JPA).
+ *
+ * @since 1.1
+ */
+@Repository
+public class BookCopiesBatchRepository {
+    private static final String ADJUST_SQL = "update books "
+            + "set available_copies = available_copies + ?, total_copies = total_copies + ?, version = version + 1 "
+            + "where id = ? and available_copies + ? >= 0 and available_copies + ? <= total_copies + ?";
+    private static final String COUNTS_SQL = "select id, available_copies, total_copies from books where id in (:ids)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    public BookCopiesBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    /**
+     * Applique des variations conditionnelles en un seul lot JDBC, dans l'ordre des entrees.
+     *
+     * @param entries variations (bookId non null, deltas null traites comme 0).
+     * @return nombre de lignes modifiees par entree (0 si refusee).
+     */
+    public int[] adjustCopies(List<CopiesBatchEntry> entries) {
+        if (entries.isEmpty()) {
+            return new int[0];
+        }
+        return jdbcTemplate.batchUpdate(ADJUST_SQL, entries, entries.size(), (ps, entry) -> {
+            int deltaAvailable = entry.getDeltaAvailable() != null ? entry.getDeltaAvailable() : 0;
+            int deltaTotal = entry.getDeltaTotal() != null ? entry.getDeltaTotal() : 0;
+            ps.setInt(1, deltaAvailable);
+            ps.setInt(2, deltaTotal);
+            ps.setLong(3, entry.getBookId());
+            ps.setInt(4, deltaAvailable);
+            ps.setInt(5, deltaAvailable);
+            ps.setInt(6, deltaTotal);
+        })[0];
+    }
+
+    /**
+     * Lit les compteurs de copies de plusieurs livres en une requete.
+     *
+     * @param ids identifiants livres.
+     * @return compteurs par id (livres existants uniquement).
+     */
+    public Map<Long, CopyCounts> findCounts(Collection<Long> ids) {
+        Map<Long, CopyCounts> counts = new HashMap<>();
+        if (ids.isEmpty()) {
+            return counts;
+        }
+        namedJdbcTemplate.query(COUNTS_SQL, new MapSqlParameterSource("ids", ids), rs -> {
+            counts.put(rs.getLong("id"), new CopyCounts(rs.getInt("available_copies"), rs.getInt("total_copies")));
+        });
+        return counts;
+    }
+
+    /**
+     * Compteurs de copies d'un livre.
+     *
+     * @param availableCopies copies disponibles.
+     * @param totalCopies total de copies.
+     */
+    public record CopyCounts(int availableCopies, int totalCopies) {
+    }
+}
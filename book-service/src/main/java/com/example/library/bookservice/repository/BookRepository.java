@@ -1,12 +1,20 @@
 package com.example.library.bookservice.repository;
 
 import com.example.library.bookservice.model.Book;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository JPA pour les livres.
@@ -14,6 +22,14 @@ import java.util.Optional;
  * @since 1.0
  */
 public interface BookRepository extends JpaRepository<Book, Long> {
+    String BOOK_ROW_SELECT = "select new com.example.library.bookservice.repository.BookRow("
+            + "b.id, b.isbn, b.title, b.description, b.publicationYear, b.publisher, "
+            + "b.totalCopies, b.availableCopies, b.version, "
+            + "a.id, a.firstName, a.lastName, a.biography, c.id, c.name, c.description) "
+            + "from Book b left join b.author a left join b.category c ";
+    String SEARCH_CONDITION = "lower(b.title) like lower(concat('%', :q, '%')) "
+            + "or lower(b.description) like lower(concat('%', :q, '%'))";
+
     /**
      * Recherche un livre par ISBN.
      *
@@ -22,12 +38,152 @@ public interface BookRepository extends JpaRepository<Book, Long> {
      */
     Optional<Book> findByIsbn(String isbn);
 
+    /**
+     * Indique si un ISBN est deja utilise.
+     *
+     * @param isbn ISBN.
+     * @return true si un livre porte cet ISBN.
+     */
+    boolean existsByIsbn(String isbn);
+
     /**
      * Recherche simple sur le titre ou la description.
      *
      * @param query terme de recherche.
      * @return liste de livres.
      */
-    @Query("select b from Book b where lower(b.title) like lower(concat('%', :q, '%')) or lower(b.description) like lower(concat('%', :q, '%'))")
+    @Query("select b from Book b where " + SEARCH_CONDITION)
     List<Book> search(@Param("q") String query);
+
+    /**
+     * Tous les livres avec auteur et categorie, en une seule requete (reconstruction des index).
+     *
+     * @return livres tries par id.
+     */
+    @Query("select b from Book b left join fetch b.author left join fetch b.category order by b.id")
+    List<Book> findAllWithAssociations();
+
+    /**
+     * Livres dont l'id est fourni, avec auteur et categorie, en une seule requete.
+     *
+     * @param ids identifiants livres.
+     * @return livres trouves.
+     */
+    @Query("select b from Book b left join fetch b.author left join fetch b.category where b.id in :ids")
+    List<Book> findAllWithAssociationsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Tout le catalogue projete a plat, en une seule requete.
+     *
+     * @return lignes triees par id.
+     */
+    @Query(BOOK_ROW_SELECT + "order by b.id")
+    List<BookRow> findAllRows();
+
+    /**
+     * Projection d'un livre par id.
+     *
+     * @param id identifiant livre.
+     * @return ligne eventuelle.
+     */
+    @Query(BOOK_ROW_SELECT + "where b.id = :id")
+    Optional<BookRow> findRowById(@Param("id") Long id);
+
+    /**
+     * Projection d'un livre par ISBN.
+     *
+     * @param isbn ISBN.
+     * @return ligne eventuelle.
+     */
+    @Query(BOOK_ROW_SELECT + "where b.isbn = :isbn")
+    Optional<BookRow> findRowByIsbn(@Param("isbn") String isbn);
+
+    /**
+     * Projections des livres dont l'id est fourni (ordre non garanti).
+     *
+     * @param ids identifiants livres.
+     * @return lignes trouvees.
+     */
+    @Query(BOOK_ROW_SELECT + "where b.id in :ids")
+    List<BookRow> findRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Recherche simple sur le titre ou la description, projetee a plat.
+     *
+     * @param query terme de recherche.
+     * @return lignes correspondantes.
+     */
+    @Query(BOOK_ROW_SELECT + "where " + SEARCH_CONDITION)
+    List<BookRow> searchRows(@Param("q") String query);
+
+    /**
+     * Identifiants des livres correspondant a la recherche simple.
+     *
+     * @param query terme de recherche.
+     * @return identifiants.
+     */
+    @Query("select b.id from Book b where " + SEARCH_CONDITION)
+    List<Long> searchIds(@Param("q") String query);
+
+    /**
+     * Page de livres apres un curseur (keyset sur l'id), projetee a plat.
+     *
+     * @param afterId dernier id de la page precedente (0 pour la premiere page).
+     * @param pageable taille de page.
+     * @return livres tries par id.
+     */
+    @Query(BOOK_ROW_SELECT + "where b.id > :afterId order by b.id")
+    List<BookRow> findPageAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    /**
+     * Parcourt tout le catalogue via un curseur base de donnees (transaction requise).
+     *
+     * @return flux de lignes triees par id.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500")
+    })
+    @Query(BOOK_ROW_SELECT + "order by b.id")
+    Stream<BookRow> streamAll();
+
+    /**
+     * Applique des variations de copies en une seule instruction, uniquement si le
+     * resultat reste coherent (0 &lt;= disponibles &lt;= total).
+     *
+     * @param id identifiant livre.
+     * @param deltaAvailable variation des copies disponibles.
+     * @param deltaTotal variation du total de copies.
+     * @return nombre de lignes modifiees (0 si livre absent ou stock insuffisant).
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Book b set b.availableCopies = b.availableCopies + :deltaAvailable, "
+            + "b.totalCopies = b.totalCopies + :deltaTotal, b.version = b.version + 1 "
+            + "where b.id = :id and b.availableCopies + :deltaAvailable >= 0 "
+            + "and b.availableCopies + :deltaAvailable <= b.totalCopies + :deltaTotal")
+    int adjustCopies(@Param("id") Long id,
+                     @Param("deltaAvailable") int deltaAvailable,
+                     @Param("deltaTotal") int deltaTotal);
+
+    /**
+     * Incremente la version de tous les livres d'une categorie (donnee partagee modifiee).
+     *
+     * @param categoryId identifiant categorie.
+     * @return nombre de livres concernes.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Book b set b.version = b.version + 1 where b.category.id = :categoryId")
+    int incrementVersionByCategory(@Param("categoryId") Long categoryId);
+
+    /**
+     * Incremente la version de tous les livres d'un auteur (donnee partagee modifiee).
+     *
+     * @param authorId identifiant auteur.
+     * @return nombre de livres concernes.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Book b set b.version = b.version + 1 where b.author.id = :authorId")
+    int incrementVersionByAuthor(@Param("authorId") Long authorId);
 }
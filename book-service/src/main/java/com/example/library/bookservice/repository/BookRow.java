@@ -0,0 +1,25 @@
+package com.example.library.bookservice.repository;
+
+/**
+ * Projection a plat d'un livre avec son auteur et sa categorie, chargee en une seule
+ * requete (expression constructeur JPQL) sans entites gerees.
+ *
+ * @since 1.1
+ */
+public record BookRow(Long id,
+                      String isbn,
+                      String title,
+                      String description,
+                      Integer publicationYear,
+                      String publisher,
+                      Integer totalCopies,
+                      Integer availableCopies,
+                      Long version,
+                      Long authorId,
+                      String authorFirstName,
+                      String authorLastName,
+                      String authorBiography,
+                      Long categoryId,
+                      String categoryName,
+                      String categoryDescription) {
+}
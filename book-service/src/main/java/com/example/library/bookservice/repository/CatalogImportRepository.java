@@ -0,0 +1,250 @@
+package com.example.library.bookservice.repository;
+
+import com.example.library.bookservice.model.Author;
+import com.example.library.bookservice.model.Book;
+import com.example.library.bookservice.model.Category;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Acces JDBC pour l'import en masse du catalogue (insertions par lots).
+ *
+ * <p>Les identifiants etant generes par la base (IDENTITY), les insertions par lots
+ * recuperent les cles generees pour relier livres, auteurs et categories.</p>
+ *
+ * @since 1.1
+ */
+@Repository
+public class CatalogImportRepository {
+    // Un auteur cree entre-temps par une autre instance renvoie l'id existant (mise a jour
+    // sans effet), de sorte que chaque ligne du lot recoit son id.
+    private static final String INSERT_AUTHOR_SQL =
+            "insert into authors (first_name, last_name, biography, identity_key) values (?, ?, ?, ?) "
+            + "on conflict (identity_key) do update set identity_key = excluded.identity_key";
+    private static final String INSERT_CATEGORY_SQL =
+            "insert into categories (name, description) values (?, ?) on conflict (name) do nothing";
+    private static final String INSERT_BOOK_SQL = "insert into books "
+            + "(isbn, title, description, publication_year, publisher, total_copies, available_copies, author_id, category_id, version) "
+            + "values (?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    public CatalogImportRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    /**
+     * Parcourt toutes les categories existantes.
+     *
+     * @param consumer recoit chaque categorie.
+     */
+    public void forEachCategory(Consumer<Category> consumer) {
+        jdbcTemplate.query("select id, name, description from categories", rs -> {
+            consumer.accept(Category.builder()
+                    .id(rs.getLong("id"))
+                    .name(rs.getString("name"))
+                    .description(rs.getString("description"))
+                    .build());
+        });
+    }
+
+    /**
+     * Parcourt tous les auteurs existants.
+     *
+     * @param consumer recoit chaque auteur.
+     */
+    public void forEachAuthor(Consumer<Author> consumer) {
+        jdbcTemplate.query("select id, first_name, last_name, biography, identity_key from authors", rs -> {
+            consumer.accept(Author.builder()
+                    .id(rs.getLong("id"))
+                    .firstName(rs.getString("first_name"))
+                    .lastName(rs.getString("last_name"))
+                    .biography(rs.getString("biography"))
+                    .identityKey(rs.getString("identity_key"))
+                    .build());
+        });
+    }
+
+    /**
+     * Renseigne l'identite normalisee des auteurs crees avant son introduction. Un auteur
+     * dont l'identite est deja prise (doublon historique) est laisse sans identite.
+     *
+     * @param identity calcul de l'identite a partir du prenom et du nom.
+     * @return nombre d'auteurs mis a jour.
+     */
+    public int assignMissingAuthorIdentityKeys(BiFunction<String, String, String> identity) {
+        Set<String> taken = new HashSet<>(jdbcTemplate.queryForList(
+                "select identity_key from authors where identity_key is not null", String.class));
+        List<Object[]> updates = new ArrayList<>();
+        jdbcTemplate.query("select id, first_name, last_name from authors where identity_key is null order by id", rs -> {
+            String key = identity.apply(rs.getString("first_name"), rs.getString("last_name"));
+            if (taken.add(key)) {
+                updates.add(new Object[]{key, rs.getLong("id")});
+            }
+        });
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate("update authors set identity_key = ? where id = ?", updates);
+        }
+        return updates.size();
+    }
+
+    /**
+     * Parcourt tous les ISBN du catalogue.
+     *
+     * @param consumer recoit chaque ISBN.
+     */
+    public void forEachIsbn(Consumer<String> consumer) {
+        jdbcTemplate.query("select isbn from books", rs -> {
+            consumer.accept(rs.getString("isbn"));
+        });
+    }
+
+    /**
+     * Parcourt les versions de tous les livres (rattrapage d'un snapshot).
+     *
+     * @param consumer recoit chaque couple (id, version).
+     */
+    public void forEachVersion(BiConsumer<Long, Long> consumer) {
+        jdbcTemplate.query("select id, version from books", rs -> {
+            consumer.accept(rs.getLong("id"), rs.getLong("version"));
+        });
+    }
+
+    /**
+     * Retourne les ISBN deja presents parmi ceux fournis (une seule requete).
+     *
+     * @param isbns ISBN candidats.
+     * @return ISBN existants.
+     */
+    public Set<String> findExistingIsbns(Collection<String> isbns) {
+        Set<String> existing = new HashSet<>();
+        if (isbns.isEmpty()) {
+            return existing;
+        }
+        namedJdbcTemplate.query("select isbn from books where isbn in (:isbns)",
+                new MapSqlParameterSource("isbns", isbns),
+                rs -> {
+                    existing.add(rs.getString("isbn"));
+                });
+        return existing;
+    }
+
+    /**
+     * Insere une categorie et renseigne son id ; si une autre instance l'a creee depuis le
+     * debut de l'import, renseigne l'id et la description existants.
+     *
+     * @param category categorie sans id.
+     */
+    public void insertCategory(Category category) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        int inserted = jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(INSERT_CATEGORY_SQL, new String[] {"id"});
+            ps.setString(1, category.getName());
+            ps.setString(2, category.getDescription());
+            return ps;
+        }, keyHolder);
+        if (inserted == 1) {
+            category.setId(keyHolder.getKeyAs(Long.class));
+            return;
+        }
+        jdbcTemplate.query("select id, description from categories where name = ?", rs -> {
+            category.setId(rs.getLong("id"));
+            category.setDescription(rs.getString("description"));
+        }, category.getName());
+    }
+
+    /**
+     * Insere des auteurs en un lot et renseigne leurs ids (id existant pour un auteur cree
+     * entre-temps par une autre instance).
+     *
+     * @param authors auteurs sans id.
+     */
+    public void insertAuthors(List<Author> authors) {
+        insertBatch(INSERT_AUTHOR_SQL, authors, (ps, author) -> {
+            ps.setString(1, author.getFirstName());
+            ps.setString(2, author.getLastName());
+            ps.setString(3, author.getBiography());
+            ps.setString(4, author.getIdentityKey());
+        }, Author::setId);
+    }
+
+    /**
+     * Insere des livres en un lot et renseigne leurs ids.
+     *
+     * @param books livres sans id, auteur et categorie deja persistes.
+     */
+    public void insertBooks(List<Book> books) {
+        insertBatch(INSERT_BOOK_SQL, books, (ps, book) -> {
+            ps.setString(1, book.getIsbn());
+            ps.setString(2, book.getTitle());
+            ps.setString(3, book.getDescription());
+            setNullableInt(ps, 4, book.getPublicationYear());
+            ps.setString(5, book.getPublisher());
+            ps.setInt(6, book.getTotalCopies());
+            ps.setInt(7, book.getAvailableCopies());
+            ps.setLong(8, book.getAuthor().getId());
+            ps.setLong(9, book.getCategory().getId());
+        }, Book::setId);
+    }
+
+    private <T> void insertBatch(String sql, List<T> rows, RowBinder<T> binder, BiConsumer<T, Long> idSetter) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(sql, new String[] {"id"})) {
+                for (T row : rows) {
+                    binder.bind(ps, row);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                List<Long> ids = new ArrayList<>(rows.size());
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    while (keys.next()) {
+                        ids.add(keys.getLong(1));
+                    }
+                }
+                if (ids.size() != rows.size()) {
+                    throw new SQLException("Expected " + rows.size() + " generated keys, got " + ids.size());
+                }
+                for (int i = 0; i < rows.size(); i++) {
+                    idSetter.accept(rows.get(i), ids.get(i));
+                }
+            }
+            return null;
+        });
+    }
+
+    private static void setNullableInt(PreparedStatement ps, int index, Integer value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.INTEGER);
+        } else {
+            ps.setInt(index, value);
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowBinder<T> {
+        void bind(PreparedStatement ps, T row) throws SQLException;
+    }
+}
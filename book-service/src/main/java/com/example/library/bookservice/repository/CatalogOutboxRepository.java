@@ -0,0 +1,150 @@
+package com.example.library.bookservice.repository;
+
+import com.example.library.bookservice.dto.CatalogChangeDto;
+import com.example.library.bookservice.dto.CatalogChangeType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Table d'outbox des mutations du catalogue, ecrite dans la transaction de la mutation.
+ *
+ * <p>Les entrees recoivent leur numero de sequence au moment de leur publication par le
+ * relais, dans l'ordre de publication : un consommateur qui suit les sequences croissantes
+ * ne peut pas manquer une entree committee tardivement. Les sequences sont croissantes
+ * mais peuvent presenter des trous.</p>
+ *
+ * @since 1.1
+ */
+@Repository
+public class CatalogOutboxRepository {
+    private static final long RELAY_LOCK_KEY = 0x6361_7461_6c6f_67L;
+    private static final String INSERT_SQL =
+            "insert into catalog_outbox (book_id, event_type, payload) values (?, ?, ?)";
+    private static final String SELECT_COLUMNS =
+            "select id, sequence, book_id, event_type, payload, created_at from catalog_outbox ";
+    private static final RowMapper<CatalogChangeDto> ROW_MAPPER = (rs, rowNum) -> CatalogChangeDto.builder()
+            .eventId(rs.getLong("id"))
+            .sequence(rs.getLong("sequence"))
+            .bookId(rs.getLong("book_id"))
+            .type(CatalogChangeType.valueOf(rs.getString("event_type")))
+            .payload(rs.getString("payload"))
+            .occurredAt(rs.getTimestamp("created_at").toInstant())
+            .build();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CatalogOutboxRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Ajoute des entrees en un lot JDBC (transaction appelante).
+     *
+     * @param entries entrees a ajouter.
+     */
+    public void append(List<OutboxEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, entries, entries.size(), (ps, entry) -> {
+            ps.setLong(1, entry.bookId());
+            ps.setString(2, entry.type().name());
+            ps.setString(3, entry.payload());
+        });
+    }
+
+    /**
+     * Tente de prendre le verrou du relais pour la transaction courante (un seul relais
+     * actif entre instances).
+     *
+     * @return true si le verrou est obtenu.
+     */
+    public boolean tryLockRelay() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "select pg_try_advisory_xact_lock(?)", Boolean.class, RELAY_LOCK_KEY));
+    }
+
+    /**
+     * Retourne les entrees non publiees, dans l'ordre d'insertion.
+     *
+     * @param limit nombre maximal d'entrees.
+     * @return entrees sans sequence.
+     */
+    public List<CatalogChangeDto> findPending(int limit) {
+        return jdbcTemplate.query(SELECT_COLUMNS + "where sequence is null order by id limit ?", ROW_MAPPER, limit);
+    }
+
+    /**
+     * Attribue des numeros de sequence croissants aux entrees, dans l'ordre fourni, et les
+     * marque publiees.
+     *
+     * @param entries entrees en attente ; leur champ sequence est renseigne.
+     */
+    public void assignSequences(List<CatalogChangeDto> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        List<Long> sequences = new ArrayList<>(jdbcTemplate.queryForList(
+                "select nextval('catalog_outbox_seq') from generate_series(1, ?)", Long.class, entries.size()));
+        sequences.sort(null);
+        for (int i = 0; i < entries.size(); i++) {
+            entries.get(i).setSequence(sequences.get(i));
+        }
+        jdbcTemplate.batchUpdate("update catalog_outbox set sequence = ?, published_at = now() where id = ?",
+                entries, entries.size(), (ps, entry) -> {
+                    ps.setLong(1, entry.getSequence());
+                    ps.setLong(2, entry.getEventId());
+                });
+    }
+
+    /**
+     * Retourne les entrees publiees apres une sequence donnee.
+     *
+     * @param afterSequence derniere sequence deja lue.
+     * @param limit nombre maximal d'entrees.
+     * @return entrees triees par sequence.
+     */
+    public List<CatalogChangeDto> findPublishedAfter(long afterSequence, int limit) {
+        return jdbcTemplate.query(SELECT_COLUMNS + "where sequence > ? order by sequence limit ?",
+                ROW_MAPPER, afterSequence, limit);
+    }
+
+    /**
+     * Retourne la derniere sequence publiee (0 si aucune).
+     *
+     * @return sequence la plus haute.
+     */
+    public long lastPublishedSequence() {
+        Long sequence = jdbcTemplate.queryForObject(
+                "select coalesce(max(sequence), 0) from catalog_outbox", Long.class);
+        return sequence != null ? sequence : 0L;
+    }
+
+    /**
+     * Supprime les entrees publiees depuis plus longtemps que la retention.
+     *
+     * @param retention duree de conservation.
+     * @return nombre d'entrees supprimees.
+     */
+    public int deletePublishedBefore(Duration retention) {
+        return jdbcTemplate.update("delete from catalog_outbox where published_at < ?",
+                Timestamp.from(Instant.now().minus(retention)));
+    }
+
+    /**
+     * Entree a ajouter a l'outbox.
+     *
+     * @param bookId livre concerne.
+     * @param type type de mutation.
+     * @param payload contenu JSON.
+     */
+    public record OutboxEntry(Long bookId, CatalogChangeType type, String payload) {
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.library.bookservice.repository;
+
+import com.example.library.bookservice.support.TransactionCallbacks;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Version globale du catalogue, portee par une sequence PostgreSQL.
+ *
+ * <p>Une sequence n'est pas transactionnelle et ne prend pas de verrou de ligne : elle
+ * est partagee entre instances sans creer de point de contention. La version est
+ * incrementee apres le commit de chaque mutation, de sorte qu'une ancienne version
+ * n'est jamais associee a des donnees plus recentes que celles qu'elle designe.</p>
+ *
+ * @since 1.1
+ */
+@Repository
+public class CatalogVersionRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    public CatalogVersionRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Retourne la version courante du catalogue (0 tant que la sequence n'a jamais ete
+     * incrementee : {@code last_value} vaut deja 1 avant le premier {@code nextval}).
+     *
+     * @return version.
+     */
+    public long current() {
+        Long version = jdbcTemplate.queryForObject(
+                "select case when is_called then last_value else 0 end from catalog_version_seq", Long.class);
+        return version != null ? version : 0L;
+    }
+
+    /**
+     * Incremente la version apres le commit de la transaction courante.
+     */
+    public void incrementAfterCommit() {
+        TransactionCallbacks.afterCommit(() -> jdbcTemplate.queryForObject("select nextval('catalog_version_seq')", Long.class));
+    }
+}
@@ -2,6 +2,9 @@ package com.example.library.bookservice.repository;
 
 import com.example.library.bookservice.model.Category;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Optional;
 
@@ -18,4 +21,17 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
      * @return categorie eventuelle.
      */
     Optional<Category> findByNameIgnoreCase(String name);
+
+    /**
+     * Insere une categorie sauf si ce nom existe deja ; une creation concurrente (autre
+     * instance) attend le commit de l'autre transaction au lieu d'echouer.
+     *
+     * @param name nom de categorie.
+     * @param description description.
+     * @return nombre de lignes inserees (0 ou 1).
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "insert into categories (name, description) values (:name, :description) "
+            + "on conflict (name) do nothing", nativeQuery = true)
+    int insertIfAbsent(@Param("name") String name, @Param("description") String description);
 }
@@ -0,0 +1,89 @@
+package com.example.library.bookservice.repository;
+
+import com.example.library.bookservice.dto.CopiesBatchResult;
+import com.example.library.bookservice.dto.CopiesUpdateStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Accuses de reception des lots de variations de copies, par cle d'idempotence.
+ *
+ * <p>La cle est reservee dans la transaction qui applique le lot et les resultats y sont
+ * enregistres : un lot renvoye (reponse perdue) retrouve les resultats du premier envoi
+ * sans etre applique une seconde fois. Un envoi concurrent de la meme cle attend le
+ * commit du premier.</p>
+ *
+ * @since 1.1
+ */
+@Repository
+public class CopiesBatchReceiptRepository {
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public CopiesBatchReceiptRepository(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Reserve une cle de lot pour la transaction courante.
+     *
+     * @param batchId cle d'idempotence du lot.
+     * @return false si le lot a deja ete applique.
+     */
+    public boolean claim(String batchId) {
+        return jdbcTemplate.update(
+                "insert into copies_batch_receipts (batch_id) values (?) on conflict do nothing", batchId) == 1;
+    }
+
+    /**
+     * Enregistre les resultats d'un lot reserve par {@link #claim(String)}.
+     *
+     * @param batchId cle d'idempotence du lot.
+     * @param results resultats par entree.
+     */
+    public void saveResults(String batchId, List<CopiesBatchResult> results) {
+        jdbcTemplate.update("update copies_batch_receipts set results = ? where batch_id = ?",
+                objectMapper.writeValueAsString(results), batchId);
+    }
+
+    /**
+     * Retourne les resultats enregistres lors du premier envoi d'un lot.
+     *
+     * @param batchId cle d'idempotence du lot.
+     * @return resultats par entree, dans l'ordre de la requete d'origine.
+     */
+    public List<CopiesBatchResult> findResults(String batchId) {
+        String json = jdbcTemplate.queryForObject(
+                "select results from copies_batch_receipts where batch_id = ?", String.class, batchId);
+        List<CopiesBatchResult> results = new ArrayList<>();
+        for (JsonNode node : objectMapper.readTree(json)) {
+            results.add(CopiesBatchResult.builder()
+                    .bookId(node.hasNonNull("bookId") ? node.get("bookId").asLong() : null)
+                    .status(CopiesUpdateStatus.valueOf(node.get("status").asString()))
+                    .availableCopies(node.hasNonNull("availableCopies") ? node.get("availableCopies").asInt() : null)
+                    .totalCopies(node.hasNonNull("totalCopies") ? node.get("totalCopies").asInt() : null)
+                    .build());
+        }
+        return results;
+    }
+
+    /**
+     * Supprime les accuses plus anciens que la retention.
+     *
+     * @param retention duree de conservation.
+     * @return nombre d'accuses supprimes.
+     */
+    public int deleteCreatedBefore(Duration retention) {
+        return jdbcTemplate.update("delete from copies_batch_receipts where created_at < ?",
+                Timestamp.from(Instant.now().minus(retention)));
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.library.bookservice.repository;
+
+import com.example.library.bookservice.repository.BookCopiesBatchRepository.CopyCounts;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Journal des variations de copies des titres chauds et baux de propriete de leurs
+ * compteurs en memoire.
+ *
+ * <p>Chaque variation appliquee en memoire est inseree dans le journal avant d'etre
+ * acquittee ; le vidage applique puis supprime les lignes du journal dans une meme
+ * transaction, les variations refusees etant copiees dans {@code hot_title_dead_letter}.
+ * Un titre chaud n'a qu'un proprietaire a la fois : l'insertion echoue si l'instance ne
+ * detient plus le bail du livre.</p>
+ *
+ * @since 1.1
+ */
+@Repository
+public class HotTitleJournalRepository {
+    private static final String APPEND_SQL = "insert into hot_title_journal (book_id, delta_available, delta_total) "
+            + "select ?, ?, ? where exists (select 1 from hot_title_leases "
+            + "where book_id = ? and owner = ? and expires_at > now())";
+    private static final String ACQUIRE_SQL = "insert into hot_title_leases (book_id, owner, expires_at) "
+            + "values (?, ?, now() + ? * interval '1 millisecond') "
+            + "on conflict (book_id) do update set owner = excluded.owner, expires_at = excluded.expires_at "
+            + "where hot_title_leases.owner = excluded.owner or hot_title_leases.expires_at < now()";
+    private static final String DEAD_LETTER_SQL = "insert into hot_title_dead_letter "
+            + "(book_id, delta_available, delta_total, reason) values (?, ?, ?, ?)";
+    private static final String DRAIN_SQL = "delete from hot_title_journal where book_id in (:ids) "
+            + "returning book_id, delta_available, delta_total";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    public HotTitleJournalRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    /**
+     * Prend ou renouvelle le bail d'un livre (libre, expire ou deja detenu).
+     *
+     * @param bookId identifiant livre.
+     * @param owner identifiant de l'instance.
+     * @param duration duree du bail.
+     * @return true si l'instance detient le bail.
+     */
+    public boolean acquireLease(Long bookId, String owner, Duration duration) {
+        return jdbcTemplate.update(ACQUIRE_SQL, bookId, owner, duration.toMillis()) == 1;
+    }
+
+    /**
+     * Libere le bail d'un livre s'il est detenu par l'instance.
+     *
+     * @param bookId identifiant livre.
+     * @param owner identifiant de l'instance.
+     */
+    public void releaseLease(Long bookId, String owner) {
+        jdbcTemplate.update("delete from hot_title_leases where book_id = ? and owner = ?", bookId, owner);
+    }
+
+    /**
+     * Journalise une variation (transaction appelante, ou commit immediat hors transaction).
+     *
+     * @param bookId identifiant livre.
+     * @param deltaAvailable variation des copies disponibles.
+     * @param deltaTotal variation du total de copies.
+     * @param owner identifiant de l'instance.
+     * @return false si l'instance ne detient plus le bail (rien n'est ecrit).
+     */
+    public boolean append(Long bookId, int deltaAvailable, int deltaTotal, String owner) {
+        return jdbcTemplate.update(APPEND_SQL, bookId, deltaAvailable, deltaTotal, bookId, owner) == 1;
+    }
+
+    /**
+     * Supprime les variations journalisees des livres et retourne leur cumul ; a appeler
+     * dans la transaction qui les applique a la table {@code books}.
+     *
+     * @param bookIds identifiants livres.
+     * @return cumul (disponible, total) par livre ayant des variations.
+     */
+    public Map<Long, CopyCounts> drain(Collection<Long> bookIds) {
+        Map<Long, CopyCounts> pending = new HashMap<>();
+        if (bookIds.isEmpty()) {
+            return pending;
+        }
+        namedJdbcTemplate.query(DRAIN_SQL, new MapSqlParameterSource("ids", bookIds), rs -> {
+            pending.merge(rs.getLong("book_id"),
+                    new CopyCounts(rs.getInt("delta_available"), rs.getInt("delta_total")),
+                    (a, b) -> new CopyCounts(a.availableCopies() + b.availableCopies(),
+                            a.totalCopies() + b.totalCopies()));
+        });
+        return pending;
+    }
+
+    /**
+     * Conserve des variations retirees du journal mais refusees par {@code books}
+     * (transaction appelante).
+     *
+     * @param refused cumul (disponible, total) par livre.
+     * @param reason motif du refus.
+     */
+    public void deadLetter(Map<Long, CopyCounts> refused, String reason) {
+        if (refused.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Long, CopyCounts>> rows = List.copyOf(refused.entrySet());
+        jdbcTemplate.batchUpdate(DEAD_LETTER_SQL, rows, rows.size(), (ps, row) -> {
+            ps.setLong(1, row.getKey());
+            ps.setInt(2, row.getValue().availableCopies());
+            ps.setInt(3, row.getValue().totalCopies());
+            ps.setString(4, reason);
+        });
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.library.bookservice.search;
+
+import com.example.library.bookservice.model.Author;
+import com.example.library.bookservice.model.Book;
+import com.example.library.bookservice.model.Category;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index inverse en memoire du catalogue (titre, description, auteur, categorie).
+ *
+ * <p>Chaque terme normalise pointe vers les livres qui le contiennent avec un poids
+ * dependant du champ. Les termes de la requete sont combines en ET ; un terme
+ * correspond exactement ou par prefixe (avec une penalite).</p>
+ *
+ * @since 1.1
+ */
+@Component
+public class BookSearchIndex implements CatalogIndex {
+    private static final float TITLE_WEIGHT = 3.0f;
+    private static final float AUTHOR_WEIGHT = 2.0f;
+    private static final float CATEGORY_WEIGHT = 1.5f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+    private static final float PREFIX_PENALTY = 0.5f;
+
+    private final NavigableMap<String, Map<Long, Float>> postings = new TreeMap<>();
+    private final Map<Long, Set<String>> documentTerms = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean ready;
+
+    /**
+     * Indique si l'index a ete construit et peut repondre aux recherches.
+     *
+     * @return true si l'index est pret.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Reconstruit entierement l'index.
+     *
+     * @param books catalogue complet.
+     */
+    @Override
+    public void rebuild(Collection<Book> books) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documentTerms.clear();
+            for (Book book : books) {
+                add(book);
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indexe (ou reindexe) un livre.
+     *
+     * @param book livre persiste.
+     */
+    @Override
+    public void index(Book book) {
+        if (book == null || book.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeDocument(book.getId());
+            add(book);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retire un livre de l'index.
+     *
+     * @param id identifiant livre.
+     */
+    @Override
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Recherche les livres correspondant a tous les termes de la requete.
+     *
+     * @param query requete brute.
+     * @return identifiants tries par pertinence, ou vide si l'index ne peut pas repondre.
+     */
+    public Optional<List<Long>> search(String query) {
+        Set<String> terms = new LinkedHashSet<>(TextNormalizer.tokenize(query));
+        if (!ready || terms.isEmpty()) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            Map<Long, Float> scores = null;
+            for (String term : terms) {
+                Map<Long, Float> termScores = scoreTerm(term);
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    scores.keySet().retainAll(termScores.keySet());
+                    scores.replaceAll((id, score) -> score + termScores.get(id));
+                }
+                if (scores.isEmpty()) {
+                    return Optional.of(List.of());
+                }
+            }
+            List<Map.Entry<Long, Float>> ranked = new ArrayList<>(scores.entrySet());
+            ranked.sort(Map.Entry.<Long, Float>comparingByValue().reversed()
+                    .thenComparing(Map.Entry.<Long, Float>comparingByKey()));
+            List<Long> ids = new ArrayList<>(ranked.size());
+            for (Map.Entry<Long, Float> entry : ranked) {
+                ids.add(entry.getKey());
+            }
+            return Optional.of(ids);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retourne le nombre de livres indexes.
+     *
+     * @return taille de l'index.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentTerms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<Long, Float> scoreTerm(String term) {
+        Map<Long, Float> termScores = new HashMap<>();
+        for (Map.Entry<String, Map<Long, Float>> entry : postings.tailMap(term, true).entrySet()) {
+            String token = entry.getKey();
+            if (!token.startsWith(term)) {
+                break;
+            }
+            float factor = token.length() == term.length() ? 1.0f : PREFIX_PENALTY;
+            Map<Long, Float> docs = entry.getValue();
+            float idf = (float) Math.log(1.0 + (double) documentTerms.size() / docs.size());
+            for (Map.Entry<Long, Float> doc : docs.entrySet()) {
+                float score = factor * idf * (float) Math.log1p(doc.getValue());
+                termScores.merge(doc.getKey(), score, Math::max);
+            }
+        }
+        return termScores;
+    }
+
+    private void add(Book book) {
+        Map<String, Float> weights = new HashMap<>();
+        accumulate(weights, book.getTitle(), TITLE_WEIGHT);
+        accumulate(weights, book.getDescription(), DESCRIPTION_WEIGHT);
+        Author author = book.getAuthor();
+        if (author != null) {
+            accumulate(weights, author.getFirstName(), AUTHOR_WEIGHT);
+            accumulate(weights, author.getLastName(), AUTHOR_WEIGHT);
+        }
+        Category category = book.getCategory();
+        if (category != null) {
+            accumulate(weights, category.getName(), CATEGORY_WEIGHT);
+        }
+        for (Map.Entry<String, Float> entry : weights.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), key -> new HashMap<>())
+                    .put(book.getId(), entry.getValue());
+        }
+        documentTerms.put(book.getId(), weights.keySet());
+    }
+
+    private void removeDocument(Long id) {
+        Set<String> terms = documentTerms.remove(id);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Map<Long, Float> docs = postings.get(term);
+            if (docs != null) {
+                docs.remove(id);
+                if (docs.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    private static void accumulate(Map<String, Float> weights, String text, float weight) {
+        for (String token : TextNormalizer.tokenize(text)) {
+            weights.merge(token, weight, Float::sum);
+        }
+    }
+}
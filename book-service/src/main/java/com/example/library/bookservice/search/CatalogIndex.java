@@ -0,0 +1,33 @@
+package com.example.library.bookservice.search;
+
+import com.example.library.bookservice.model.Book;
+
+import java.util.Collection;
+
+/**
+ * Structure en memoire derivee du catalogue, maintenue au fil des mutations.
+ *
+ * @since 1.1
+ */
+public interface CatalogIndex {
+    /**
+     * Reconstruit entierement l'index.
+     *
+     * @param books catalogue complet.
+     */
+    void rebuild(Collection<Book> books);
+
+    /**
+     * Indexe (ou reindexe) un livre.
+     *
+     * @param book livre persiste.
+     */
+    void index(Book book);
+
+    /**
+     * Retire un livre de l'index.
+     *
+     * @param id identifiant livre.
+     */
+    void remove(Long id);
+}
@@ -0,0 +1,105 @@
+package com.example.library.bookservice.search;
+
+import com.example.library.bookservice.model.Book;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Propage les mutations du catalogue a tous les index en memoire.
+ *
+ * <p>Une reconstruction remplace le contenu des index par un catalogue lu plus tot : les
+ * mutations propagees entre {@link #beginRebuild()} (appele avant la lecture) et la fin de
+ * {@link #rebuild(Collection)} sont donc memorisees puis rejouees sur les index
+ * reconstruits, comme les ajouts recus par le filtre de Bloom pendant sa reconstruction.
+ * Rejouer une mutation deja presente dans le catalogue lu est sans effet.</p>
+ *
+ * @since 1.1
+ */
+@Component
+public class CatalogIndexer {
+    private final List<CatalogIndex> indexes;
+    private final Object pendingLock = new Object();
+    private List<Consumer<CatalogIndex>> pending;
+
+    public CatalogIndexer(List<CatalogIndex> indexes) {
+        this.indexes = indexes;
+    }
+
+    /**
+     * Commence a memoriser les mutations ; a appeler avant de lire le catalogue passe a
+     * {@link #rebuild(Collection)}.
+     */
+    public void beginRebuild() {
+        synchronized (pendingLock) {
+            pending = new ArrayList<>();
+        }
+    }
+
+    /**
+     * Abandonne une reconstruction commencee par {@link #beginRebuild()} (lecture du
+     * catalogue en echec).
+     */
+    public void cancelRebuild() {
+        synchronized (pendingLock) {
+            pending = null;
+        }
+    }
+
+    /**
+     * Reconstruit tous les index, puis rejoue les mutations recues depuis
+     * {@link #beginRebuild()}.
+     *
+     * @param books catalogue complet.
+     */
+    public void rebuild(Collection<Book> books) {
+        try {
+            for (CatalogIndex index : indexes) {
+                index.rebuild(books);
+            }
+        } finally {
+            synchronized (pendingLock) {
+                if (pending != null) {
+                    pending.forEach(this::applyToAll);
+                    pending = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Indexe (ou reindexe) un livre dans tous les index.
+     *
+     * @param book livre persiste.
+     */
+    public void index(Book book) {
+        apply(index -> index.index(book));
+    }
+
+    /**
+     * Retire un livre de tous les index.
+     *
+     * @param id identifiant livre.
+     */
+    public void remove(Long id) {
+        apply(index -> index.remove(id));
+    }
+
+    private void apply(Consumer<CatalogIndex> mutation) {
+        synchronized (pendingLock) {
+            if (pending != null) {
+                pending.add(mutation);
+            }
+        }
+        applyToAll(mutation);
+    }
+
+    private void applyToAll(Consumer<CatalogIndex> mutation) {
+        for (CatalogIndex index : indexes) {
+            mutation.accept(index);
+        }
+    }
+}
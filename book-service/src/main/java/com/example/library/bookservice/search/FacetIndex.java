@@ -0,0 +1,255 @@
+package com.example.library.bookservice.search;
+
+import com.example.library.bookservice.dto.FacetCount;
+import com.example.library.bookservice.dto.FacetFilter;
+import com.example.library.bookservice.model.Book;
+import com.example.library.bookservice.model.Category;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bitmaps compresses (Roaring) par valeur de facette : categorie, editeur, tranche
+ * d'annees de publication et disponibilite immediate.
+ *
+ * <p>Les compteurs d'un resultat de recherche sont obtenus par cardinalite d'intersection
+ * entre le bitmap du resultat et celui de chaque valeur, sans requete GROUP BY.</p>
+ *
+ * @since 1.1
+ */
+@Component
+public class FacetIndex implements CatalogIndex {
+    private static final int YEAR_BUCKET_SIZE = 10;
+
+    private final Map<String, RoaringBitmap> categories = new HashMap<>();
+    private final Map<String, RoaringBitmap> publishers = new HashMap<>();
+    private final Map<String, RoaringBitmap> publicationYears = new HashMap<>();
+    private final RoaringBitmap available = new RoaringBitmap();
+    private final Map<Long, BookFacets> bookFacets = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Override
+    public void rebuild(Collection<Book> books) {
+        lock.writeLock().lock();
+        try {
+            categories.clear();
+            publishers.clear();
+            publicationYears.clear();
+            available.clear();
+            bookFacets.clear();
+            for (Book book : books) {
+                add(book);
+            }
+            categories.values().forEach(RoaringBitmap::runOptimize);
+            publishers.values().forEach(RoaringBitmap::runOptimize);
+            publicationYears.values().forEach(RoaringBitmap::runOptimize);
+            available.runOptimize();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void index(Book book) {
+        if (book == null || book.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeBook(book.getId());
+            add(book);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeBook(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Met a jour la facette « disponible » apres une variation de copies.
+     *
+     * @param id identifiant livre.
+     * @param availableCopies copies disponibles apres la variation.
+     */
+    public void updateAvailability(Long id, int availableCopies) {
+        lock.writeLock().lock();
+        try {
+            if (!bookFacets.containsKey(id)) {
+                return;
+            }
+            if (availableCopies > 0) {
+                available.add(toInt(id));
+            } else {
+                available.remove(toInt(id));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Restreint un resultat aux livres correspondant a toutes les facettes demandees.
+     *
+     * @param ids identifiants tries par pertinence.
+     * @param filter facettes selectionnees (champs null ignores).
+     * @return identifiants retenus, dans le meme ordre.
+     */
+    public List<Long> filter(List<Long> ids, FacetFilter filter) {
+        lock.readLock().lock();
+        try {
+            List<RoaringBitmap> required = new ArrayList<>(4);
+            if (filter.getCategory() != null) {
+                required.add(categories.getOrDefault(filter.getCategory(), new RoaringBitmap()));
+            }
+            if (filter.getPublisher() != null) {
+                required.add(publishers.getOrDefault(filter.getPublisher(), new RoaringBitmap()));
+            }
+            if (filter.getPublicationYears() != null) {
+                required.add(publicationYears.getOrDefault(filter.getPublicationYears(), new RoaringBitmap()));
+            }
+            if (required.isEmpty() && filter.getAvailable() == null) {
+                return ids;
+            }
+            List<Long> retained = new ArrayList<>();
+            for (Long id : ids) {
+                int value = toInt(id);
+                if (required.stream().allMatch(bitmap -> bitmap.contains(value))
+                        && (filter.getAvailable() == null || available.contains(value) == filter.getAvailable())) {
+                    retained.add(id);
+                }
+            }
+            return retained;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Calcule les compteurs de facettes d'un resultat de recherche.
+     *
+     * @param ids identifiants du resultat.
+     * @param maxValues nombre maximal de valeurs retournees par facette.
+     * @return compteurs par facette, valeurs triees par compteur decroissant.
+     */
+    public Facets count(Collection<Long> ids, int maxValues) {
+        RoaringBitmap results = new RoaringBitmap();
+        for (Long id : ids) {
+            results.add(toInt(id));
+        }
+        lock.readLock().lock();
+        try {
+            return new Facets(
+                    countValues(categories, results, maxValues),
+                    countValues(publishers, results, maxValues),
+                    countValues(publicationYears, results, maxValues),
+                    RoaringBitmap.andCardinality(available, results));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void add(Book book) {
+        Category category = book.getCategory();
+        BookFacets facets = new BookFacets(
+                category != null ? category.getName() : null,
+                book.getPublisher() != null && !book.getPublisher().isBlank() ? book.getPublisher().trim() : null,
+                yearBucket(book.getPublicationYear()));
+        int id = toInt(book.getId());
+        addTo(categories, facets.category(), id);
+        addTo(publishers, facets.publisher(), id);
+        addTo(publicationYears, facets.publicationYears(), id);
+        if (book.getAvailableCopies() != null && book.getAvailableCopies() > 0) {
+            available.add(id);
+        }
+        bookFacets.put(book.getId(), facets);
+    }
+
+    private void removeBook(Long id) {
+        BookFacets facets = bookFacets.remove(id);
+        if (facets == null) {
+            return;
+        }
+        int value = toInt(id);
+        removeFrom(categories, facets.category(), value);
+        removeFrom(publishers, facets.publisher(), value);
+        removeFrom(publicationYears, facets.publicationYears(), value);
+        available.remove(value);
+    }
+
+    private static void addTo(Map<String, RoaringBitmap> facet, String key, int id) {
+        if (key != null) {
+            facet.computeIfAbsent(key, k -> new RoaringBitmap()).add(id);
+        }
+    }
+
+    private static void removeFrom(Map<String, RoaringBitmap> facet, String key, int id) {
+        if (key == null) {
+            return;
+        }
+        RoaringBitmap bitmap = facet.get(key);
+        if (bitmap != null) {
+            bitmap.remove(id);
+            if (bitmap.isEmpty()) {
+                facet.remove(key);
+            }
+        }
+    }
+
+    private static List<FacetCount> countValues(Map<String, RoaringBitmap> facet, RoaringBitmap results, int maxValues) {
+        List<FacetCount> counts = new ArrayList<>();
+        for (Map.Entry<String, RoaringBitmap> entry : facet.entrySet()) {
+            int count = RoaringBitmap.andCardinality(entry.getValue(), results);
+            if (count > 0) {
+                counts.add(FacetCount.builder().value(entry.getKey()).count(count).build());
+            }
+        }
+        counts.sort(Comparator.comparingLong(FacetCount::getCount).reversed()
+                .thenComparing(FacetCount::getValue));
+        return counts.size() > maxValues ? new ArrayList<>(counts.subList(0, maxValues)) : counts;
+    }
+
+    private static String yearBucket(Integer year) {
+        if (year == null) {
+            return null;
+        }
+        int start = Math.floorDiv(year, YEAR_BUCKET_SIZE) * YEAR_BUCKET_SIZE;
+        return start + "-" + (start + YEAR_BUCKET_SIZE - 1);
+    }
+
+    private static int toInt(Long id) {
+        return Math.toIntExact(id);
+    }
+
+    /**
+     * Compteurs de facettes d'un resultat.
+     *
+     * @param categories compteurs par categorie.
+     * @param publishers compteurs par editeur.
+     * @param publicationYears compteurs par tranche d'annees (ex. « 1990-1999 »).
+     * @param availableNow nombre de livres ayant au moins une copie disponible.
+     */
+    public record Facets(List<FacetCount> categories,
+                         List<FacetCount> publishers,
+                         List<FacetCount> publicationYears,
+                         long availableNow) {
+    }
+
+    private record BookFacets(String category, String publisher, String publicationYears) {
+    }
+}
@@ -0,0 +1,348 @@
+package com.example.library.bookservice.search;
+
+import com.example.library.bookservice.dto.SuggestionDto;
+import com.example.library.bookservice.dto.SuggestionType;
+import com.example.library.bookservice.model.Author;
+import com.example.library.bookservice.model.Book;
+import com.example.library.bookservice.model.Category;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Trie radix (arbre prefixe compresse) des titres, auteurs et categories pour l'autocompletion.
+ *
+ * <p>Chaque suggestion est indexee sous son texte normalise et sous chaque suffixe
+ * commencant a un mot (« hugo » retrouve « Victor Hugo »). Son poids est le nombre de
+ * livres qui la portent. Chaque noeud conserve le poids maximal de son sous-arbre, ce qui
+ * permet une recherche « meilleur d'abord » des k premieres suggestions sans parcourir
+ * tout le sous-arbre du prefixe.</p>
+ *
+ * @since 1.1
+ */
+@Component
+public class SuggestionIndex implements CatalogIndex {
+    private static final int MAX_KEY_LENGTH = 100;
+    private static final int MAX_WORD_STARTS = 8;
+    private static final Comparator<Candidate> BEST_FIRST = Comparator
+            .comparingInt(Candidate::weight).reversed()
+            .thenComparing(candidate -> candidate.node() != null)
+            .thenComparing(candidate -> candidate.suggestion() != null ? candidate.suggestion().text() : "");
+
+    private final Node root = new Node("");
+    private final Map<Suggestion, Integer> counts = new HashMap<>();
+    private final Map<Long, List<Suggestion>> bookSuggestions = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Override
+    public void rebuild(Collection<Book> books) {
+        lock.writeLock().lock();
+        try {
+            root.children.clear();
+            root.entries.clear();
+            root.subtreeMax = 0;
+            counts.clear();
+            bookSuggestions.clear();
+            for (Book book : books) {
+                add(book);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void index(Book book) {
+        if (book == null || book.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeBook(book.getId());
+            add(book);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeBook(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retourne les suggestions les plus frequentes commencant par le prefixe.
+     *
+     * @param prefix saisie utilisateur.
+     * @param limit nombre maximal de suggestions.
+     * @return suggestions triees par nombre de livres decroissant.
+     */
+    public List<SuggestionDto> suggest(String prefix, int limit) {
+        String key = keyOf(TextNormalizer.tokenize(prefix));
+        if (key.isEmpty() || limit < 1) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Node start = findPrefixNode(key);
+            if (start == null) {
+                return List.of();
+            }
+            PriorityQueue<Candidate> queue = new PriorityQueue<>(BEST_FIRST);
+            queue.add(new Candidate(start.subtreeMax, start, null));
+            Set<Suggestion> seen = new LinkedHashSet<>();
+            while (!queue.isEmpty() && seen.size() < limit) {
+                Candidate candidate = queue.poll();
+                if (candidate.suggestion() != null) {
+                    seen.add(candidate.suggestion());
+                    continue;
+                }
+                Node node = candidate.node();
+                for (Suggestion entry : node.entries) {
+                    queue.add(new Candidate(counts.getOrDefault(entry, 0), null, entry));
+                }
+                for (Node child : node.children.values()) {
+                    queue.add(new Candidate(child.subtreeMax, child, null));
+                }
+            }
+            List<SuggestionDto> results = new ArrayList<>(seen.size());
+            for (Suggestion suggestion : seen) {
+                results.add(SuggestionDto.builder()
+                        .text(suggestion.text())
+                        .type(suggestion.type())
+                        .bookCount(counts.getOrDefault(suggestion, 0))
+                        .build());
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void add(Book book) {
+        List<Suggestion> suggestions = new ArrayList<>(3);
+        addIfPresent(suggestions, book.getTitle(), SuggestionType.TITLE);
+        Author author = book.getAuthor();
+        if (author != null) {
+            String name = ((author.getFirstName() != null ? author.getFirstName() : "") + " "
+                    + (author.getLastName() != null ? author.getLastName() : "")).trim();
+            addIfPresent(suggestions, name, SuggestionType.AUTHOR);
+        }
+        Category category = book.getCategory();
+        if (category != null) {
+            addIfPresent(suggestions, category.getName(), SuggestionType.CATEGORY);
+        }
+        for (Suggestion suggestion : suggestions) {
+            int count = counts.merge(suggestion, 1, Integer::sum);
+            for (String key : keysOf(suggestion)) {
+                if (count == 1) {
+                    insertKey(key, suggestion);
+                } else {
+                    refresh(path(key));
+                }
+            }
+        }
+        bookSuggestions.put(book.getId(), suggestions);
+    }
+
+    private void removeBook(Long id) {
+        List<Suggestion> suggestions = bookSuggestions.remove(id);
+        if (suggestions == null) {
+            return;
+        }
+        for (Suggestion suggestion : suggestions) {
+            int count = counts.merge(suggestion, -1, Integer::sum);
+            if (count <= 0) {
+                counts.remove(suggestion);
+            }
+            for (String key : keysOf(suggestion)) {
+                if (count <= 0) {
+                    removeKey(key, suggestion);
+                } else {
+                    refresh(path(key));
+                }
+            }
+        }
+    }
+
+    private void insertKey(String key, Suggestion suggestion) {
+        List<Node> path = new ArrayList<>();
+        path.add(root);
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            char first = key.charAt(i);
+            Node child = node.children.get(first);
+            if (child == null) {
+                child = new Node(key.substring(i));
+                node.children.put(first, child);
+                i = key.length();
+            } else {
+                int common = commonPrefixLength(child.label, key, i);
+                if (common < child.label.length()) {
+                    Node middle = new Node(child.label.substring(0, common));
+                    child.label = child.label.substring(common);
+                    middle.children.put(child.label.charAt(0), child);
+                    middle.subtreeMax = child.subtreeMax;
+                    node.children.put(first, middle);
+                    child = middle;
+                }
+                i += common;
+            }
+            node = child;
+            path.add(node);
+        }
+        node.entries.add(suggestion);
+        refresh(path);
+    }
+
+    private void removeKey(String key, Suggestion suggestion) {
+        List<Node> path = path(key);
+        if (path == null) {
+            return;
+        }
+        path.get(path.size() - 1).entries.remove(suggestion);
+        for (int depth = path.size() - 1; depth > 0; depth--) {
+            Node current = path.get(depth);
+            Node parent = path.get(depth - 1);
+            if (!current.entries.isEmpty()) {
+                break;
+            }
+            if (current.children.isEmpty()) {
+                parent.children.remove(current.label.charAt(0));
+            } else if (current.children.size() == 1) {
+                Node only = current.children.values().iterator().next();
+                only.label = current.label + only.label;
+                parent.children.put(only.label.charAt(0), only);
+                path.set(depth, only);
+                break;
+            } else {
+                break;
+            }
+        }
+        refresh(path);
+    }
+
+    private List<Node> path(String key) {
+        List<Node> path = new ArrayList<>();
+        path.add(root);
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            Node child = node.children.get(key.charAt(i));
+            if (child == null || !key.startsWith(child.label, i)) {
+                return null;
+            }
+            i += child.label.length();
+            node = child;
+            path.add(node);
+        }
+        return path;
+    }
+
+    private Node findPrefixNode(String key) {
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            Node child = node.children.get(key.charAt(i));
+            if (child == null) {
+                return null;
+            }
+            int common = commonPrefixLength(child.label, key, i);
+            if (i + common == key.length()) {
+                return child;
+            }
+            if (common < child.label.length()) {
+                return null;
+            }
+            i += common;
+            node = child;
+        }
+        return node;
+    }
+
+    private void refresh(List<Node> path) {
+        if (path == null) {
+            return;
+        }
+        for (int depth = path.size() - 1; depth >= 0; depth--) {
+            Node node = path.get(depth);
+            int max = 0;
+            for (Suggestion entry : node.entries) {
+                max = Math.max(max, counts.getOrDefault(entry, 0));
+            }
+            for (Node child : node.children.values()) {
+                max = Math.max(max, child.subtreeMax);
+            }
+            node.subtreeMax = max;
+        }
+    }
+
+    private static void addIfPresent(List<Suggestion> suggestions, String text, SuggestionType type) {
+        if (text != null && !text.isBlank()) {
+            Suggestion suggestion = new Suggestion(text.trim(), type);
+            if (!suggestions.contains(suggestion)) {
+                suggestions.add(suggestion);
+            }
+        }
+    }
+
+    private static Set<String> keysOf(Suggestion suggestion) {
+        List<String> tokens = TextNormalizer.tokenize(suggestion.text());
+        Set<String> keys = new HashSet<>();
+        for (int start = 0; start < tokens.size() && start < MAX_WORD_STARTS; start++) {
+            String key = keyOf(tokens.subList(start, tokens.size()));
+            if (!key.isEmpty()) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    private static String keyOf(List<String> tokens) {
+        String key = String.join(" ", tokens);
+        return key.length() > MAX_KEY_LENGTH ? key.substring(0, MAX_KEY_LENGTH) : key;
+    }
+
+    private static int commonPrefixLength(String label, String key, int offset) {
+        int length = 0;
+        while (length < label.length() && offset + length < key.length()
+                && label.charAt(length) == key.charAt(offset + length)) {
+            length++;
+        }
+        return length;
+    }
+
+    private record Suggestion(String text, SuggestionType type) {
+    }
+
+    private record Candidate(int weight, Node node, Suggestion suggestion) {
+    }
+
+    private static final class Node {
+        private String label;
+        private final Map<Character, Node> children = new HashMap<>();
+        private final Set<Suggestion> entries = new HashSet<>();
+        private int subtreeMax;
+
+        private Node(String label) {
+            this.label = label;
+        }
+    }
+}
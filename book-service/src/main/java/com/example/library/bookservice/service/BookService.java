@@ -1,24 +1,66 @@
 package com.example.library.bookservice.service;
 
+import com.example.library.bookservice.availability.HotTitleAvailability;
+import com.example.library.bookservice.cache.BookDtoCache;
+import com.example.library.bookservice.cache.CatalogReferenceCache;
+import com.example.library.bookservice.cache.IsbnBloomFilter;
 import com.example.library.bookservice.dto.BookDto;
+import com.example.library.bookservice.dto.BookPage;
+import com.example.library.bookservice.dto.CatalogChangeDto;
+import com.example.library.bookservice.dto.CopiesBatchEntry;
+import com.example.library.bookservice.dto.CopiesBatchResult;
+import com.example.library.bookservice.dto.CopiesUpdateStatus;
 import com.example.library.bookservice.dto.CreateBookRequest;
+import com.example.library.bookservice.dto.FacetFilter;
+import com.example.library.bookservice.dto.FacetedSearchResult;
+import com.example.library.bookservice.dto.SuggestionDto;
 import com.example.library.bookservice.dto.UpdateBookRequest;
 import com.example.library.bookservice.dto.UpdateCopiesRequest;
 import com.example.library.bookservice.exception.BadRequestException;
+import com.example.library.bookservice.exception.HotTitleOwnedElsewhereException;
+import com.example.library.bookservice.exception.InsufficientCopiesException;
 import com.example.library.bookservice.exception.NotFoundException;
+import com.example.library.bookservice.exception.VersionConflictException;
 import com.example.library.bookservice.mapper.BookMapper;
 import com.example.library.bookservice.model.Author;
 import com.example.library.bookservice.model.Book;
 import com.example.library.bookservice.model.Category;
+import com.example.library.bookservice.outbox.CatalogChangeRecorder;
 import com.example.library.bookservice.repository.AuthorRepository;
+import com.example.library.bookservice.repository.BookCopiesBatchRepository;
+import com.example.library.bookservice.repository.BookCopiesBatchRepository.CopyCounts;
 import com.example.library.bookservice.repository.BookRepository;
+import com.example.library.bookservice.repository.BookRow;
+import com.example.library.bookservice.repository.CatalogOutboxRepository;
+import com.example.library.bookservice.repository.CatalogVersionRepository;
 import com.example.library.bookservice.repository.CategoryRepository;
+import com.example.library.bookservice.repository.CopiesBatchReceiptRepository;
+import com.example.library.bookservice.search.BookSearchIndex;
+import com.example.library.bookservice.search.CatalogIndexer;
+import com.example.library.bookservice.search.FacetIndex;
+import com.example.library.bookservice.search.SuggestionIndex;
+import com.example.library.bookservice.support.OptimisticLockRetry;
+import com.example.library.bookservice.support.TransactionCallbacks;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Service métier pour la gestion du catalogue de livres.
@@ -27,17 +69,75 @@ import java.util.stream.Collectors;
  */
 @Service
 public class BookService {
+    private static final int MAX_BATCH_ID_LENGTH = 64;
 
     private final BookRepository bookRepository;
     private final AuthorRepository authorRepository;
     private final CategoryRepository categoryRepository;
+    private final BookCopiesBatchRepository copiesBatchRepository;
+    private final CopiesBatchReceiptRepository copiesBatchReceiptRepository;
+    private final CatalogVersionRepository catalogVersionRepository;
+    private final BookSearchIndex searchIndex;
+    private final SuggestionIndex suggestionIndex;
+    private final FacetIndex facetIndex;
+    private final CatalogIndexer catalogIndexer;
+    private final BookDtoCache bookCache;
+    private final CatalogReferenceCache referenceCache;
+    private final IsbnBloomFilter isbnFilter;
+    private final CatalogChangeRecorder changeRecorder;
+    private final CatalogOutboxRepository outboxRepository;
+    private final OptimisticLockRetry optimisticLockRetry;
+    private final HotTitleAvailability hotTitleAvailability;
+    private final int maxPageSize;
+    private final int maxCopiesBatchSize;
+    private final Duration copiesReceiptRetention;
+    private final int maxSuggestions;
+    private final int maxFacetValues;
 
     public BookService(BookRepository bookRepository,
                        AuthorRepository authorRepository,
-                       CategoryRepository categoryRepository) {
+                       CategoryRepository categoryRepository,
+                       BookCopiesBatchRepository copiesBatchRepository,
+                       CopiesBatchReceiptRepository copiesBatchReceiptRepository,
+                       CatalogVersionRepository catalogVersionRepository,
+                       BookSearchIndex searchIndex,
+                       SuggestionIndex suggestionIndex,
+                       FacetIndex facetIndex,
+                       CatalogIndexer catalogIndexer,
+                       BookDtoCache bookCache,
+                       CatalogReferenceCache referenceCache,
+                       IsbnBloomFilter isbnFilter,
+                       CatalogChangeRecorder changeRecorder,
+                       CatalogOutboxRepository outboxRepository,
+                       OptimisticLockRetry optimisticLockRetry,
+                       HotTitleAvailability hotTitleAvailability,
+                       @Value("${catalog.page.max-size:500}") int maxPageSize,
+                       @Value("${catalog.copies.batch-max-size:1000}") int maxCopiesBatchSize,
+                       @Value("${catalog.copies.receipt-retention:7d}") Duration copiesReceiptRetention,
+                       @Value("${catalog.suggest.max-size:50}") int maxSuggestions,
+                       @Value("${catalog.facets.max-values:20}") int maxFacetValues) {
         this.bookRepository = bookRepository;
         this.authorRepository = authorRepository;
         this.categoryRepository = categoryRepository;
+        this.copiesBatchRepository = copiesBatchRepository;
+        this.copiesBatchReceiptRepository = copiesBatchReceiptRepository;
+        this.catalogVersionRepository = catalogVersionRepository;
+        this.searchIndex = searchIndex;
+        this.suggestionIndex = suggestionIndex;
+        this.facetIndex = facetIndex;
+        this.catalogIndexer = catalogIndexer;
+        this.bookCache = bookCache;
+        this.referenceCache = referenceCache;
+        this.isbnFilter = isbnFilter;
+        this.changeRecorder = changeRecorder;
+        this.outboxRepository = outboxRepository;
+        this.optimisticLockRetry = optimisticLockRetry;
+        this.hotTitleAvailability = hotTitleAvailability;
+        this.maxPageSize = maxPageSize;
+        this.maxCopiesBatchSize = maxCopiesBatchSize;
+        this.copiesReceiptRetention = copiesReceiptRetention;
+        this.maxSuggestions = maxSuggestions;
+        this.maxFacetValues = maxFacetValues;
     }
 
     /**
@@ -46,43 +146,170 @@ public class BookService {
      * @return liste de livres.
      */
     public List<BookDto> findAll() {
-        return bookRepository.findAll().stream()
+        return bookRepository.findAllRows().stream()
                 .map(BookMapper::toDto)
                 .collect(Collectors.toList());
     }
 
     /**
-     * Retourne un livre par id.
+     * Retourne la version courante du catalogue (incrémentée à chaque mutation).
+     *
+     * @return version du catalogue.
+     */
+    public long getCatalogVersion() {
+        return catalogVersionRepository.current();
+    }
+
+    /**
+     * Retourne une page du catalogue par curseur (keyset sur l'id).
+     *
+     * @param afterId dernier id de la page précédente (null pour la première page).
+     * @param size taille demandée, plafonnée par {@code catalog.page.max-size}.
+     * @return page et curseur suivant (null en fin de catalogue).
+     */
+    public BookPage findPage(Long afterId, int size) {
+        if (size < 1) {
+            throw new BadRequestException("Page size must be positive");
+        }
+        int limit = Math.min(size, maxPageSize);
+        List<BookRow> rows = bookRepository.findPageAfter(afterId == null ? 0L : afterId, PageRequest.of(0, limit + 1));
+        boolean hasMore = rows.size() > limit;
+        List<BookRow> page = hasMore ? rows.subList(0, limit) : rows;
+        return BookPage.builder()
+                .items(page.stream().map(BookMapper::toDto).collect(Collectors.toList()))
+                .nextCursor(hasMore ? page.get(limit - 1).id() : null)
+                .build();
+    }
+
+    /**
+     * Retourne les mutations publiées après une séquence, pour un suivi incrémental.
+     *
+     * @param afterSequence dernière séquence déjà traitée (0 pour tout relire).
+     * @param limit nombre maximal d'entrées, plafonné par {@code catalog.page.max-size}.
+     * @return mutations triées par séquence croissante.
+     */
+    public List<CatalogChangeDto> findChanges(long afterSequence, int limit) {
+        if (limit < 1) {
+            throw new BadRequestException("Limit must be positive");
+        }
+        return outboxRepository.findPublishedAfter(afterSequence, Math.min(limit, maxPageSize));
+    }
+
+    /**
+     * Retourne la dernière séquence publiée du flux de mutations : un consommateur qui
+     * la lit avant de charger le catalogue suit ensuite le flux à partir de là.
+     *
+     * @return séquence courante (0 si aucune).
+     */
+    public long getChangesHead() {
+        return outboxRepository.lastPublishedSequence();
+    }
+
+    /**
+     * Parcourt tout le catalogue via un curseur base de données, à mémoire constante.
+     *
+     * @param consumer reçoit chaque livre dans l'ordre des ids.
+     */
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<BookDto> consumer) {
+        try (Stream<BookRow> rows = bookRepository.streamAll()) {
+            rows.forEach(row -> consumer.accept(BookMapper.toDto(row)));
+        }
+    }
+
+    /**
+     * Retourne un livre par id (lecture via le cache).
      *
      * @param id identifiant livre.
      * @return livre.
      */
     public BookDto findById(Long id) {
-        return BookMapper.toDto(getBook(id));
+        return hotTitleAvailability.withCurrentCopies(bookCache.get(id, key -> bookRepository.findRowById(key)
+                .map(BookMapper::toDto)
+                .orElseThrow(() -> new NotFoundException("Book not found"))));
     }
 
     /**
-     * Retourne un livre par ISBN.
+     * Retourne un livre par ISBN (lecture via le cache).
+     *
+     * <p>Un ISBN absent du filtre de Bloom est rejeté sans requête.</p>
      *
      * @param isbn ISBN.
      * @return livre.
      */
     public BookDto findByIsbn(String isbn) {
-        Book book = bookRepository.findByIsbn(isbn)
+        Long id = bookCache.findIdByIsbn(isbn);
+        if (id != null) {
+            return findById(id);
+        }
+        if (!isbnFilter.mightContain(isbn)) {
+            throw new NotFoundException("Book not found");
+        }
+        long cacheGeneration = bookCache.generation();
+        Optional<BookRow> row = bookRepository.findRowByIsbn(isbn);
+        isbnFilter.recordLookup(row.isPresent());
+        BookDto dto = row.map(BookMapper::toDto)
                 .orElseThrow(() -> new NotFoundException("Book not found"));
-        return BookMapper.toDto(book);
+        bookCache.put(dto, cacheGeneration);
+        return hotTitleAvailability.withCurrentCopies(dto);
     }
 
     /**
-     * Recherche full-text dans le catalogue.
+     * Recherche full-text dans le catalogue, triée par pertinence.
+     *
+     * <p>Utilise l'index en mémoire ; la requête JPQL sert de repli tant que
+     * l'index n'est pas prêt ou si la requête ne contient aucun terme.</p>
      *
      * @param query terme de recherche.
      * @return résultats.
      */
     public List<BookDto> search(String query) {
-        return bookRepository.search(query).stream()
-                .map(BookMapper::toDto)
-                .collect(Collectors.toList());
+        Optional<List<Long>> ranked = searchIndex.search(query);
+        if (ranked.isEmpty()) {
+            return bookRepository.searchRows(query).stream()
+                    .map(BookMapper::toDto)
+                    .collect(Collectors.toList());
+        }
+        return findAllInOrder(ranked.get());
+    }
+
+    /**
+     * Recherche full-text avec filtres et compteurs de facettes (catégorie, éditeur,
+     * tranche d'années, disponibilité).
+     *
+     * <p>Les compteurs sont calculés sur le résultat filtré par intersection de bitmaps,
+     * sans requête d'agrégation.</p>
+     *
+     * @param query terme de recherche.
+     * @param filter facettes sélectionnées.
+     * @return résultats et compteurs.
+     */
+    public FacetedSearchResult facetedSearch(String query, FacetFilter filter) {
+        List<Long> ids = searchIndex.search(query)
+                .orElseGet(() -> bookRepository.searchIds(query));
+        List<Long> filtered = facetIndex.filter(ids, filter);
+        FacetIndex.Facets facets = facetIndex.count(filtered, maxFacetValues);
+        return FacetedSearchResult.builder()
+                .items(findAllInOrder(filtered))
+                .categories(facets.categories())
+                .publishers(facets.publishers())
+                .publicationYears(facets.publicationYears())
+                .availableNow(facets.availableNow())
+                .build();
+    }
+
+    /**
+     * Suggestions d'autocomplétion (titres, auteurs, catégories) pour un préfixe.
+     *
+     * @param prefix saisie utilisateur.
+     * @param limit nombre maximal de suggestions, plafonné par {@code catalog.suggest.max-size}.
+     * @return suggestions triées par nombre de livres décroissant.
+     */
+    public List<SuggestionDto> suggest(String prefix, int limit) {
+        if (limit < 1) {
+            throw new BadRequestException("Limit must be positive");
+        }
+        return suggestionIndex.suggest(prefix, Math.min(limit, maxSuggestions));
     }
 
     /**
@@ -91,8 +318,9 @@ public class BookService {
      * @param request données de création.
      * @return livre créé.
      */
+    @Transactional
     public BookDto create(CreateBookRequest request) {
-        if (bookRepository.findByIsbn(request.getIsbn()).isPresent()) {
+        if (isbnExists(request.getIsbn())) {
             throw new BadRequestException("ISBN already exists");
         }
         if (request.getTotalCopies() < 0 || request.getAvailableCopies() < 0) {
@@ -102,11 +330,8 @@ public class BookService {
             throw new BadRequestException("Available copies cannot exceed total copies");
         }
 
-        Author author = authorRepository.save(Author.builder()
-                .firstName(request.getAuthorFirstName())
-                .lastName(request.getAuthorLastName())
-                .biography(request.getAuthorBiography())
-                .build());
+        Author author = resolveAuthor(request.getAuthorFirstName(), request.getAuthorLastName(),
+                request.getAuthorBiography());
 
         Category category = resolveCategory(request.getCategoryName(), request.getCategoryDescription());
 
@@ -122,18 +347,62 @@ public class BookService {
                 .category(category)
                 .build();
 
-        return BookMapper.toDto(bookRepository.save(book));
+        isbnFilter.add(book.getIsbn());
+        Book saved;
+        try {
+            saved = bookRepository.save(book);
+        } catch (DataIntegrityViolationException ex) {
+            // ISBN cree par une autre instance et pas encore recu par le filtre
+            throw new BadRequestException("ISBN already exists");
+        }
+        BookDto dto = BookMapper.toDto(saved);
+        changeRecorder.booksCreated(List.of(dto));
+        catalogVersionRepository.incrementAfterCommit();
+        TransactionCallbacks.afterCommit(() -> catalogIndexer.index(saved));
+        return dto;
     }
 
     /**
      * Met à jour un livre.
      *
+     * <p>Si une version attendue est fournie (en-tête {@code If-Match}), la modification est
+     * refusée lorsque le livre a changé depuis ; dans tous les cas, une écriture concurrente
+     * détectée à la mise à jour (colonne {@code version}) est refusée plutôt qu'écrasée.</p>
+     *
      * @param id identifiant livre.
      * @param request données de mise à jour.
+     * @param expectedVersion version lue par le client, ou null.
      * @return livre mis à jour.
+     * @throws VersionConflictException si le livre a été modifié concurremment.
      */
-    public BookDto update(Long id, UpdateBookRequest request) {
+    @Transactional
+    public BookDto update(Long id, UpdateBookRequest request, Long expectedVersion) {
+        return hotTitleAvailability.exclusive(id, () -> applyUpdate(id, request, expectedVersion));
+    }
+
+    private BookDto applyUpdate(Long id, UpdateBookRequest request, Long expectedVersion) {
         Book book = getBook(id);
+        if (expectedVersion != null && !expectedVersion.equals(book.getVersion())) {
+            optimisticLockRetry.recordRejected("update", id);
+            throw new VersionConflictException(id);
+        }
+
+        // Résolus avant modification : un changement de donnée partagée incrémente la
+        // version des livres concernés et vide le contexte de persistance.
+        Author author = null;
+        if (request.getAuthorFirstName() != null || request.getAuthorLastName() != null) {
+            Author current = book.getAuthor();
+            String firstName = request.getAuthorFirstName() != null ? request.getAuthorFirstName()
+                    : current != null ? current.getFirstName() : null;
+            String lastName = request.getAuthorLastName() != null ? request.getAuthorLastName()
+                    : current != null ? current.getLastName() : null;
+            author = resolveAuthor(firstName, lastName, request.getAuthorBiography());
+        }
+        Category category = null;
+        if (request.getCategoryName() != null) {
+            category = resolveCategory(request.getCategoryName(), request.getCategoryDescription());
+        }
+        book = getBook(id);
 
         book.setTitle(request.getTitle());
         book.setDescription(request.getDescription());
@@ -146,26 +415,10 @@ public class BookService {
         if (request.getAvailableCopies() != null) {
             book.setAvailableCopies(request.getAvailableCopies());
         }
-
-        if (request.getAuthorFirstName() != null || request.getAuthorLastName() != null) {
-            Author author = book.getAuthor();
-            if (author == null) {
-                author = new Author();
-            }
-            if (request.getAuthorFirstName() != null) {
-                author.setFirstName(request.getAuthorFirstName());
-            }
-            if (request.getAuthorLastName() != null) {
-                author.setLastName(request.getAuthorLastName());
-            }
-            if (request.getAuthorBiography() != null) {
-                author.setBiography(request.getAuthorBiography());
-            }
-            book.setAuthor(authorRepository.save(author));
+        if (author != null) {
+            book.setAuthor(author);
         }
-
-        if (request.getCategoryName() != null) {
-            Category category = resolveCategory(request.getCategoryName(), request.getCategoryDescription());
+        if (category != null) {
             book.setCategory(category);
         }
 
@@ -176,7 +429,20 @@ public class BookService {
             throw new BadRequestException("Available copies cannot exceed total copies");
         }
 
-        return BookMapper.toDto(bookRepository.save(book));
+        Book saved;
+        try {
+            saved = bookRepository.saveAndFlush(book);
+        } catch (OptimisticLockingFailureException ex) {
+            optimisticLockRetry.recordRejected("update", id);
+            throw new VersionConflictException(id);
+        }
+        BookDto dto = BookMapper.toDto(saved);
+        changeRecorder.bookUpdated(dto);
+        catalogVersionRepository.incrementAfterCommit();
+        bookCache.evict(id);
+        Book indexed = saved;
+        TransactionCallbacks.afterCommit(() -> catalogIndexer.index(indexed));
+        return dto;
     }
 
     /**
@@ -184,23 +450,249 @@ public class BookService {
      *
      * @param id identifiant livre.
      */
+    @Transactional
     public void delete(Long id) {
-        if (!bookRepository.existsById(id)) {
-            throw new NotFoundException("Book not found");
-        }
-        bookRepository.deleteById(id);
+        Book book = getBook(id);
+        bookRepository.delete(book);
+        changeRecorder.bookDeleted(id, book.getIsbn());
+        catalogVersionRepository.incrementAfterCommit();
+        bookCache.evict(id);
+        bookCache.evictIsbn(book.getIsbn());
+        TransactionCallbacks.afterCommit(() -> catalogIndexer.remove(id));
     }
 
     /**
      * Met à jour le nombre de copies.
      *
+     * <p>Les requêtes ne contenant que des variations sont appliquées par une mise à
+     * jour conditionnelle unique, sans lecture préalable ni verrou applicatif. Les autres
+     * sont des lectures-écritures protégées par la version du livre : sur conflit, une
+     * requête contenant des variations est rejouée sur l'état courant (reprise bornée),
+     * une requête en valeurs absolues seules est refusée.</p>
+     *
+     * <p>Pour un titre chaud ({@code catalog.hot-titles}), les variations sont appliquées
+     * au compteur en mémoire et écrites en base par lot.</p>
+     *
      * @param id identifiant livre.
      * @param request valeurs/variations des copies.
      * @return livre mis à jour.
+     * @throws InsufficientCopiesException si la décrémentation rendrait le stock négatif.
+     * @throws VersionConflictException si le livre reste modifié concurremment.
      */
     public BookDto updateCopies(Long id, UpdateCopiesRequest request) {
-        Book book = getBook(id);
+        boolean hasDelta = request.getDeltaTotal() != null || request.getDeltaAvailable() != null;
+        if (request.getTotalCopies() == null && request.getAvailableCopies() == null) {
+            int deltaAvailable = request.getDeltaAvailable() != null ? request.getDeltaAvailable() : 0;
+            HotTitleAvailability.Adjustment adjustment = hotTitleAvailability.adjust(id, deltaAvailable,
+                    request.getDeltaTotal() != null ? request.getDeltaTotal() : 0);
+            if (adjustment != null) {
+                if (!adjustment.applied()) {
+                    if (deltaAvailable < 0) {
+                        throw new InsufficientCopiesException(id);
+                    }
+                    throw new BadRequestException("Available copies cannot exceed total copies");
+                }
+                return findById(id);
+            }
+        }
+        return optimisticLockRetry.execute("copies", id, hasDelta, () -> hotTitleAvailability.exclusive(id, () -> {
+            bookCache.evict(id);
+            catalogVersionRepository.incrementAfterCommit();
+            if (request.getTotalCopies() == null && request.getAvailableCopies() == null) {
+                return BookMapper.toDto(refreshAvailability(applyCopiesDelta(id, request)));
+            }
+            return BookMapper.toDto(refreshAvailability(bookRepository.saveAndFlush(applyCopies(getBook(id), request))));
+        }));
+    }
+
+    /**
+     * Applique des variations de copies au plus une fois par clé d'idempotence.
+     *
+     * <p>La clé est réservée dans la transaction qui applique la variation, comme celle
+     * d'un lot ({@link #updateCopiesBatch(String, List)}) : une variation renvoyée après
+     * une réponse perdue (délai de lecture dépassé) n'est pas appliquée une seconde fois et
+     * reçoit l'état courant du livre. Une variation refusée annule la réservation de la
+     * clé, qui peut être renvoyée.</p>
+     *
+     * @param id identifiant livre.
+     * @param key clé d'idempotence.
+     * @param request variations des copies (sans valeurs absolues).
+     * @return livre mis à jour.
+     * @throws InsufficientCopiesException si la décrémentation rendrait le stock négatif.
+     * @throws HotTitleOwnedElsewhereException si le stock du livre est tenu par une autre instance.
+     */
+    @Transactional
+    public BookDto updateCopiesOnce(Long id, String key, UpdateCopiesRequest request) {
+        if (key.isBlank() || key.length() > MAX_BATCH_ID_LENGTH) {
+            throw new BadRequestException("Idempotency key must be 1 to " + MAX_BATCH_ID_LENGTH + " characters");
+        }
+        if (request.getTotalCopies() != null || request.getAvailableCopies() != null) {
+            throw new BadRequestException("Idempotency key only applies to copy deltas");
+        }
+        if (copiesBatchReceiptRepository.claim(key)) {
+            CopiesBatchEntry entry = new CopiesBatchEntry();
+            entry.setBookId(id);
+            entry.setDeltaAvailable(request.getDeltaAvailable());
+            entry.setDeltaTotal(request.getDeltaTotal());
+            List<CopiesBatchResult> results = applyCopiesBatch(List.of(entry));
+            switch (results.get(0).getStatus()) {
+                case UPDATED -> copiesBatchReceiptRepository.saveResults(key, results);
+                case NOT_FOUND -> throw new NotFoundException("Book not found");
+                case INSUFFICIENT_COPIES -> throw new InsufficientCopiesException(id);
+                case OWNED_ELSEWHERE -> throw new HotTitleOwnedElsewhereException(id);
+                case INVALID -> throw new BadRequestException("Available copies cannot exceed total copies");
+            }
+        }
+        return hotTitleAvailability.withCurrentCopies(bookRepository.findRowById(id)
+                .map(BookMapper::toDto)
+                .orElseThrow(() -> new NotFoundException("Book not found")));
+    }
+
+    /**
+     * Applique un lot de variations de copies dans une seule transaction.
+     *
+     * <p>Chaque entrée est une mise à jour conditionnelle envoyée dans un même lot JDBC ;
+     * une entrée refusée n'annule pas les autres. Les compteurs retournés sont ceux
+     * obtenus après application du lot complet.</p>
+     *
+     * <p>Un lot portant une clé d'idempotence n'est appliqué qu'une fois : un renvoi de la
+     * même clé reçoit les résultats du premier envoi.</p>
+     *
+     * <p>Une entrée portant sur un titre chaud tenu par une autre instance reçoit le statut
+     * {@code OWNED_ELSEWHERE} sans être appliquée ; le reste du lot l'est. L'appelant renvoie
+     * cette entrée dans un nouveau lot.</p>
+     *
+     * @param batchId clé d'idempotence du lot (optionnelle).
+     * @param entries variations par livre.
+     * @return résultat par entrée, dans l'ordre de la requête.
+     */
+    @Transactional
+    public List<CopiesBatchResult> updateCopiesBatch(String batchId, List<CopiesBatchEntry> entries) {
+        if (entries == null || entries.isEmpty()) {
+            throw new BadRequestException("Batch cannot be empty");
+        }
+        if (entries.size() > maxCopiesBatchSize) {
+            throw new BadRequestException("Batch cannot exceed " + maxCopiesBatchSize + " entries");
+        }
+        if (batchId != null && (batchId.isBlank() || batchId.length() > MAX_BATCH_ID_LENGTH)) {
+            throw new BadRequestException("Idempotency key must be 1 to " + MAX_BATCH_ID_LENGTH + " characters");
+        }
+        if (batchId != null && !copiesBatchReceiptRepository.claim(batchId)) {
+            return copiesBatchReceiptRepository.findResults(batchId);
+        }
+        List<CopiesBatchResult> results = applyCopiesBatch(entries);
+        if (batchId != null) {
+            copiesBatchReceiptRepository.saveResults(batchId, results);
+        }
+        return results;
+    }
+
+    /**
+     * Supprime les accusés de lots de copies au-delà de la rétention.
+     */
+    @Scheduled(fixedDelayString = "${catalog.copies.receipt-purge-interval-ms:3600000}")
+    public void purgeCopiesBatchReceipts() {
+        copiesBatchReceiptRepository.deleteCreatedBefore(copiesReceiptRetention);
+    }
 
+    private List<CopiesBatchResult> applyCopiesBatch(List<CopiesBatchEntry> entries) {
+
+        CopiesBatchResult[] hotResults = new CopiesBatchResult[entries.size()];
+        List<CopiesBatchEntry> valid = new ArrayList<>(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            CopiesBatchEntry entry = entries.get(i);
+            if (entry.getBookId() != null) {
+                hotResults[i] = adjustHotTitle(entry);
+                if (hotResults[i] == null) {
+                    valid.add(entry);
+                }
+            }
+        }
+        Set<Long> ids = valid.stream()
+                .map(CopiesBatchEntry::getBookId)
+                .collect(Collectors.toSet());
+        bookCache.evictAll(ids);
+        catalogVersionRepository.incrementAfterCommit();
+        int[] updated = copiesBatchRepository.adjustCopies(valid);
+        Map<Long, CopyCounts> counts = copiesBatchRepository.findCounts(ids);
+        Map<Long, CopyCounts> changed = new LinkedHashMap<>();
+        for (int i = 0; i < valid.size(); i++) {
+            Long bookId = valid.get(i).getBookId();
+            if (updated[i] > 0 && counts.containsKey(bookId)) {
+                changed.put(bookId, counts.get(bookId));
+            }
+        }
+        changeRecorder.copiesUpdated(changed);
+        TransactionCallbacks.afterCommit(() -> changed.forEach((bookId, current) ->
+                facetIndex.updateAvailability(bookId, current.availableCopies())));
+
+        List<CopiesBatchResult> results = new ArrayList<>(entries.size());
+        int index = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            CopiesBatchEntry entry = entries.get(i);
+            if (entry.getBookId() == null) {
+                results.add(CopiesBatchResult.builder().status(CopiesUpdateStatus.INVALID).build());
+                continue;
+            }
+            if (hotResults[i] != null) {
+                results.add(hotResults[i]);
+                continue;
+            }
+            CopyCounts current = counts.get(entry.getBookId());
+            CopiesUpdateStatus status;
+            if (updated[index++] > 0) {
+                status = CopiesUpdateStatus.UPDATED;
+            } else if (current == null) {
+                status = CopiesUpdateStatus.NOT_FOUND;
+            } else if (entry.getDeltaAvailable() != null && entry.getDeltaAvailable() < 0) {
+                status = CopiesUpdateStatus.INSUFFICIENT_COPIES;
+            } else {
+                status = CopiesUpdateStatus.INVALID;
+            }
+            results.add(CopiesBatchResult.builder()
+                    .bookId(entry.getBookId())
+                    .status(status)
+                    .availableCopies(current != null ? current.availableCopies() : null)
+                    .totalCopies(current != null ? current.totalCopies() : null)
+                    .build());
+        }
+        return results;
+    }
+
+    private CopiesBatchResult adjustHotTitle(CopiesBatchEntry entry) {
+        Long bookId = entry.getBookId();
+        int deltaAvailable = entry.getDeltaAvailable() != null ? entry.getDeltaAvailable() : 0;
+        int deltaTotal = entry.getDeltaTotal() != null ? entry.getDeltaTotal() : 0;
+        HotTitleAvailability.Adjustment adjustment;
+        try {
+            adjustment = hotTitleAvailability.adjust(bookId, deltaAvailable, deltaTotal);
+        } catch (HotTitleOwnedElsewhereException ex) {
+            return CopiesBatchResult.builder()
+                    .bookId(bookId)
+                    .status(CopiesUpdateStatus.OWNED_ELSEWHERE)
+                    .build();
+        }
+        if (adjustment == null) {
+            return null;
+        }
+        CopiesUpdateStatus status;
+        if (adjustment.applied()) {
+            TransactionCallbacks.afterRollback(() -> hotTitleAvailability.revert(bookId, deltaAvailable, deltaTotal));
+            status = CopiesUpdateStatus.UPDATED;
+        } else if (deltaAvailable < 0) {
+            status = CopiesUpdateStatus.INSUFFICIENT_COPIES;
+        } else {
+            status = CopiesUpdateStatus.INVALID;
+        }
+        return CopiesBatchResult.builder()
+                .bookId(bookId)
+                .status(status)
+                .availableCopies(adjustment.counts().availableCopies())
+                .totalCopies(adjustment.counts().totalCopies())
+                .build();
+    }
+
+    private static Book applyCopies(Book book, UpdateCopiesRequest request) {
         if (request.getDeltaTotal() != null) {
             book.setTotalCopies(book.getTotalCopies() + request.getDeltaTotal());
         }
@@ -220,8 +712,37 @@ public class BookService {
         if (book.getAvailableCopies() > book.getTotalCopies()) {
             throw new BadRequestException("Available copies cannot exceed total copies");
         }
+        return book;
+    }
 
-        return BookMapper.toDto(bookRepository.save(book));
+    private Book applyCopiesDelta(Long id, UpdateCopiesRequest request) {
+        int deltaAvailable = request.getDeltaAvailable() != null ? request.getDeltaAvailable() : 0;
+        int deltaTotal = request.getDeltaTotal() != null ? request.getDeltaTotal() : 0;
+        if (bookRepository.adjustCopies(id, deltaAvailable, deltaTotal) == 0) {
+            Book book = getBook(id);
+            if (book.getAvailableCopies() + deltaAvailable < 0) {
+                throw new InsufficientCopiesException(id);
+            }
+            throw new BadRequestException("Available copies cannot exceed total copies");
+        }
+        return getBook(id);
+    }
+
+    private Book refreshAvailability(Book book) {
+        Long id = book.getId();
+        int availableCopies = book.getAvailableCopies();
+        changeRecorder.copiesUpdated(Map.of(id, new CopyCounts(availableCopies, book.getTotalCopies())));
+        TransactionCallbacks.afterCommit(() -> facetIndex.updateAvailability(id, availableCopies));
+        return book;
+    }
+
+    private boolean isbnExists(String isbn) {
+        if (!isbnFilter.mightContain(isbn)) {
+            return false;
+        }
+        boolean exists = bookRepository.existsByIsbn(isbn);
+        isbnFilter.recordLookup(exists);
+        return exists;
     }
 
     private Book getBook(Long id) {
@@ -229,19 +750,67 @@ public class BookService {
                 .orElseThrow(() -> new NotFoundException("Book not found"));
     }
 
+    private List<BookDto> findAllInOrder(List<Long> ids) {
+        Map<Long, BookRow> rows = bookRepository.findRowsByIdIn(ids).stream()
+                .collect(Collectors.toMap(BookRow::id, Function.identity()));
+        return ids.stream()
+                .map(rows::get)
+                .filter(Objects::nonNull)
+                .map(BookMapper::toDto)
+                .collect(Collectors.toList());
+    }
+
     private Category resolveCategory(String name, String description) {
-        Optional<Category> existing = categoryRepository.findByNameIgnoreCase(name);
+        Optional<Category> existing = referenceCache.isReady()
+                ? referenceCache.findCategory(name)
+                : Optional.empty();
+        if (existing.isEmpty()) {
+            // Absente du cache : peut-etre creee par une autre instance.
+            existing = categoryRepository.findByNameIgnoreCase(name);
+            existing.ifPresent(referenceCache::putCategoryAfterCommit);
+        }
         if (existing.isPresent()) {
             Category category = existing.get();
             if (description != null && !Objects.equals(category.getDescription(), description)) {
                 category.setDescription(description);
                 category = categoryRepository.save(category);
+                referenceCache.putCategoryAfterCommit(category);
+                bookRepository.incrementVersionByCategory(category.getId());
+                catalogVersionRepository.incrementAfterCommit();
+                bookCache.clear();
             }
             return category;
         }
-        return categoryRepository.save(Category.builder()
-                .name(name)
-                .description(description)
-                .build());
+        categoryRepository.insertIfAbsent(name, description);
+        Category created = categoryRepository.findByNameIgnoreCase(name).orElseThrow();
+        referenceCache.putCategoryAfterCommit(created);
+        return created;
+    }
+
+    private Author resolveAuthor(String firstName, String lastName, String biography) {
+        String identityKey = CatalogReferenceCache.authorKey(firstName, lastName);
+        Optional<Author> existing = referenceCache.isReady()
+                ? referenceCache.findAuthor(firstName, lastName)
+                : authorRepository.findByIdentityKey(identityKey);
+        if (existing.isEmpty()) {
+            boolean inserted = authorRepository.insertIfAbsent(firstName, lastName, biography, identityKey) > 0;
+            existing = authorRepository.findByIdentityKey(identityKey);
+            if (inserted) {
+                Author created = existing.orElseThrow();
+                referenceCache.putAuthorAfterCommit(created);
+                return created;
+            }
+            existing.ifPresent(referenceCache::putAuthorAfterCommit);
+        }
+        Author author = existing.orElseThrow();
+        if (biography != null && !Objects.equals(author.getBiography(), biography)) {
+            author.setBiography(biography);
+            author = authorRepository.save(author);
+            referenceCache.putAuthorAfterCommit(author);
+            bookRepository.incrementVersionByAuthor(author.getId());
+            catalogVersionRepository.incrementAfterCommit();
+            bookCache.clear();
+        }
+        return author;
     }
 }
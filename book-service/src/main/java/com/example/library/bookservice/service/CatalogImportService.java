@@ -0,0 +1,371 @@
+package com.example.library.bookservice.service;
+
+import com.example.library.bookservice.cache.CatalogReferenceCache;
+import com.example.library.bookservice.cache.IsbnBloomFilter;
+import com.example.library.bookservice.dto.CreateBookRequest;
+import com.example.library.bookservice.dto.ImportReport;
+import com.example.library.bookservice.model.Author;
+import com.example.library.bookservice.model.Book;
+import com.example.library.bookservice.mapper.BookMapper;
+import com.example.library.bookservice.model.Category;
+import com.example.library.bookservice.outbox.CatalogChangeRecorder;
+import com.example.library.bookservice.repository.CatalogImportRepository;
+import com.example.library.bookservice.repository.CatalogVersionRepository;
+import com.example.library.bookservice.search.CatalogIndexer;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Import en masse du catalogue depuis un flux NDJSON ou CSV de {@link CreateBookRequest}.
+ *
+ * <p>Le flux est lu au fil de l'eau et traite par lots : controle des ISBN deja presents
+ * en une requete ensembliste, dedoublonnage des auteurs et categories en memoire, puis
+ * insertions JDBC par lots. Chaque lot est valide dans sa propre transaction.</p>
+ *
+ * @since 1.1
+ */
+@Service
+public class CatalogImportService {
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    /**
+     * Formats de flux acceptes.
+     */
+    public enum Format {
+        NDJSON,
+        CSV
+    }
+
+    private final CatalogImportRepository importRepository;
+    private final CatalogVersionRepository catalogVersionRepository;
+    private final CatalogIndexer catalogIndexer;
+    private final CatalogReferenceCache referenceCache;
+    private final IsbnBloomFilter isbnFilter;
+    private final CatalogChangeRecorder changeRecorder;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int batchSize;
+
+    public CatalogImportService(CatalogImportRepository importRepository,
+                                CatalogVersionRepository catalogVersionRepository,
+                                CatalogIndexer catalogIndexer,
+                                CatalogReferenceCache referenceCache,
+                                IsbnBloomFilter isbnFilter,
+                                CatalogChangeRecorder changeRecorder,
+                                TransactionTemplate transactionTemplate,
+                                ObjectMapper objectMapper,
+                                Validator validator,
+                                @Value("${catalog.import.batch-size:1000}") int batchSize) {
+        this.importRepository = importRepository;
+        this.catalogVersionRepository = catalogVersionRepository;
+        this.catalogIndexer = catalogIndexer;
+        this.referenceCache = referenceCache;
+        this.isbnFilter = isbnFilter;
+        this.changeRecorder = changeRecorder;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Importe un flux de livres.
+     *
+     * <p>Les ISBN deja presents (en base ou plus tot dans le flux) sont ignores et comptes
+     * comme doublons ; les enregistrements invalides sont rejetes sans interrompre l'import.
+     * Les descriptions des categories existantes ne sont pas modifiees.</p>
+     *
+     * @param input flux brut (UTF-8).
+     * @param format format du flux.
+     * @return bilan de l'import.
+     * @throws IOException en cas d'erreur de lecture.
+     */
+    public ImportReport importFeed(InputStream input, Format format) throws IOException {
+        ImportRun run = new ImportRun();
+        importRepository.forEachCategory(category ->
+                run.categories.put(CatalogReferenceCache.categoryKey(category.getName()), category));
+        importRepository.forEachAuthor(author ->
+                run.authors.putIfAbsent(CatalogReferenceCache.authorKey(author.getFirstName(), author.getLastName()), author));
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        List<FeedRecord> chunk = new ArrayList<>(batchSize);
+        if (format == Format.CSV) {
+            readCsv(reader, run, chunk);
+        } else {
+            readNdjson(reader, run, chunk);
+        }
+        flush(chunk, run);
+        return run.toReport();
+    }
+
+    private void readNdjson(BufferedReader reader, ImportRun run, List<FeedRecord> chunk) throws IOException {
+        String text;
+        int line = 0;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            if (text.isBlank()) {
+                continue;
+            }
+            run.received++;
+            CreateBookRequest request;
+            try {
+                request = objectMapper.readValue(text, CreateBookRequest.class);
+            } catch (JacksonException ex) {
+                request = null;
+            }
+            if (request == null) {
+                run.reject(line, "invalid JSON");
+                continue;
+            }
+            accept(new FeedRecord(line, request), run, chunk);
+        }
+    }
+
+    private void readCsv(BufferedReader reader, ImportRun run, List<FeedRecord> chunk) throws IOException {
+        CsvRecordReader csv = new CsvRecordReader(reader);
+        List<String> header = csv.next();
+        if (header == null) {
+            return;
+        }
+        List<String> fields;
+        while ((fields = csv.next()) != null) {
+            if (fields.stream().allMatch(String::isBlank)) {
+                continue;
+            }
+            run.received++;
+            try {
+                accept(new FeedRecord(csv.getRecordLine(), toRequest(header, fields)), run, chunk);
+            } catch (IllegalArgumentException ex) {
+                run.reject(csv.getRecordLine(), ex.getMessage());
+            }
+        }
+    }
+
+    private void accept(FeedRecord record, ImportRun run, List<FeedRecord> chunk) {
+        chunk.add(record);
+        if (chunk.size() >= batchSize) {
+            flush(chunk, run);
+        }
+    }
+
+    private void flush(List<FeedRecord> chunk, ImportRun run) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        List<FeedRecord> valid = validate(chunk, run);
+        chunk.clear();
+        if (valid.isEmpty()) {
+            return;
+        }
+        ChunkResult result;
+        try {
+            result = transactionTemplate.execute(status -> insertChunk(valid, run));
+        } catch (DataAccessException ex) {
+            run.rejected += valid.size();
+            run.error(valid.get(0).line(), "batch of " + valid.size() + " records failed: "
+                    + ex.getMostSpecificCause().getMessage());
+            return;
+        }
+        run.categories.putAll(result.newCategories());
+        run.authors.putAll(result.newAuthors());
+        result.newCategories().values().forEach(referenceCache::putCategory);
+        result.newAuthors().values().forEach(referenceCache::putAuthor);
+        run.imported += result.books().size();
+        run.duplicates += result.duplicates();
+        result.books().forEach(catalogIndexer::index);
+    }
+
+    private List<FeedRecord> validate(List<FeedRecord> chunk, ImportRun run) {
+        List<FeedRecord> valid = new ArrayList<>(chunk.size());
+        Set<String> isbns = new HashSet<>();
+        for (FeedRecord record : chunk) {
+            CreateBookRequest request = record.request();
+            String error = validationError(request);
+            if (error != null) {
+                run.reject(record.line(), error);
+            } else if (!isbns.add(request.getIsbn())) {
+                run.duplicates++;
+            } else {
+                valid.add(record);
+            }
+        }
+        return valid;
+    }
+
+    private String validationError(CreateBookRequest request) {
+        Set<ConstraintViolation<CreateBookRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            ConstraintViolation<CreateBookRequest> violation = violations.iterator().next();
+            return violation.getPropertyPath() + " " + violation.getMessage();
+        }
+        if (request.getTotalCopies() < 0 || request.getAvailableCopies() < 0) {
+            return "Copies cannot be negative";
+        }
+        if (request.getAvailableCopies() > request.getTotalCopies()) {
+            return "Available copies cannot exceed total copies";
+        }
+        return null;
+    }
+
+    private ChunkResult insertChunk(List<FeedRecord> records, ImportRun run) {
+        List<String> candidates = records.stream()
+                .map(record -> record.request().getIsbn())
+                .filter(isbnFilter::mightContain)
+                .toList();
+        Set<String> existing = importRepository.findExistingIsbns(candidates);
+        candidates.forEach(isbn -> isbnFilter.recordLookup(existing.contains(isbn)));
+
+        Map<String, Author> newAuthors = new LinkedHashMap<>();
+        Map<String, Category> newCategories = new HashMap<>();
+        List<Book> books = new ArrayList<>(records.size());
+        int duplicates = 0;
+        for (FeedRecord record : records) {
+            CreateBookRequest request = record.request();
+            if (existing.contains(request.getIsbn())) {
+                duplicates++;
+                continue;
+            }
+
+            String categoryKey = CatalogReferenceCache.categoryKey(request.getCategoryName());
+            Category category = run.categories.get(categoryKey);
+            if (category == null) {
+                category = newCategories.computeIfAbsent(categoryKey, key -> {
+                    Category created = Category.builder()
+                            .name(request.getCategoryName())
+                            .description(request.getCategoryDescription())
+                            .build();
+                    importRepository.insertCategory(created);
+                    return created;
+                });
+            }
+
+            String authorKey = CatalogReferenceCache.authorKey(request.getAuthorFirstName(),
+                    request.getAuthorLastName());
+            Author author = run.authors.get(authorKey);
+            if (author == null) {
+                author = newAuthors.computeIfAbsent(authorKey, key -> Author.builder()
+                        .firstName(request.getAuthorFirstName())
+                        .lastName(request.getAuthorLastName())
+                        .biography(request.getAuthorBiography())
+                        .identityKey(key)
+                        .build());
+            }
+
+            books.add(Book.builder()
+                    .isbn(request.getIsbn())
+                    .title(request.getTitle())
+                    .description(request.getDescription())
+                    .publicationYear(request.getPublicationYear())
+                    .publisher(request.getPublisher())
+                    .totalCopies(request.getTotalCopies())
+                    .availableCopies(request.getAvailableCopies())
+                    .author(author)
+                    .category(category)
+                    .build());
+        }
+
+        books.forEach(book -> isbnFilter.add(book.getIsbn()));
+        importRepository.insertAuthors(new ArrayList<>(newAuthors.values()));
+        importRepository.insertBooks(books);
+        changeRecorder.booksCreated(books.stream().map(BookMapper::toDto).toList());
+        catalogVersionRepository.incrementAfterCommit();
+        return new ChunkResult(books, newAuthors, newCategories, duplicates);
+    }
+
+    private static CreateBookRequest toRequest(List<String> header, List<String> fields) {
+        CreateBookRequest request = new CreateBookRequest();
+        for (int i = 0; i < header.size() && i < fields.size(); i++) {
+            String value = fields.get(i);
+            if (value.isEmpty()) {
+                continue;
+            }
+            String column = header.get(i).trim();
+            switch (column) {
+                case "isbn" -> request.setIsbn(value);
+                case "title" -> request.setTitle(value);
+                case "description" -> request.setDescription(value);
+                case "publicationYear" -> request.setPublicationYear(parseInt(column, value));
+                case "publisher" -> request.setPublisher(value);
+                case "totalCopies" -> request.setTotalCopies(parseInt(column, value));
+                case "availableCopies" -> request.setAvailableCopies(parseInt(column, value));
+                case "authorFirstName" -> request.setAuthorFirstName(value);
+                case "authorLastName" -> request.setAuthorLastName(value);
+                case "authorBiography" -> request.setAuthorBiography(value);
+                case "categoryName" -> request.setCategoryName(value);
+                case "categoryDescription" -> request.setCategoryDescription(value);
+                default -> {
+                    // colonne inconnue ignoree
+                }
+            }
+        }
+        return request;
+    }
+
+    private static Integer parseInt(String column, String value) {
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(column + " is not a number");
+        }
+    }
+
+    private record FeedRecord(int line, CreateBookRequest request) {
+    }
+
+    private record ChunkResult(List<Book> books,
+                               Map<String, Author> newAuthors,
+                               Map<String, Category> newCategories,
+                               int duplicates) {
+    }
+
+    private static final class ImportRun {
+        private final Map<String, Category> categories = new HashMap<>();
+        private final Map<String, Author> authors = new HashMap<>();
+        private final List<String> errors = new ArrayList<>();
+        private long received;
+        private long imported;
+        private long duplicates;
+        private long rejected;
+
+        private void reject(int line, String message) {
+            rejected++;
+            error(line, message);
+        }
+
+        private void error(int line, String message) {
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add("line " + line + ": " + message);
+            }
+        }
+
+        private ImportReport toReport() {
+            return ImportReport.builder()
+                    .received(received)
+                    .imported(imported)
+                    .duplicates(duplicates)
+                    .rejected(rejected)
+                    .errors(errors)
+                    .build();
+        }
+    }
+}
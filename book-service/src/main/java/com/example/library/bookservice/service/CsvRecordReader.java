@@ -0,0 +1,87 @@
+package com.example.library.bookservice.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lecteur CSV minimal (RFC 4180) : separateur virgule, champs entre guillemets
+ * pouvant contenir virgules, guillemets doubles et retours a la ligne.
+ *
+ * @since 1.1
+ */
+class CsvRecordReader {
+    private final BufferedReader reader;
+    private int line = 1;
+    private int recordLine;
+
+    CsvRecordReader(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Numero de la ligne ou commence le dernier enregistrement lu.
+     *
+     * @return numero de ligne (a partir de 1).
+     */
+    int getRecordLine() {
+        return recordLine;
+    }
+
+    /**
+     * Lit l'enregistrement suivant.
+     *
+     * @return champs de l'enregistrement, ou null en fin de flux.
+     * @throws IOException en cas d'erreur de lecture ou de guillemet non ferme.
+     */
+    List<String> next() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean any = false;
+        recordLine = line;
+        int c;
+        while ((c = reader.read()) != -1) {
+            any = true;
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int following = reader.read();
+                    if (following == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        if (following != -1) {
+                            reader.reset();
+                        }
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                line++;
+                fields.add(field.toString());
+                return fields;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+        if (quoted) {
+            throw new IOException("Unterminated quoted field starting at line " + recordLine);
+        }
+        if (!any) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
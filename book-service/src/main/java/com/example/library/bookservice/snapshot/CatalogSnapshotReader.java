@@ -0,0 +1,180 @@
+package com.example.library.bookservice.snapshot;
+
+import com.example.library.bookservice.model.Author;
+import com.example.library.bookservice.model.Book;
+import com.example.library.bookservice.model.Category;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Relit un snapshot ecrit par {@link CatalogSnapshotWriter} via un fichier projete en memoire.
+ *
+ * <p>Chaque colonne est lue par son propre curseur sur la zone projetee ; les livres sont
+ * reconstruits hors JPA (entites detachees), auteurs et categories etant partages via
+ * les dictionnaires.</p>
+ *
+ * @since 1.1
+ */
+final class CatalogSnapshotReader {
+    private CatalogSnapshotReader() {}
+
+    /**
+     * Lit et verifie un snapshot.
+     *
+     * @param file fichier snapshot.
+     * @return contenu du snapshot.
+     * @throws IOException si le fichier est illisible, tronque ou corrompu.
+     */
+    static CatalogSnapshot read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < CatalogSnapshotWriter.MAGIC.length + 4 || length > Integer.MAX_VALUE) {
+                throw new IOException("Invalid snapshot size: " + length);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            verifyChecksum(mapped, (int) length);
+            ByteBuffer buffer = mapped.slice(0, (int) length - 4);
+            for (byte expected : CatalogSnapshotWriter.MAGIC) {
+                if (buffer.get() != expected) {
+                    throw new IOException("Not a catalog snapshot: " + file);
+                }
+            }
+            ByteBuffer header = section(buffer);
+            long createdAt = readVarLong(header);
+            int rowCount = Math.toIntExact(readVarLong(header));
+            int categoryCount = Math.toIntExact(readVarLong(header));
+            int publisherCount = Math.toIntExact(readVarLong(header));
+            int authorCount = Math.toIntExact(readVarLong(header));
+
+            ByteBuffer categorySection = section(buffer);
+            List<Category> categories = new ArrayList<>(categoryCount);
+            for (int i = 0; i < categoryCount; i++) {
+                categories.add(Category.builder()
+                        .id(readVarLong(categorySection))
+                        .name(readNullableString(categorySection))
+                        .description(readNullableString(categorySection))
+                        .build());
+            }
+            ByteBuffer publisherSection = section(buffer);
+            List<String> publishers = new ArrayList<>(publisherCount);
+            for (int i = 0; i < publisherCount; i++) {
+                publishers.add(readNullableString(publisherSection));
+            }
+            ByteBuffer authorSection = section(buffer);
+            List<Author> authors = new ArrayList<>(authorCount);
+            for (int i = 0; i < authorCount; i++) {
+                authors.add(Author.builder()
+                        .id(readVarLong(authorSection))
+                        .firstName(readNullableString(authorSection))
+                        .lastName(readNullableString(authorSection))
+                        .biography(readNullableString(authorSection))
+                        .build());
+            }
+
+            ByteBuffer ids = section(buffer);
+            ByteBuffer versions = section(buffer);
+            ByteBuffer isbns = section(buffer);
+            ByteBuffer titles = section(buffer);
+            ByteBuffer descriptions = section(buffer);
+            ByteBuffer years = section(buffer);
+            ByteBuffer publisherRefs = section(buffer);
+            ByteBuffer totals = section(buffer);
+            ByteBuffer availables = section(buffer);
+            ByteBuffer authorRefs = section(buffer);
+            ByteBuffer categoryRefs = section(buffer);
+
+            List<Book> books = new ArrayList<>(rowCount);
+            long id = 0;
+            for (int i = 0; i < rowCount; i++) {
+                id += readVarLong(ids);
+                int publisherRef = (int) readVarLong(publisherRefs);
+                int authorRef = (int) readVarLong(authorRefs);
+                int categoryRef = (int) readVarLong(categoryRefs);
+                books.add(Book.builder()
+                        .id(id)
+                        .version(readVarLong(versions))
+                        .isbn(readNullableString(isbns))
+                        .title(readNullableString(titles))
+                        .description(readNullableString(descriptions))
+                        .publicationYear(readNullableInt(years))
+                        .publisher(publisherRef == 0 ? null : publishers.get(publisherRef - 1))
+                        .totalCopies((int) readVarLong(totals))
+                        .availableCopies((int) readVarLong(availables))
+                        .author(authorRef == 0 ? null : authors.get(authorRef - 1))
+                        .category(categoryRef == 0 ? null : categories.get(categoryRef - 1))
+                        .build());
+            }
+            return new CatalogSnapshot(createdAt, books);
+        } catch (RuntimeException ex) {
+            throw new IOException("Corrupted catalog snapshot: " + file, ex);
+        }
+    }
+
+    private static void verifyChecksum(ByteBuffer mapped, int length) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(mapped.slice(0, length - 4));
+        long expected = mapped.getInt(length - 4) & 0xFFFFFFFFL;
+        if (crc.getValue() != expected) {
+            throw new IOException("Catalog snapshot checksum mismatch");
+        }
+    }
+
+    private static ByteBuffer section(ByteBuffer buffer) {
+        int length = Math.toIntExact(readVarLong(buffer));
+        ByteBuffer section = buffer.slice(buffer.position(), length);
+        buffer.position(buffer.position() + length);
+        return section;
+    }
+
+    private static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if (shift > 63) {
+                throw new IllegalStateException("Malformed varint");
+            }
+            b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static Integer readNullableInt(ByteBuffer buffer) {
+        long encoded = readVarLong(buffer);
+        if (encoded == 0) {
+            return null;
+        }
+        long zigZag = encoded - 1;
+        return (int) ((zigZag >>> 1) ^ -(zigZag & 1));
+    }
+
+    private static String readNullableString(ByteBuffer buffer) {
+        int length = Math.toIntExact(readVarLong(buffer));
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length - 1];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Contenu d'un snapshot.
+     *
+     * @param createdAt date d'ecriture (epoch millis).
+     * @param books livres tries par id.
+     */
+    record CatalogSnapshot(long createdAt, List<Book> books) {
+    }
+}
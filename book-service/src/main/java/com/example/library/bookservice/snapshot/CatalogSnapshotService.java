@@ -0,0 +1,161 @@
+package com.example.library.bookservice.snapshot;
+
+import com.example.library.bookservice.model.Book;
+import com.example.library.bookservice.repository.BookRepository;
+import com.example.library.bookservice.repository.BookRow;
+import com.example.library.bookservice.repository.CatalogImportRepository;
+import com.example.library.bookservice.snapshot.CatalogSnapshotReader.CatalogSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Snapshots binaires du catalogue sur disque local : ecriture periodique et chargement
+ * au demarrage.
+ *
+ * <p>Au chargement, le snapshot est rattrape par comparaison des versions de ligne :
+ * une seule requete lit les couples (id, version) et seuls les livres nouveaux ou
+ * modifies depuis le snapshot sont relus en base ; les livres absents sont retires.</p>
+ *
+ * @since 1.1
+ */
+@Component
+public class CatalogSnapshotService {
+    private static final Logger log = LoggerFactory.getLogger(CatalogSnapshotService.class);
+    private static final int CATCH_UP_CHUNK_SIZE = 1000;
+
+    private final BookRepository bookRepository;
+    private final CatalogImportRepository importRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final Path path;
+
+    public CatalogSnapshotService(BookRepository bookRepository,
+                                  CatalogImportRepository importRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${catalog.snapshot.enabled:true}") boolean enabled,
+                                  @Value("${catalog.snapshot.path:data/catalog.snapshot}") Path path) {
+        this.bookRepository = bookRepository;
+        this.importRepository = importRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.path = path;
+    }
+
+    /**
+     * Ecrit periodiquement un snapshot du catalogue.
+     */
+    @Scheduled(fixedDelayString = "${catalog.snapshot.interval-ms:900000}",
+            initialDelayString = "${catalog.snapshot.interval-ms:900000}")
+    public void scheduledWrite() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            write();
+        } catch (RuntimeException | IOException ex) {
+            log.warn("Catalog snapshot write failed", ex);
+        }
+    }
+
+    /**
+     * Ecrit un snapshot du catalogue (curseur base de donnees, sans entites gerees).
+     *
+     * @throws IOException en cas d'erreur d'ecriture.
+     */
+    public void write() throws IOException {
+        long createdAt = System.currentTimeMillis();
+        CatalogSnapshotWriter writer = new CatalogSnapshotWriter();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<BookRow> rows = bookRepository.streamAll()) {
+                rows.forEach(writer::add);
+            }
+        });
+        writer.writeTo(path, createdAt);
+        log.info("Catalog snapshot written with {} books to {}", writer.getRowCount(), path);
+    }
+
+    /**
+     * Charge le catalogue depuis le snapshot local, rattrape depuis la base.
+     *
+     * @return livres tries par id, ou vide si aucun snapshot exploitable.
+     */
+    public Optional<List<Book>> load() {
+        if (!enabled || !Files.isRegularFile(path)) {
+            return Optional.empty();
+        }
+        CatalogSnapshot snapshot;
+        try {
+            snapshot = CatalogSnapshotReader.read(path);
+        } catch (IOException ex) {
+            log.warn("Ignoring unreadable catalog snapshot {}", path, ex);
+            return Optional.empty();
+        }
+
+        Map<Long, Book> books = new TreeMap<>();
+        for (Book book : snapshot.books()) {
+            books.put(book.getId(), book);
+        }
+        Map<Long, Long> versions = new HashMap<>();
+        importRepository.forEachVersion(versions::put);
+
+        List<Long> stale = new ArrayList<>();
+        versions.forEach((id, version) -> {
+            Book known = books.get(id);
+            if (known == null || !version.equals(known.getVersion())) {
+                stale.add(id);
+            }
+        });
+        int removed = books.size();
+        books.keySet().retainAll(versions.keySet());
+        removed -= books.size();
+        for (int from = 0; from < stale.size(); from += CATCH_UP_CHUNK_SIZE) {
+            List<Long> chunk = stale.subList(from, Math.min(from + CATCH_UP_CHUNK_SIZE, stale.size()));
+            for (Book book : bookRepository.findAllWithAssociationsByIdIn(chunk)) {
+                books.put(book.getId(), book);
+            }
+        }
+        log.info("Catalog snapshot loaded with {} books ({} refreshed, {} removed since snapshot)",
+                books.size(), stale.size(), removed);
+        return Optional.of(new ArrayList<>(books.values()));
+    }
+
+    /**
+     * Retourne le dernier snapshot ecrit, pour export en masse.
+     *
+     * @return chemin du snapshot s'il existe.
+     */
+    public Optional<Path> latest() {
+        return enabled && Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    /**
+     * Ecrit un snapshot si aucun n'existe encore (premier demarrage).
+     */
+    public void writeIfMissing() {
+        if (enabled && !Files.isRegularFile(path)) {
+            try {
+                write();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+}
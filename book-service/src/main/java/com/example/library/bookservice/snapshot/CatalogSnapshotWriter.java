@@ -0,0 +1,163 @@
+package com.example.library.bookservice.snapshot;
+
+import com.example.library.bookservice.repository.BookRow;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Encode le catalogue en snapshot binaire colonne par colonne.
+ *
+ * <p>Format : magie {@code BKSNAP01}, puis des sections prefixees par leur taille (varint) :
+ * en-tete (date, nombre de lignes), dictionnaires (categories, editeurs, auteurs), puis une
+ * colonne par champ. Les ids sont croissants et encodes en delta ; categories, editeurs et
+ * auteurs sont remplaces par leur indice dans le dictionnaire. Un CRC32 termine le fichier.</p>
+ *
+ * @since 1.1
+ */
+final class CatalogSnapshotWriter {
+    static final byte[] MAGIC = "BKSNAP01".getBytes(StandardCharsets.US_ASCII);
+
+    private final Map<Long, Integer> categoryIndex = new LinkedHashMap<>();
+    private final Map<String, Integer> publisherIndex = new LinkedHashMap<>();
+    private final Map<Long, Integer> authorIndex = new LinkedHashMap<>();
+    private final SnapshotBuffer categories = new SnapshotBuffer(1 << 10);
+    private final SnapshotBuffer publishers = new SnapshotBuffer(1 << 10);
+    private final SnapshotBuffer authors = new SnapshotBuffer(1 << 12);
+    private final SnapshotBuffer ids = new SnapshotBuffer(1 << 12);
+    private final SnapshotBuffer versions = new SnapshotBuffer(1 << 12);
+    private final SnapshotBuffer isbns = new SnapshotBuffer(1 << 14);
+    private final SnapshotBuffer titles = new SnapshotBuffer(1 << 14);
+    private final SnapshotBuffer descriptions = new SnapshotBuffer(1 << 16);
+    private final SnapshotBuffer years = new SnapshotBuffer(1 << 12);
+    private final SnapshotBuffer publisherRefs = new SnapshotBuffer(1 << 12);
+    private final SnapshotBuffer totals = new SnapshotBuffer(1 << 12);
+    private final SnapshotBuffer availables = new SnapshotBuffer(1 << 12);
+    private final SnapshotBuffer authorRefs = new SnapshotBuffer(1 << 12);
+    private final SnapshotBuffer categoryRefs = new SnapshotBuffer(1 << 12);
+    private long rowCount;
+    private long lastId;
+
+    /**
+     * Ajoute une ligne ; les lignes doivent arriver par id croissant.
+     *
+     * @param row livre projete.
+     */
+    void add(BookRow row) {
+        if (row.id() <= lastId) {
+            throw new IllegalArgumentException("Rows must be sorted by increasing id");
+        }
+        ids.writeVarLong(row.id() - lastId);
+        lastId = row.id();
+        versions.writeVarLong(row.version() != null ? row.version() : 0L);
+        isbns.writeNullableString(row.isbn());
+        titles.writeNullableString(row.title());
+        descriptions.writeNullableString(row.description());
+        years.writeNullableInt(row.publicationYear());
+        publisherRefs.writeVarLong(publisherRef(row.publisher()));
+        totals.writeVarLong(row.totalCopies());
+        availables.writeVarLong(row.availableCopies());
+        authorRefs.writeVarLong(authorRef(row));
+        categoryRefs.writeVarLong(categoryRef(row));
+        rowCount++;
+    }
+
+    /**
+     * Ecrit le snapshot dans un fichier temporaire puis le renomme atomiquement.
+     *
+     * @param target fichier cible.
+     * @param createdAt date du snapshot (epoch millis).
+     * @throws IOException en cas d'erreur d'ecriture.
+     */
+    void writeTo(Path target, long createdAt) throws IOException {
+        Path directory = target.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+        try {
+            CRC32 crc = new CRC32();
+            try (OutputStream file = Files.newOutputStream(temp);
+                 BufferedOutputStream buffered = new BufferedOutputStream(file, 1 << 16)) {
+                CheckedOutputStream out = new CheckedOutputStream(buffered, crc);
+                out.write(MAGIC);
+                SnapshotBuffer header = new SnapshotBuffer(32);
+                header.writeVarLong(createdAt);
+                header.writeVarLong(rowCount);
+                header.writeVarLong(categoryIndex.size());
+                header.writeVarLong(publisherIndex.size());
+                header.writeVarLong(authorIndex.size());
+                for (SnapshotBuffer section : List.of(header, categories, publishers, authors, ids, versions,
+                        isbns, titles, descriptions, years, publisherRefs, totals, availables, authorRefs,
+                        categoryRefs)) {
+                    SnapshotBuffer length = new SnapshotBuffer(16);
+                    length.writeVarLong(section.size());
+                    length.writeTo(out);
+                    section.writeTo(out);
+                }
+                long checksum = crc.getValue();
+                buffered.write(new byte[] {
+                        (byte) (checksum >>> 24), (byte) (checksum >>> 16), (byte) (checksum >>> 8), (byte) checksum});
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    long getRowCount() {
+        return rowCount;
+    }
+
+    private long publisherRef(String publisher) {
+        if (publisher == null) {
+            return 0;
+        }
+        Integer index = publisherIndex.get(publisher);
+        if (index == null) {
+            index = publisherIndex.size();
+            publisherIndex.put(publisher, index);
+            publishers.writeNullableString(publisher);
+        }
+        return index + 1L;
+    }
+
+    private long authorRef(BookRow row) {
+        if (row.authorId() == null) {
+            return 0;
+        }
+        Integer index = authorIndex.get(row.authorId());
+        if (index == null) {
+            index = authorIndex.size();
+            authorIndex.put(row.authorId(), index);
+            authors.writeVarLong(row.authorId());
+            authors.writeNullableString(row.authorFirstName());
+            authors.writeNullableString(row.authorLastName());
+            authors.writeNullableString(row.authorBiography());
+        }
+        return index + 1L;
+    }
+
+    private long categoryRef(BookRow row) {
+        if (row.categoryId() == null) {
+            return 0;
+        }
+        Integer index = categoryIndex.get(row.categoryId());
+        if (index == null) {
+            index = categoryIndex.size();
+            categoryIndex.put(row.categoryId(), index);
+            categories.writeVarLong(row.categoryId());
+            categories.writeNullableString(row.categoryName());
+            categories.writeNullableString(row.categoryDescription());
+        }
+        return index + 1L;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.library.bookservice.snapshot;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Tampon d'octets extensible avec encodage varint (LEB128) pour une colonne de snapshot.
+ *
+ * @since 1.1
+ */
+final class SnapshotBuffer {
+    private byte[] bytes;
+    private int size;
+
+    SnapshotBuffer(int initialCapacity) {
+        this.bytes = new byte[Math.max(16, initialCapacity)];
+    }
+
+    void writeVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        writeByte((int) value);
+    }
+
+    /**
+     * Entier optionnel : 0 pour null, sinon zigzag(valeur) + 1.
+     */
+    void writeNullableInt(Integer value) {
+        writeVarLong(value == null ? 0 : ((long) value << 1 ^ (long) value >> 63) + 1);
+    }
+
+    /**
+     * Chaine optionnelle : longueur + 1 en varint (0 pour null), puis UTF-8.
+     */
+    void writeNullableString(String value) {
+        if (value == null) {
+            writeVarLong(0);
+            return;
+        }
+        byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(encoded.length + 1L);
+        ensureCapacity(encoded.length);
+        System.arraycopy(encoded, 0, bytes, size, encoded.length);
+        size += encoded.length;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void writeTo(OutputStream out) throws IOException {
+        out.write(bytes, 0, size);
+    }
+
+    private void writeByte(int value) {
+        ensureCapacity(1);
+        bytes[size++] = (byte) value;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (size + extra > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.library.bookservice.support;
+
+import com.example.library.bookservice.exception.VersionConflictException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Execution transactionnelle avec reprise bornee sur conflit de version (verrouillage optimiste).
+ *
+ * <p>Chaque tentative s'execute dans une nouvelle transaction ; entre deux tentatives,
+ * l'attente est tiree au hasard entre 0 et un plafond exponentiel (« full jitter ») pour
+ * desynchroniser les ecrivains concurrents. Les conflits sont comptes par operation et
+ * par livre ({@code books.version.conflicts}, {@code books.version.conflicts.by.book}).</p>
+ *
+ * @since 1.1
+ */
+@Component
+public class OptimisticLockRetry {
+    public static final String CONFLICTS_BY_BOOK = "books.version.conflicts.by.book";
+
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+
+    public OptimisticLockRetry(PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${catalog.concurrency.max-attempts:5}") int maxAttempts,
+                               @Value("${catalog.concurrency.initial-backoff-ms:10}") long initialBackoffMs,
+                               @Value("${catalog.concurrency.max-backoff-ms:200}") long maxBackoffMs) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+    }
+
+    /**
+     * Execute l'action dans une transaction, reprise sur conflit si elle est rejouable.
+     *
+     * @param operation nom de l'operation (tag de metrique).
+     * @param bookId livre concerne.
+     * @param retryable true si l'action peut etre rejouee sur l'etat courant (variations).
+     * @param action action transactionnelle.
+     * @param <T> type du resultat.
+     * @return resultat de l'action.
+     * @throws VersionConflictException si le conflit persiste ou si l'action n'est pas rejouable.
+     */
+    public <T> T execute(String operation, Long bookId, boolean retryable, Supplier<T> action) {
+        int attempts = retryable ? maxAttempts : 1;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> action.get());
+            } catch (OptimisticLockingFailureException ex) {
+                if (attempt >= attempts) {
+                    recordConflict(operation, bookId, "rejected");
+                    throw new VersionConflictException(bookId);
+                }
+                recordConflict(operation, bookId, "retried");
+                backoff(attempt);
+            }
+        }
+    }
+
+    /**
+     * Enregistre un conflit non repris (version attendue perimee, ecriture refusee).
+     *
+     * @param operation nom de l'operation.
+     * @param bookId livre concerne.
+     */
+    public void recordRejected(String operation, Long bookId) {
+        recordConflict(operation, bookId, "rejected");
+    }
+
+    private void recordConflict(String operation, Long bookId, String outcome) {
+        Counter.builder("books.version.conflicts")
+                .description("Optimistic locking conflicts on books")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+        Counter.builder(CONFLICTS_BY_BOOK)
+                .description("Optimistic locking conflicts per book (hot rows)")
+                .tag("bookId", String.valueOf(bookId))
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private void backoff(int attempt) {
+        long ceiling = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempt - 1, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying book update", ex);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.library.bookservice.support;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compte les instructions SQL envoyees pendant une requete HTTP, quel que soit le client
+ * (Hibernate ou JdbcTemplate) : l'increment est fait par {@link StatementCountingDataSource}.
+ *
+ * <p>Le compteur est attache au thread de la requete entre {@link #start()} et
+ * {@link #detach()} ; {@link #propagate(Runnable)} le transmet aux taches asynchrones
+ * lancees par la requete (corps {@code StreamingResponseBody} par exemple), dont les
+ * instructions sont ainsi imputees a la meme requete.</p>
+ *
+ * @since 1.1
+ */
+public final class SqlStatementCounter {
+    private static final ThreadLocal<AtomicInteger> CURRENT = new ThreadLocal<>();
+
+    private SqlStatementCounter() {
+    }
+
+    /**
+     * Demarre le comptage pour le thread courant.
+     *
+     * @return compteur de la requete, a lire une fois la requete terminee.
+     */
+    public static AtomicInteger start() {
+        AtomicInteger count = new AtomicInteger();
+        CURRENT.set(count);
+        return count;
+    }
+
+    /**
+     * Detache le compteur du thread courant (le compteur reste valable pour les taches
+     * asynchrones qui l'ont recu).
+     */
+    public static void detach() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Compte une instruction pour le compteur attache au thread courant, s'il y en a un.
+     */
+    public static void increment() {
+        AtomicInteger count = CURRENT.get();
+        if (count != null) {
+            count.incrementAndGet();
+        }
+    }
+
+    /**
+     * Attache a une tache le compteur du thread qui la soumet.
+     *
+     * @param task tache a executer sur un autre thread.
+     * @return tache qui compte ses instructions pour la requete d'origine.
+     */
+    public static Runnable propagate(Runnable task) {
+        AtomicInteger count = CURRENT.get();
+        if (count == null) {
+            return task;
+        }
+        return () -> {
+            AtomicInteger previous = CURRENT.get();
+            CURRENT.set(count);
+            try {
+                task.run();
+            } finally {
+                if (previous != null) {
+                    CURRENT.set(previous);
+                } else {
+                    CURRENT.remove();
+                }
+            }
+        };
+    }
+}
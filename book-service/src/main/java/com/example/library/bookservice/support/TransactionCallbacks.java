@@ -0,0 +1,69 @@
+package com.example.library.bookservice.support;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Execution d'actions apres le commit de la transaction courante.
+ *
+ * @since 1.1
+ */
+public final class TransactionCallbacks {
+    private TransactionCallbacks() {}
+
+    /**
+     * Execute l'action apres le commit, ou immediatement hors transaction.
+     *
+     * @param action action a executer.
+     */
+    public static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Execute l'action a la fin de la transaction courante (commit ou rollback), ou
+     * immediatement hors transaction.
+     *
+     * @param action action a executer.
+     */
+    public static void afterCompletion(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Execute l'action si la transaction courante est annulee ; sans effet hors transaction.
+     *
+     * @param action action de compensation.
+     */
+    public static void afterRollback(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    action.run();
+                }
+            }
+        });
+    }
+}
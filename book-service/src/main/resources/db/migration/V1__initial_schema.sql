@@ -0,0 +1,40 @@
+-- Schema du Book Service tel que cree jusqu'ici par Hibernate (ddl-auto: update).
+-- "if not exists" : une base existante est reprise telle quelle (baseline-version 0).
+
+create table if not exists authors (
+    id bigint generated by default as identity primary key,
+    first_name varchar(255) not null,
+    last_name varchar(255) not null,
+    biography varchar(2000),
+    identity_key varchar(600)
+);
+
+alter table authors add column if not exists identity_key varchar(600);
+
+create table if not exists categories (
+    id bigint generated by default as identity primary key,
+    name varchar(255) not null unique,
+    description varchar(1000)
+);
+
+create table if not exists books (
+    id bigint generated by default as identity primary key,
+    isbn varchar(255) not null unique,
+    title varchar(255) not null,
+    description varchar(4000),
+    publication_year integer,
+    publisher varchar(255),
+    total_copies integer not null,
+    available_copies integer not null,
+    author_id bigint references authors (id),
+    category_id bigint references categories (id),
+    version bigint default 0 not null
+);
+
+alter table books add column if not exists version bigint default 0 not null;
+
+-- Identite normalisee des auteurs : cible de "on conflict (identity_key)".
+create unique index if not exists idx_authors_identity_key on authors (identity_key);
+
+-- Version globale du catalogue (non transactionnelle, partagee entre instances).
+create sequence if not exists catalog_version_seq;
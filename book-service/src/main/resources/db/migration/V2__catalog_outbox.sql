@@ -0,0 +1,16 @@
+-- Outbox des mutations du catalogue : la sequence n'est attribuee qu'a la publication
+-- par le relais, dans l'ordre de publication.
+
+create table if not exists catalog_outbox (
+    id bigserial primary key,
+    book_id bigint not null,
+    event_type varchar(32) not null,
+    payload text,
+    created_at timestamptz not null default now(),
+    sequence bigint unique,
+    published_at timestamptz
+);
+
+create index if not exists idx_catalog_outbox_pending on catalog_outbox (id) where sequence is null;
+
+create sequence if not exists catalog_outbox_seq;
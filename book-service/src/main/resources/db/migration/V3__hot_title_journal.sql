@@ -0,0 +1,18 @@
+-- Journal des variations de copies des titres chauds (insere avant l'acquittement,
+-- reporte sur books par lot) et baux designant l'instance proprietaire de chaque titre.
+
+create table if not exists hot_title_journal (
+    id bigserial primary key,
+    book_id bigint not null,
+    delta_available integer not null,
+    delta_total integer not null,
+    created_at timestamptz not null default now()
+);
+
+create index if not exists idx_hot_title_journal_book on hot_title_journal (book_id);
+
+create table if not exists hot_title_leases (
+    book_id bigint primary key,
+    owner varchar(64) not null,
+    expires_at timestamptz not null
+);
@@ -0,0 +1,7 @@
+-- Accuses de reception des lots de variations de copies, par cle d'idempotence.
+
+create table if not exists copies_batch_receipts (
+    batch_id varchar(64) primary key,
+    results text,
+    created_at timestamptz not null default now()
+);
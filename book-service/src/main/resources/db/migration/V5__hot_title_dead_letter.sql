@@ -0,0 +1,11 @@
+-- Variations journalisees de titres chauds refusees par books lors du report (stock
+-- incoherent ou livre supprime), conservees pour reprise manuelle.
+
+create table if not exists hot_title_dead_letter (
+    id bigserial primary key,
+    book_id bigint not null,
+    delta_available integer not null,
+    delta_total integer not null,
+    reason varchar(32) not null,
+    failed_at timestamptz not null default now()
+);
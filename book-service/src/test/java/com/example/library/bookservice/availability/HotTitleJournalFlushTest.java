@@ -0,0 +1,208 @@
+package com.example.library.bookservice.availability;
+
+import com.example.library.bookservice.TestcontainersConfiguration;
+import com.example.library.bookservice.cache.BookDtoCache;
+import com.example.library.bookservice.dto.BookDto;
+import com.example.library.bookservice.exception.HotTitleOwnedElsewhereException;
+import com.example.library.bookservice.outbox.CatalogChangeRecorder;
+import com.example.library.bookservice.repository.BookCopiesBatchRepository;
+import com.example.library.bookservice.repository.CatalogOutboxRepository;
+import com.example.library.bookservice.repository.CatalogVersionRepository;
+import com.example.library.bookservice.repository.HotTitleJournalRepository;
+import com.example.library.bookservice.search.FacetIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.json.JsonMapper;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Verifie le journal des titres chauds : variations journalisees puis reportees une seule
+ * fois sur {@code books}, cumul refuse conserve en dead letter avec rechargement du
+ * compteur, report et liberation du bail a l'arret, refus hors bail.
+ *
+ * <p>Les transactions sont reellement validees : le report s'execute dans sa propre
+ * transaction et doit voir les livres inseres par le test.</p>
+ */
+@DataJpaTest
+@Import(TestcontainersConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class HotTitleJournalFlushTest {
+    private static final AtomicInteger ISBN_SEQUENCE = new AtomicInteger();
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private JdbcTemplate jdbcTemplate;
+    private final List<HotTitleAvailability> instances = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @AfterEach
+    void shutdown() {
+        instances.forEach(HotTitleAvailability::shutdown);
+    }
+
+    @Test
+    void adjustmentsAreJournaledThenFlushedOnce() {
+        Long bookId = insertBook(5, 5);
+        HotTitleAvailability hotTitles = hotTitles(bookId);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(hotTitles.adjust(bookId, -1, 0).applied()).isTrue();
+        }
+
+        assertThat(copies(bookId)).containsEntry("available_copies", 5);
+        assertThat(journaledDelta(bookId)).isEqualTo(-3);
+
+        hotTitles.flush();
+
+        assertThat(copies(bookId)).containsEntry("available_copies", 2).containsEntry("total_copies", 5);
+        assertThat(journaledDelta(bookId)).isZero();
+        assertThat(countRows("select count(*) from catalog_outbox where book_id = ? and event_type = 'COPIES_UPDATED'",
+                bookId)).isEqualTo(1);
+
+        hotTitles.flush();
+
+        assertThat(copies(bookId)).containsEntry("available_copies", 2);
+        assertThat(hotTitles.withCurrentCopies(book(bookId)).getAvailableCopies()).isEqualTo(2);
+    }
+
+    @Test
+    void reservationBeyondStockIsRejectedWithoutJournal() {
+        Long bookId = insertBook(1, 1);
+        HotTitleAvailability hotTitles = hotTitles(bookId);
+
+        assertThat(hotTitles.adjust(bookId, -1, 0).applied()).isTrue();
+        HotTitleAvailability.Adjustment refused = hotTitles.adjust(bookId, -1, 0);
+
+        assertThat(refused.applied()).isFalse();
+        assertThat(refused.counts().availableCopies()).isZero();
+        assertThat(countRows("select count(*) from hot_title_journal where book_id = ?", bookId)).isEqualTo(1);
+    }
+
+    @Test
+    void refusedDeltaIsDeadLetteredAndCounterReloaded() {
+        Long bookId = insertBook(3, 3);
+        HotTitleAvailability hotTitles = hotTitles(bookId);
+        assertThat(hotTitles.adjust(bookId, -2, 0).applied()).isTrue();
+        jdbcTemplate.update("update books set available_copies = 1 where id = ?", bookId);
+
+        hotTitles.flush();
+
+        assertThat(copies(bookId)).containsEntry("available_copies", 1);
+        assertThat(journaledDelta(bookId)).isZero();
+        assertThat(jdbcTemplate.queryForMap(
+                "select delta_available, delta_total, reason from hot_title_dead_letter where book_id = ?", bookId))
+                .containsEntry("delta_available", -2)
+                .containsEntry("delta_total", 0)
+                .containsEntry("reason", "REJECTED");
+        assertThat(hotTitles.withCurrentCopies(book(bookId)).getAvailableCopies()).isEqualTo(1);
+    }
+
+    @Test
+    void deltaOfDeletedBookIsDeadLetteredAndCounterRetired() {
+        Long bookId = insertBook(2, 2);
+        HotTitleAvailability hotTitles = hotTitles(bookId);
+        assertThat(hotTitles.adjust(bookId, -1, 0).applied()).isTrue();
+        jdbcTemplate.update("delete from books where id = ?", bookId);
+
+        hotTitles.flush();
+
+        assertThat(jdbcTemplate.queryForObject(
+                "select reason from hot_title_dead_letter where book_id = ?", String.class, bookId))
+                .isEqualTo("NOT_FOUND");
+        assertThat(hotTitles.adjust(bookId, -1, 0)).isNull();
+    }
+
+    @Test
+    void shutdownFlushesJournalAndReleasesLease() {
+        Long bookId = insertBook(4, 4);
+        HotTitleAvailability hotTitles = hotTitles(bookId);
+        assertThat(hotTitles.adjust(bookId, -1, 0).applied()).isTrue();
+
+        hotTitles.shutdown();
+
+        assertThat(copies(bookId)).containsEntry("available_copies", 3);
+        assertThat(journaledDelta(bookId)).isZero();
+        assertThat(countRows("select count(*) from hot_title_leases where book_id = ?", bookId)).isZero();
+    }
+
+    @Test
+    void instanceWithoutLeaseRefusesAdjustments() {
+        Long bookId = insertBook(4, 4);
+        HotTitleAvailability owner = hotTitles(bookId);
+        HotTitleAvailability other = hotTitles(bookId);
+
+        assertThatThrownBy(() -> other.adjust(bookId, -1, 0))
+                .isInstanceOf(HotTitleOwnedElsewhereException.class);
+        assertThat(owner.adjust(bookId, -1, 0).applied()).isTrue();
+        assertThat(journaledDelta(bookId)).isEqualTo(-1);
+    }
+
+    private HotTitleAvailability hotTitles(Long bookId) {
+        HotTitleAvailability hotTitles = new HotTitleAvailability(
+                new BookCopiesBatchRepository(jdbcTemplate),
+                new HotTitleJournalRepository(jdbcTemplate),
+                new CatalogVersionRepository(jdbcTemplate),
+                new CatalogChangeRecorder(new CatalogOutboxRepository(jdbcTemplate), JsonMapper.builder().build()),
+                new BookDtoCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(1)),
+                new FacetIndex(),
+                transactionManager,
+                new SimpleMeterRegistry(),
+                true,
+                Set.of(bookId),
+                4,
+                Duration.ofSeconds(30));
+        hotTitles.load();
+        instances.add(hotTitles);
+        return hotTitles;
+    }
+
+    private Long insertBook(int available, int total) {
+        return jdbcTemplate.queryForObject(
+                "insert into books (isbn, title, total_copies, available_copies) values (?, ?, ?, ?) returning id",
+                Long.class, "979100000" + ISBN_SEQUENCE.incrementAndGet(), "Hot title", total, available);
+    }
+
+    private Map<String, Object> copies(Long bookId) {
+        return jdbcTemplate.queryForMap("select available_copies, total_copies from books where id = ?", bookId);
+    }
+
+    private int journaledDelta(Long bookId) {
+        return jdbcTemplate.queryForObject(
+                "select coalesce(sum(delta_available), 0) from hot_title_journal where book_id = ?", Integer.class, bookId);
+    }
+
+    private long countRows(String sql, Long bookId) {
+        return jdbcTemplate.queryForObject(sql, Long.class, bookId);
+    }
+
+    private static BookDto book(Long bookId) {
+        return BookDto.builder().id(bookId).build();
+    }
+}
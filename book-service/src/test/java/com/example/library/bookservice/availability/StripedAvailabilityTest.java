@@ -0,0 +1,157 @@
+package com.example.library.bookservice.availability;
+
+import com.example.library.bookservice.availability.StripedAvailability.Outcome;
+import com.example.library.bookservice.repository.BookCopiesBatchRepository.CopyCounts;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifie le compteur reparti en bandes : reservations a cheval sur plusieurs bandes,
+ * refus sans effet, bornes du disponible et absence de survente sous concurrence.
+ */
+class StripedAvailabilityTest {
+
+    @Test
+    void copiesAreSpreadAcrossStripes() {
+        StripedAvailability counter = new StripedAvailability(4, new CopyCounts(10, 15));
+
+        assertThat(counter.available()).isEqualTo(10);
+        assertThat(counter.totalCopies()).isEqualTo(15);
+    }
+
+    @Test
+    void reservationSpanningSeveralStripesIsApplied() {
+        StripedAvailability counter = new StripedAvailability(4, new CopyCounts(10, 10));
+
+        assertThat(counter.transfer(-7)).isEqualTo(Outcome.APPLIED);
+        assertThat(counter.available()).isEqualTo(3);
+        assertThat(counter.transfer(-3)).isEqualTo(Outcome.APPLIED);
+        assertThat(counter.available()).isZero();
+    }
+
+    @Test
+    void reservationBeyondStockIsRejectedWithoutEffect() {
+        StripedAvailability counter = new StripedAvailability(4, new CopyCounts(5, 8));
+
+        assertThat(counter.transfer(-6)).isEqualTo(Outcome.REJECTED);
+        assertThat(counter.available()).isEqualTo(5);
+        assertThat(counter.transfer(-5)).isEqualTo(Outcome.APPLIED);
+    }
+
+    @Test
+    void returnBeyondCheckedOutCopiesIsRejectedWithoutEffect() {
+        StripedAvailability counter = new StripedAvailability(4, new CopyCounts(5, 8));
+
+        assertThat(counter.transfer(4)).isEqualTo(Outcome.REJECTED);
+        assertThat(counter.available()).isEqualTo(5);
+        assertThat(counter.transfer(3)).isEqualTo(Outcome.APPLIED);
+        assertThat(counter.available()).isEqualTo(8);
+    }
+
+    @Test
+    void adjustmentKeepsAvailableWithinTotal() {
+        StripedAvailability counter = new StripedAvailability(4, new CopyCounts(5, 8));
+        counter.lockAll();
+        try {
+            assertThat(counter.adjustLocked(0, -4)).isEqualTo(Outcome.REJECTED);
+            assertThat(counter.adjustLocked(-6, 0)).isEqualTo(Outcome.REJECTED);
+            assertThat(counter.adjustLocked(2, 2)).isEqualTo(Outcome.APPLIED);
+        } finally {
+            counter.unlockAll();
+        }
+
+        assertThat(counter.available()).isEqualTo(7);
+        assertThat(counter.totalCopies()).isEqualTo(10);
+    }
+
+    @Test
+    void retiredCounterRefusesTransfers() {
+        StripedAvailability counter = new StripedAvailability(4, new CopyCounts(5, 5));
+        counter.lockAll();
+        counter.retireLocked();
+        counter.unlockAll();
+
+        assertThat(counter.transfer(-1)).isEqualTo(Outcome.RETIRED);
+        assertThat(counter.available()).isEqualTo(5);
+    }
+
+    @Test
+    void concurrentReservationsNeverOversell() throws Exception {
+        int copies = 1000;
+        int threads = 8;
+        StripedAvailability counter = new StripedAvailability(16, new CopyCounts(copies, copies));
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> reserved = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                reserved.add(executor.submit(() -> {
+                    start.await();
+                    int applied = 0;
+                    for (int i = 0; i < 500; i++) {
+                        if (counter.transfer(-1) == Outcome.APPLIED) {
+                            applied++;
+                        }
+                    }
+                    return applied;
+                }));
+            }
+            start.countDown();
+            int total = 0;
+            for (Future<Integer> future : reserved) {
+                total += future.get(30, TimeUnit.SECONDS);
+            }
+
+            assertThat(total).isEqualTo(copies);
+            assertThat(counter.available()).isZero();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void concurrentReservationsAndReturnsKeepTheStockConsistent() throws Exception {
+        int copies = 20;
+        int threads = 8;
+        StripedAvailability counter = new StripedAvailability(16, new CopyCounts(copies, copies));
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                workers.add(executor.submit(() -> {
+                    start.await();
+                    int held = 0;
+                    for (int i = 0; i < 2000; i++) {
+                        if (counter.transfer(-2) == Outcome.APPLIED) {
+                            held += 2;
+                        }
+                        if (held > 0 && counter.transfer(1) == Outcome.APPLIED) {
+                            held--;
+                        }
+                    }
+                    return held;
+                }));
+            }
+            start.countDown();
+            int held = 0;
+            for (Future<Integer> worker : workers) {
+                held += worker.get(30, TimeUnit.SECONDS);
+            }
+
+            assertThat(held).isBetween(0, copies);
+            assertThat(counter.available()).isEqualTo(copies - held);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.library.bookservice.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifie le filtre de Bloom des ISBN : aucun faux negatif, taux de faux positifs proche
+ * de la cible, ISBN ajoutes pendant une reconstruction conserves et metriques publiees.
+ */
+class IsbnBloomFilterTest {
+    private static final int BOOKS = 20_000;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void filterAcceptsEverythingUntilBuilt() {
+        IsbnBloomFilter filter = new IsbnBloomFilter(meterRegistry, 1000, 0.01);
+
+        assertThat(filter.isReady()).isFalse();
+        assertThat(filter.mightContain("9780000000000")).isTrue();
+    }
+
+    @Test
+    void rebuiltFilterHasNoFalseNegatives() {
+        IsbnBloomFilter filter = new IsbnBloomFilter(meterRegistry, 1000, 0.01);
+
+        filter.rebuild(BOOKS, isbns(0, BOOKS));
+
+        assertThat(filter.isReady()).isTrue();
+        assertThat(IntStream.range(0, BOOKS).mapToObj(IsbnBloomFilterTest::isbn))
+                .allMatch(filter::mightContain);
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTarget() {
+        IsbnBloomFilter filter = new IsbnBloomFilter(meterRegistry, 1000, 0.01);
+        filter.rebuild(BOOKS, isbns(0, BOOKS));
+
+        long falsePositives = IntStream.range(BOOKS, 2 * BOOKS)
+                .mapToObj(IsbnBloomFilterTest::isbn)
+                .filter(filter::mightContain)
+                .count();
+
+        // Dimensionne pour le double du catalogue : le taux reel reste sous la cible.
+        assertThat((double) falsePositives / BOOKS).isLessThan(0.01);
+        assertThat(meterRegistry.get("books.isbn.filter.expected.false.positive.rate").gauge().value())
+                .isLessThan(0.01);
+    }
+
+    @Test
+    void addedIsbnIsFound() {
+        IsbnBloomFilter filter = new IsbnBloomFilter(meterRegistry, 1000, 0.01);
+        filter.rebuild(0, source -> { });
+
+        filter.add("9791234567890");
+
+        assertThat(filter.mightContain("9791234567890")).isTrue();
+    }
+
+    @Test
+    void isbnAddedDuringRebuildIsKept() {
+        IsbnBloomFilter filter = new IsbnBloomFilter(meterRegistry, 1000, 0.01);
+
+        filter.rebuild(1, source -> {
+            source.accept(isbn(0));
+            filter.add("9791234567890");
+        });
+
+        assertThat(filter.mightContain(isbn(0))).isTrue();
+        assertThat(filter.mightContain("9791234567890")).isTrue();
+    }
+
+    @Test
+    void lookupsArePublished() {
+        IsbnBloomFilter filter = new IsbnBloomFilter(meterRegistry, 1000, 0.01);
+        filter.rebuild(1, source -> source.accept(isbn(0)));
+
+        List.of(isbn(1), isbn(2), isbn(3)).forEach(filter::mightContain);
+        filter.recordLookup(true);
+        filter.recordLookup(true);
+        filter.recordLookup(true);
+        filter.recordLookup(false);
+
+        assertThat(meterRegistry.get("books.isbn.filter").tag("result", "negative").counter().count())
+                .isBetween(2.0, 3.0);
+        assertThat(meterRegistry.get("books.isbn.filter").tag("result", "true_positive").counter().count())
+                .isEqualTo(3.0);
+        assertThat(meterRegistry.get("books.isbn.filter.false.positive.rate").gauge().value())
+                .isEqualTo(0.25);
+    }
+
+    private static Consumer<Consumer<String>> isbns(int from, int to) {
+        return source -> IntStream.range(from, to).mapToObj(IsbnBloomFilterTest::isbn).forEach(source);
+    }
+
+    private static String isbn(int index) {
+        return String.format("978%010d", index);
+    }
+}
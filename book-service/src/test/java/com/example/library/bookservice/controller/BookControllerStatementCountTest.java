@@ -0,0 +1,173 @@
+package com.example.library.bookservice.controller;
+
+import com.example.library.bookservice.TestcontainersConfiguration;
+import com.example.library.bookservice.cache.BookDtoCache;
+import com.example.library.bookservice.dto.BookDto;
+import com.example.library.bookservice.dto.CreateBookRequest;
+import com.example.library.bookservice.service.BookService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifie, endpoint par endpoint, le nombre d'instructions SQL publie dans
+ * {@code http.server.requests.sql.statements} : lecture par id servie par le cache,
+ * recherche servie par l'index puis une seule relecture, lot de copies en instructions
+ * groupees, quel que soit le nombre de livres concernes.
+ */
+@SpringBootTest(properties = {
+        "eureka.client.enabled=false",
+        "catalog.snapshot.enabled=false",
+        "catalog.hot-titles.enabled=false",
+        "catalog.change-feed.interval-ms=3600000"
+})
+@AutoConfigureMockMvc
+@Import(TestcontainersConfiguration.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@WithMockUser
+class BookControllerStatementCountTest {
+    private static final String METRIC = "http.server.requests.sql.statements";
+    private static final int BOOKS = 5;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookDtoCache bookCache;
+
+    private final List<BookDto> books = new ArrayList<>();
+
+    @BeforeAll
+    void seedCatalog() {
+        for (int i = 0; i < BOOKS; i++) {
+            CreateBookRequest request = new CreateBookRequest();
+            request.setIsbn("979000000000" + i);
+            request.setTitle("Statement Title " + i);
+            request.setTotalCopies(10);
+            request.setAvailableCopies(10);
+            request.setAuthorFirstName("First" + i);
+            request.setAuthorLastName("Last" + i);
+            request.setCategoryName("Category" + i);
+            books.add(bookService.create(request));
+        }
+    }
+
+    @BeforeEach
+    void clearCache() {
+        bookCache.clear();
+    }
+
+    @Test
+    void findByIdIsServedByTheCacheOnceLoaded() throws Exception {
+        String uri = "/api/books/{id}";
+        Long id = books.get(0).getId();
+
+        assertThat(statements("GET", uri, get(uri, id))).as("cache miss").isEqualTo(1);
+        assertThat(statements("GET", uri, get(uri, id))).as("cache hit").isZero();
+    }
+
+    @Test
+    void findByIsbnIsServedByTheCacheOnceLoaded() throws Exception {
+        String uri = "/api/books/isbn/{isbn}";
+        String isbn = books.get(1).getIsbn();
+
+        assertThat(statements("GET", uri, get(uri, isbn))).as("cache miss").isEqualTo(1);
+        assertThat(statements("GET", uri, get(uri, isbn))).as("cache hit").isZero();
+    }
+
+    @Test
+    void searchReadsMatchingRowsInOneStatement() throws Exception {
+        String uri = "/api/books/search";
+
+        assertThat(statements("GET", uri, get(uri).param("q", "statement title"))).isEqualTo(1);
+    }
+
+    @Test
+    void facetedSearchReadsMatchingRowsInOneStatement() throws Exception {
+        String uri = "/api/books/search/facets";
+
+        assertThat(statements("GET", uri, get(uri).param("q", "statement title"))).isEqualTo(1);
+    }
+
+    @Test
+    void pageReadsCatalogVersionAndRows() throws Exception {
+        String uri = "/api/books";
+
+        assertThat(statements("GET", uri, get(uri).param("size", "3"))).isEqualTo(2);
+    }
+
+    @Test
+    void copiesBatchIsAppliedWithGroupedStatements() throws Exception {
+        String uri = "/api/books/copies";
+
+        // Variations, compteurs, outbox, puis version du catalogue apres commit.
+        assertThat(statements("PATCH", uri, copiesBatch(null))).isEqualTo(4);
+    }
+
+    @Test
+    void keyedCopiesBatchIsReplayedFromItsReceipt() throws Exception {
+        String uri = "/api/books/copies";
+        String key = UUID.randomUUID().toString();
+
+        assertThat(statements("PATCH", uri, copiesBatch(key))).as("first send").isEqualTo(6);
+        assertThat(statements("PATCH", uri, copiesBatch(key))).as("replay").isEqualTo(2);
+    }
+
+    private RequestBuilder copiesBatch(String key) {
+        StringBuilder body = new StringBuilder("[");
+        for (BookDto book : books) {
+            if (body.length() > 1) {
+                body.append(',');
+            }
+            body.append("{\"bookId\":").append(book.getId()).append(",\"deltaAvailable\":-1}");
+        }
+        body.append(']');
+        var request = patch("/api/books/copies")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body.toString());
+        return key != null ? request.header("Idempotency-Key", key) : request;
+    }
+
+    private double statements(String method, String uri, RequestBuilder request) throws Exception {
+        DistributionSummary before = summary(method, uri);
+        long count = before != null ? before.count() : 0;
+        double total = before != null ? before.totalAmount() : 0;
+
+        mockMvc.perform(request).andExpect(status().isOk());
+
+        DistributionSummary after = summary(method, uri);
+        assertThat(after).as(METRIC + " " + method + " " + uri).isNotNull();
+        assertThat(after.count()).isEqualTo(count + 1);
+        return after.totalAmount() - total;
+    }
+
+    private DistributionSummary summary(String method, String uri) {
+        return meterRegistry.find(METRIC).tag("method", method).tag("uri", uri).summary();
+    }
+}
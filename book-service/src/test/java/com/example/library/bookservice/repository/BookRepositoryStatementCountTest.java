@@ -0,0 +1,127 @@
+package com.example.library.bookservice.repository;
+
+import com.example.library.bookservice.TestcontainersConfiguration;
+import com.example.library.bookservice.config.SqlStatementCountingConfig;
+import com.example.library.bookservice.model.Author;
+import com.example.library.bookservice.model.Book;
+import com.example.library.bookservice.model.Category;
+import com.example.library.bookservice.support.SqlStatementCounter;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifie que les lectures du catalogue restent a une instruction SQL, quel que soit le
+ * nombre de livres, d'auteurs et de categories (pas de N+1 sur les associations EAGER).
+ */
+@DataJpaTest
+@Import({TestcontainersConfiguration.class, SqlStatementCountingConfig.class})
+class BookRepositoryStatementCountTest {
+    private static final int BOOKS = 5;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @BeforeEach
+    void seedCatalog() {
+        for (int i = 0; i < BOOKS; i++) {
+            Author author = authorRepository.save(Author.builder()
+                    .firstName("First" + i)
+                    .lastName("Last" + i)
+                    .identityKey("first" + i + "\u001flast" + i)
+                    .build());
+            Category category = categoryRepository.save(Category.builder()
+                    .name("Category" + i)
+                    .build());
+            bookRepository.save(Book.builder()
+                    .isbn("978000000000" + i)
+                    .title("Title " + i)
+                    .description("Description " + i)
+                    .totalCopies(3)
+                    .availableCopies(3)
+                    .author(author)
+                    .category(category)
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void findAllRowsIssuesOneStatement() {
+        List<BookRow> rows = countStatements(1, bookRepository::findAllRows);
+
+        assertThat(rows).hasSize(BOOKS);
+        assertThat(rows).allSatisfy(row -> {
+            assertThat(row.authorId()).isNotNull();
+            assertThat(row.categoryId()).isNotNull();
+        });
+    }
+
+    @Test
+    void searchRowsIssuesOneStatement() {
+        List<BookRow> rows = countStatements(1, () -> bookRepository.searchRows("title"));
+
+        assertThat(rows).hasSize(BOOKS);
+    }
+
+    @Test
+    void findPageAfterIssuesOneStatement() {
+        List<BookRow> rows = countStatements(1, () -> bookRepository.findPageAfter(0L, PageRequest.of(0, 3)));
+
+        assertThat(rows).hasSize(3);
+    }
+
+    @Test
+    void findRowByIsbnIssuesOneStatement() {
+        Optional<BookRow> row = countStatements(1, () -> bookRepository.findRowByIsbn("9780000000002"));
+
+        assertThat(row).isPresent();
+        assertThat(row.get().title()).isEqualTo("Title 2");
+    }
+
+    @Test
+    void jdbcTemplateStatementsAreCounted() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+        Long books = countStatements(1, () -> jdbcTemplate.queryForObject("select count(*) from books", Long.class));
+
+        assertThat(books).isEqualTo(BOOKS);
+    }
+
+    private static <T> T countStatements(int expected, Supplier<T> read) {
+        AtomicInteger statements = SqlStatementCounter.start();
+        try {
+            T result = read.get();
+            assertThat(statements.get()).as("SQL statements").isEqualTo(expected);
+            return result;
+        } finally {
+            SqlStatementCounter.detach();
+        }
+    }
+}
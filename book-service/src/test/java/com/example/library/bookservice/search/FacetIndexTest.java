@@ -0,0 +1,178 @@
+package com.example.library.bookservice.search;
+
+import com.example.library.bookservice.dto.FacetCount;
+import com.example.library.bookservice.dto.FacetFilter;
+import com.example.library.bookservice.model.Book;
+import com.example.library.bookservice.model.Category;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Verifie les compteurs et filtres de facettes : intersection avec le resultat, tri et
+ * plafond des valeurs, tranches d'annees, disponibilite et mises a jour incrementales,
+ * compares a un regroupement exhaustif.
+ */
+class FacetIndexTest {
+    private final FacetIndex index = new FacetIndex();
+
+    @Test
+    void countsAreRestrictedToTheResultAndSorted() {
+        index.rebuild(List.of(
+                book(1L, "Roman", "Gallimard", 1995, 2),
+                book(2L, "Roman", "Folio", 1999, 0),
+                book(3L, "Essai", "Gallimard", 2003, 1),
+                book(4L, "Roman", "Gallimard", 2010, 1)));
+
+        FacetIndex.Facets facets = index.count(List.of(1L, 2L, 3L), 10);
+
+        assertThat(facets.categories()).extracting(FacetCount::getValue, FacetCount::getCount)
+                .containsExactly(tuple("Roman", 2L), tuple("Essai", 1L));
+        assertThat(facets.publishers()).extracting(FacetCount::getValue, FacetCount::getCount)
+                .containsExactly(tuple("Gallimard", 2L), tuple("Folio", 1L));
+        assertThat(facets.publicationYears()).extracting(FacetCount::getValue, FacetCount::getCount)
+                .containsExactly(tuple("1990-1999", 2L), tuple("2000-2009", 1L));
+        assertThat(facets.availableNow()).isEqualTo(2);
+    }
+
+    @Test
+    void valuesAreCappedAndTiesOrderedByValue() {
+        index.rebuild(List.of(
+                book(1L, "C", null, null, 1),
+                book(2L, "B", null, null, 1),
+                book(3L, "A", null, null, 1),
+                book(4L, "C", null, null, 1)));
+
+        FacetIndex.Facets facets = index.count(List.of(1L, 2L, 3L, 4L), 2);
+
+        assertThat(facets.categories()).extracting(FacetCount::getValue).containsExactly("C", "A");
+        assertThat(facets.publishers()).isEmpty();
+        assertThat(facets.publicationYears()).isEmpty();
+    }
+
+    @Test
+    void publishersAreTrimmedAndBlankOnesIgnored() {
+        index.rebuild(List.of(
+                book(1L, null, " Seuil ", null, 1),
+                book(2L, null, "Seuil", null, 1),
+                book(3L, null, "   ", null, 1)));
+
+        assertThat(index.count(List.of(1L, 2L, 3L), 10).publishers())
+                .extracting(FacetCount::getValue, FacetCount::getCount)
+                .containsExactly(tuple("Seuil", 2L));
+    }
+
+    @Test
+    void yearBucketsCoverNegativeYears() {
+        index.rebuild(List.of(book(1L, null, null, -50, 1), book(2L, null, null, 0, 1)));
+
+        assertThat(index.count(List.of(1L, 2L), 10).publicationYears())
+                .extracting(FacetCount::getValue)
+                .containsExactly("-50--41", "0-9");
+    }
+
+    @Test
+    void filterKeepsRelevanceOrderAndCombinesFacets() {
+        index.rebuild(List.of(
+                book(1L, "Roman", "Gallimard", 1995, 2),
+                book(2L, "Roman", "Folio", 1999, 0),
+                book(3L, "Essai", "Gallimard", 2003, 1),
+                book(4L, "Roman", "Gallimard", 1991, 0)));
+        List<Long> ranked = List.of(4L, 2L, 1L, 3L);
+
+        assertThat(index.filter(ranked, FacetFilter.builder().build())).isSameAs(ranked);
+        assertThat(index.filter(ranked, FacetFilter.builder().category("Roman").build()))
+                .containsExactly(4L, 2L, 1L);
+        assertThat(index.filter(ranked, FacetFilter.builder().category("Roman").publisher("Gallimard").build()))
+                .containsExactly(4L, 1L);
+        assertThat(index.filter(ranked, FacetFilter.builder().publicationYears("1990-1999").available(true).build()))
+                .containsExactly(1L);
+        assertThat(index.filter(ranked, FacetFilter.builder().available(false).build()))
+                .containsExactly(4L, 2L);
+        assertThat(index.filter(ranked, FacetFilter.builder().category("Poesie").build())).isEmpty();
+    }
+
+    @Test
+    void availabilityUpdatesAreApplied() {
+        index.rebuild(List.of(book(1L, "Roman", null, null, 1), book(2L, "Roman", null, null, 0)));
+
+        index.updateAvailability(1L, 0);
+        index.updateAvailability(2L, 3);
+        index.updateAvailability(99L, 3);
+
+        assertThat(index.filter(List.of(1L, 2L, 99L), FacetFilter.builder().available(true).build()))
+                .containsExactly(2L);
+        assertThat(index.count(List.of(1L, 2L, 99L), 10).availableNow()).isEqualTo(1);
+    }
+
+    @Test
+    void reindexAndRemoveMoveBooksBetweenValues() {
+        index.rebuild(List.of(book(1L, "Roman", "Folio", 1999, 1), book(2L, "Roman", "Folio", 1999, 1)));
+
+        index.index(book(1L, "Essai", "Seuil", 2001, 0));
+        index.remove(2L);
+
+        FacetIndex.Facets facets = index.count(List.of(1L, 2L), 10);
+        assertThat(facets.categories()).extracting(FacetCount::getValue).containsExactly("Essai");
+        assertThat(facets.publishers()).extracting(FacetCount::getValue).containsExactly("Seuil");
+        assertThat(facets.publicationYears()).extracting(FacetCount::getValue).containsExactly("2000-2009");
+        assertThat(facets.availableNow()).isZero();
+        assertThat(index.filter(List.of(1L, 2L), FacetFilter.builder().category("Roman").build())).isEmpty();
+    }
+
+    @Test
+    void countsMatchExhaustiveGrouping() {
+        String[] categories = {"Roman", "Essai", "Poesie", "Theatre", null};
+        String[] publishers = {"Gallimard", "Folio", "Seuil", null};
+        Random random = new Random(7);
+        List<Book> books = new ArrayList<>();
+        for (long id = 1; id <= 2000; id++) {
+            books.add(book(id, categories[random.nextInt(categories.length)],
+                    publishers[random.nextInt(publishers.length)],
+                    random.nextInt(10) == 0 ? null : 1900 + random.nextInt(120),
+                    random.nextInt(3)));
+        }
+        index.rebuild(books);
+        List<Book> result = books.stream().filter(book -> random.nextBoolean()).toList();
+
+        FacetIndex.Facets facets = index.count(result.stream().map(Book::getId).toList(), Integer.MAX_VALUE);
+
+        assertThat(asMap(facets.categories()))
+                .isEqualTo(groupBy(result, book -> book.getCategory() != null ? book.getCategory().getName() : null));
+        assertThat(asMap(facets.publishers())).isEqualTo(groupBy(result, Book::getPublisher));
+        assertThat(asMap(facets.publicationYears())).isEqualTo(groupBy(result, book -> book.getPublicationYear() == null
+                ? null : book.getPublicationYear() / 10 * 10 + "-" + (book.getPublicationYear() / 10 * 10 + 9)));
+        assertThat(facets.availableNow()).isEqualTo(result.stream().filter(book -> book.getAvailableCopies() > 0).count());
+    }
+
+    private static Map<String, Long> asMap(List<FacetCount> counts) {
+        return counts.stream().collect(Collectors.toMap(FacetCount::getValue, FacetCount::getCount));
+    }
+
+    private static Map<String, Long> groupBy(List<Book> books, Function<Book, String> facet) {
+        return books.stream()
+                .map(facet)
+                .filter(value -> value != null)
+                .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+    }
+
+    private static Book book(Long id, String category, String publisher, Integer year, int available) {
+        return Book.builder()
+                .id(id)
+                .title("Title " + id)
+                .publisher(publisher)
+                .publicationYear(year)
+                .availableCopies(available)
+                .totalCopies(Math.max(available, 1))
+                .category(category != null ? Category.builder().id((long) category.hashCode()).name(category).build() : null)
+                .build();
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.library.bookservice.search;
+
+import com.example.library.bookservice.dto.SuggestionDto;
+import com.example.library.bookservice.dto.SuggestionType;
+import com.example.library.bookservice.model.Author;
+import com.example.library.bookservice.model.Book;
+import com.example.library.bookservice.model.Category;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Verifie le trie d'autocompletion : prefixes normalises, debuts de mots, classement par
+ * nombre de livres, mises a jour incrementales et equivalence avec un parcours exhaustif.
+ */
+class SuggestionIndexTest {
+    private final SuggestionIndex index = new SuggestionIndex();
+
+    @Test
+    void prefixIgnoresCaseAndAccents() {
+        index.rebuild(List.of(book(1L, "Les Misérables", "Victor", "Hugo", "Roman")));
+
+        assertThat(index.suggest("LES MIS", 5))
+                .extracting(SuggestionDto::getText, SuggestionDto::getType, SuggestionDto::getBookCount)
+                .containsExactly(tuple("Les Misérables", SuggestionType.TITLE, 1));
+    }
+
+    @Test
+    void suggestionIsFoundFromAnyWordStart() {
+        index.rebuild(List.of(book(1L, "Les Misérables", "Victor", "Hugo", "Roman")));
+
+        assertThat(index.suggest("hug", 5))
+                .extracting(SuggestionDto::getText, SuggestionDto::getType)
+                .containsExactly(tuple("Victor Hugo", SuggestionType.AUTHOR));
+        assertThat(index.suggest("miser", 5)).extracting(SuggestionDto::getText).containsExactly("Les Misérables");
+        assertThat(index.suggest("ugo", 5)).isEmpty();
+    }
+
+    @Test
+    void suggestionsAreRankedByBookCountAndLimited() {
+        index.rebuild(List.of(
+                book(1L, "Romance d'hiver", "Anne", "Martin", "Roman"),
+                book(2L, "Rome antique", "Paul", "Durand", "Roman"),
+                book(3L, "Rosa", "Marie", "Rose", "Roman"),
+                book(4L, "Autre", "Jean", "Rome", "Histoire")));
+
+        List<SuggestionDto> top = index.suggest("ro", 2);
+        assertThat(top).extracting(SuggestionDto::getBookCount).containsExactly(3, 1);
+        assertThat(top.get(0).getText()).isEqualTo("Roman");
+
+        List<SuggestionDto> all = index.suggest("rom", 10);
+        assertThat(all.get(0).getText()).isEqualTo("Roman");
+        assertThat(all).extracting(SuggestionDto::getText)
+                .containsExactlyInAnyOrder("Roman", "Jean Rome", "Romance d'hiver", "Rome antique");
+    }
+
+    @Test
+    void sameTextWithDifferentTypesIsDistinct() {
+        index.rebuild(List.of(book(1L, "Dune", "Frank", "Herbert", "Dune")));
+
+        assertThat(index.suggest("dune", 5))
+                .extracting(SuggestionDto::getType)
+                .containsExactlyInAnyOrder(SuggestionType.TITLE, SuggestionType.CATEGORY);
+    }
+
+    @Test
+    void sharedPrefixesSplitAndMergeNodes() {
+        index.rebuild(List.of(
+                book(1L, "Harry", null, null, null),
+                book(2L, "Hare", null, null, null),
+                book(3L, "Harry Potter", null, null, null)));
+
+        assertThat(index.suggest("har", 5)).extracting(SuggestionDto::getText)
+                .containsExactlyInAnyOrder("Harry", "Hare", "Harry Potter");
+        assertThat(index.suggest("harry", 5)).extracting(SuggestionDto::getText)
+                .containsExactlyInAnyOrder("Harry", "Harry Potter");
+
+        index.remove(1L);
+        index.remove(2L);
+
+        assertThat(index.suggest("har", 5)).extracting(SuggestionDto::getText).containsExactly("Harry Potter");
+        assertThat(index.suggest("harry p", 5)).extracting(SuggestionDto::getText).containsExactly("Harry Potter");
+        assertThat(index.suggest("hare", 5)).isEmpty();
+    }
+
+    @Test
+    void reindexReplacesPreviousSuggestions() {
+        index.rebuild(List.of(
+                book(1L, "Fondation", "Isaac", "Asimov", "SF"),
+                book(2L, "Fondation et Empire", "Isaac", "Asimov", "SF")));
+
+        index.index(book(1L, "Les Robots", "Isaac", "Asimov", "SF"));
+
+        assertThat(index.suggest("fond", 5)).extracting(SuggestionDto::getText).containsExactly("Fondation et Empire");
+        assertThat(index.suggest("robot", 5)).extracting(SuggestionDto::getText).containsExactly("Les Robots");
+        assertThat(index.suggest("asi", 5)).extracting(SuggestionDto::getBookCount).containsExactly(2);
+
+        index.remove(2L);
+
+        assertThat(index.suggest("asi", 5)).extracting(SuggestionDto::getBookCount).containsExactly(1);
+        assertThat(index.suggest("fond", 5)).isEmpty();
+    }
+
+    @Test
+    void blankPrefixOrLimitReturnsNothing() {
+        index.rebuild(List.of(book(1L, "Dune", "Frank", "Herbert", "SF")));
+
+        assertThat(index.suggest("  ", 5)).isEmpty();
+        assertThat(index.suggest("dune", 0)).isEmpty();
+        assertThat(index.suggest("zzz", 5)).isEmpty();
+    }
+
+    @Test
+    void bestFirstSearchMatchesExhaustiveScan() {
+        String[] words = {"la", "le", "lac", "lune", "lumiere", "nuit", "nuage", "mer", "merle", "mere", "monde"};
+        Random random = new Random(42);
+        List<Book> books = new ArrayList<>();
+        for (long id = 1; id <= 400; id++) {
+            books.add(book(id, words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)],
+                    "Auteur", words[random.nextInt(words.length)], words[random.nextInt(words.length)]));
+        }
+        index.rebuild(books);
+        assertMatchesExhaustiveScan(books, words);
+
+        List<Book> kept = new ArrayList<>();
+        for (Book book : books) {
+            if (book.getId() % 3 == 0) {
+                index.remove(book.getId());
+            } else {
+                kept.add(book);
+            }
+        }
+        assertMatchesExhaustiveScan(kept, words);
+    }
+
+    private void assertMatchesExhaustiveScan(List<Book> books, String[] words) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (Book book : books) {
+            for (String text : List.of(book.getTitle(), "Auteur " + book.getAuthor().getLastName(),
+                    book.getCategory().getName())) {
+                counts.merge(text, 1, Integer::sum);
+            }
+        }
+        for (String word : words) {
+            for (int length = 1; length <= word.length(); length++) {
+                String prefix = word.substring(0, length);
+                List<Integer> expected = counts.entrySet().stream()
+                        .filter(entry -> matches(entry.getKey(), prefix))
+                        .map(Map.Entry::getValue)
+                        .sorted(Comparator.reverseOrder())
+                        .limit(5)
+                        .toList();
+
+                List<SuggestionDto> suggestions = index.suggest(prefix, 5);
+
+                assertThat(suggestions).as(prefix).allSatisfy(suggestion ->
+                        assertThat(matches(suggestion.getText(), prefix)).isTrue());
+                assertThat(suggestions).as(prefix).extracting(SuggestionDto::getBookCount)
+                        .containsExactlyElementsOf(expected);
+            }
+        }
+    }
+
+    private static boolean matches(String text, String prefix) {
+        List<String> tokens = TextNormalizer.tokenize(text);
+        for (int start = 0; start < tokens.size(); start++) {
+            if (String.join(" ", tokens.subList(start, tokens.size())).startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Book book(Long id, String title, String firstName, String lastName, String category) {
+        return Book.builder()
+                .id(id)
+                .title(title)
+                .author(lastName != null ? Author.builder().id(id).firstName(firstName).lastName(lastName).build() : null)
+                .category(category != null ? Category.builder().id(id).name(category).build() : null)
+                .build();
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.library.bookservice.snapshot;
+
+import com.example.library.bookservice.model.Book;
+import com.example.library.bookservice.repository.BookRow;
+import com.example.library.bookservice.snapshot.CatalogSnapshotReader.CatalogSnapshot;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Verifie l'aller-retour ecriture/lecture d'un snapshot et le rejet des fichiers corrompus
+ * ou tronques.
+ */
+class CatalogSnapshotCodecTest {
+    private static final long CREATED_AT = 1_700_000_000_000L;
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void roundTripRestoresEveryColumn() throws IOException {
+        Path file = write(
+                row(3L, "9780000000001", "Les Misérables", "Roman", 1862, "Hachette", 4, 2, 7L, 10L, 20L),
+                row(8L, "9780000000002", "Title 2", null, null, null, 1, 0, 0L, null, null),
+                row(300L, "9780000000003", "日本語の本", "Description", -50, "Hachette", 2, 2, 1L, 10L, 20L));
+
+        CatalogSnapshot snapshot = CatalogSnapshotReader.read(file);
+
+        assertThat(snapshot.createdAt()).isEqualTo(CREATED_AT);
+        assertThat(snapshot.books()).extracting(Book::getId).containsExactly(3L, 8L, 300L);
+
+        Book first = snapshot.books().get(0);
+        assertThat(first.getIsbn()).isEqualTo("9780000000001");
+        assertThat(first.getTitle()).isEqualTo("Les Misérables");
+        assertThat(first.getDescription()).isEqualTo("Roman");
+        assertThat(first.getPublicationYear()).isEqualTo(1862);
+        assertThat(first.getPublisher()).isEqualTo("Hachette");
+        assertThat(first.getTotalCopies()).isEqualTo(4);
+        assertThat(first.getAvailableCopies()).isEqualTo(2);
+        assertThat(first.getVersion()).isEqualTo(7L);
+        assertThat(first.getAuthor().getId()).isEqualTo(10L);
+        assertThat(first.getAuthor().getFirstName()).isEqualTo("First10");
+        assertThat(first.getAuthor().getLastName()).isEqualTo("Last10");
+        assertThat(first.getAuthor().getBiography()).isNull();
+        assertThat(first.getCategory().getId()).isEqualTo(20L);
+        assertThat(first.getCategory().getName()).isEqualTo("Category20");
+
+        Book second = snapshot.books().get(1);
+        assertThat(second.getDescription()).isNull();
+        assertThat(second.getPublicationYear()).isNull();
+        assertThat(second.getPublisher()).isNull();
+        assertThat(second.getAuthor()).isNull();
+        assertThat(second.getCategory()).isNull();
+
+        Book third = snapshot.books().get(2);
+        assertThat(third.getTitle()).isEqualTo("日本語の本");
+        assertThat(third.getPublicationYear()).isEqualTo(-50);
+        assertThat(third.getAuthor()).isSameAs(first.getAuthor());
+        assertThat(third.getCategory()).isSameAs(first.getCategory());
+    }
+
+    @Test
+    void emptyCatalogRoundTrips() throws IOException {
+        CatalogSnapshot snapshot = CatalogSnapshotReader.read(write());
+
+        assertThat(snapshot.createdAt()).isEqualTo(CREATED_AT);
+        assertThat(snapshot.books()).isEmpty();
+    }
+
+    @Test
+    void rowsOutOfOrderAreRejected() {
+        CatalogSnapshotWriter writer = new CatalogSnapshotWriter();
+        writer.add(row(5L, "9780000000005", "Title 5", null, null, null, 1, 1, 0L, null, null));
+
+        assertThatThrownBy(() -> writer.add(row(5L, "9780000000006", "Title 6", null, null, null, 1, 1, 0L, null, null)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void corruptedByteFailsChecksum() throws IOException {
+        Path file = write(row(1L, "9780000000001", "Title 1", null, 2001, "Publisher", 3, 3, 0L, 1L, 1L));
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 0x55;
+        Files.write(file, bytes);
+
+        assertThatThrownBy(() -> CatalogSnapshotReader.read(file))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("checksum");
+    }
+
+    @Test
+    void truncatedFileIsRejected() throws IOException {
+        Path file = write(row(1L, "9780000000001", "Title 1", null, 2001, "Publisher", 3, 3, 0L, 1L, 1L));
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 7));
+
+        assertThatThrownBy(() -> CatalogSnapshotReader.read(file)).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void truncatedSectionsWithValidChecksumAreRejected() throws IOException {
+        Path file = write(row(1L, "9780000000001", "Title 1", null, 2001, "Publisher", 3, 3, 0L, 1L, 1L));
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, withChecksum(Arrays.copyOf(bytes, bytes.length - 12)));
+
+        assertThatThrownBy(() -> CatalogSnapshotReader.read(file))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Corrupted");
+    }
+
+    @Test
+    void tooShortFileIsRejected() throws IOException {
+        Path file = directory.resolve("short.snapshot");
+        Files.write(file, new byte[] {'B', 'K'});
+
+        assertThatThrownBy(() -> CatalogSnapshotReader.read(file))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("size");
+    }
+
+    @Test
+    void foreignFileIsRejected() throws IOException {
+        Path file = directory.resolve("foreign.snapshot");
+        Files.write(file, withChecksum("NOTASNAPSHOT".getBytes()));
+
+        assertThatThrownBy(() -> CatalogSnapshotReader.read(file))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Not a catalog snapshot");
+    }
+
+    private Path write(BookRow... rows) throws IOException {
+        CatalogSnapshotWriter writer = new CatalogSnapshotWriter();
+        List.of(rows).forEach(writer::add);
+        Path file = directory.resolve("catalog.snapshot");
+        writer.writeTo(file, CREATED_AT);
+        return file;
+    }
+
+    private static BookRow row(Long id, String isbn, String title, String description, Integer year,
+                               String publisher, int total, int available, Long version,
+                               Long authorId, Long categoryId) {
+        return new BookRow(id, isbn, title, description, year, publisher, total, available, version,
+                authorId, authorId != null ? "First" + authorId : null, authorId != null ? "Last" + authorId : null, null,
+                categoryId, categoryId != null ? "Category" + categoryId : null, null);
+    }
+
+    /**
+     * Ajoute un CRC32 valide a un contenu : seul le decodage peut alors le rejeter.
+     */
+    private static byte[] withChecksum(byte[] content) {
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        long checksum = crc.getValue();
+        byte[] bytes = Arrays.copyOf(content, content.length + 4);
+        bytes[content.length] = (byte) (checksum >>> 24);
+        bytes[content.length + 1] = (byte) (checksum >>> 16);
+        bytes[content.length + 2] = (byte) (checksum >>> 8);
+        bytes[content.length + 3] = (byte) checksum;
+        return bytes;
+    }
+}
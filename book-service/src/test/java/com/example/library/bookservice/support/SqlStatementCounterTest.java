@@ -0,0 +1,51 @@
+package com.example.library.bookservice.support;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifie que les instructions executees sur un autre thread (flux NDJSON) sont imputees
+ * a la requete qui a lance la tache.
+ */
+class SqlStatementCounterTest {
+
+    @AfterEach
+    void detach() {
+        SqlStatementCounter.detach();
+    }
+
+    @Test
+    void propagatedTaskCountsForSubmittingRequest() throws Exception {
+        AtomicInteger statements = SqlStatementCounter.start();
+        Runnable task = SqlStatementCounter.propagate(() -> {
+            SqlStatementCounter.increment();
+            SqlStatementCounter.increment();
+        });
+        SqlStatementCounter.detach();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(task).get(5, TimeUnit.SECONDS);
+            executor.submit(SqlStatementCounter::increment).get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(statements.get()).isEqualTo(2);
+    }
+
+    @Test
+    void incrementWithoutRequestIsIgnored() {
+        SqlStatementCounter.increment();
+
+        AtomicInteger statements = SqlStatementCounter.start();
+        assertThat(statements.get()).isZero();
+    }
+}
@@ -1,12 +1,20 @@
 package com.example.library.loanservice.client;
 
 import com.example.library.loanservice.dto.BookDto;
+import com.example.library.loanservice.dto.BookPage;
+import com.example.library.loanservice.dto.CatalogChangeDto;
+import com.example.library.loanservice.dto.CopiesBatchEntry;
+import com.example.library.loanservice.dto.CopiesBatchResult;
 import com.example.library.loanservice.dto.UpdateCopiesRequest;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.List;
 
 /**
  * Client Feign vers le Book Service.
@@ -25,12 +33,55 @@ public interface BookClient {
     BookDto findById(@PathVariable("id") Long id);
 
     /**
-     * Met à jour les copies d'un livre.
+     * Récupère une page du catalogue par curseur.
+     *
+     * @param after dernier id de la page précédente (null pour la première page).
+     * @param size taille de page.
+     * @return page et curseur suivant.
+     */
+    @GetMapping("/api/books")
+    BookPage findPage(@RequestParam(value = "after", required = false) Long after, @RequestParam("size") int size);
+
+    /**
+     * Dernière séquence publiée du flux de mutations du catalogue.
+     *
+     * @return séquence courante.
+     */
+    @GetMapping("/api/books/changes/head")
+    Long changesHead();
+
+    /**
+     * Mutations du catalogue publiées après une séquence.
+     *
+     * @param after dernière séquence déjà traitée.
+     * @param limit nombre maximal d'entrées.
+     * @return mutations triées par séquence.
+     */
+    @GetMapping("/api/books/changes")
+    List<CatalogChangeDto> changes(@RequestParam("after") long after, @RequestParam("limit") int limit);
+
+    /**
+     * Met à jour les copies d'un livre, au plus une fois par clé d'idempotence.
      *
      * @param id identifiant livre.
+     * @param key clé d'idempotence (optionnelle, variations seules).
      * @param request mise à jour copies.
      * @return livre mis à jour.
      */
     @PatchMapping("/api/books/{id}/copies")
-    BookDto updateCopies(@PathVariable("id") Long id, @RequestBody UpdateCopiesRequest request);
+    BookDto updateCopies(@PathVariable("id") Long id,
+                         @RequestHeader(value = "Idempotency-Key", required = false) String key,
+                         @RequestBody UpdateCopiesRequest request);
+
+    /**
+     * Applique des variations de copies à plusieurs livres en un appel, au plus une fois
+     * par clé de lot.
+     *
+     * @param batchId clé d'idempotence du lot.
+     * @param entries variations par livre.
+     * @return résultat par entrée, dans l'ordre de la requête.
+     */
+    @PatchMapping("/api/books/copies")
+    List<CopiesBatchResult> updateCopiesBatch(@RequestHeader("Idempotency-Key") String batchId,
+                                              @RequestBody List<CopiesBatchEntry> entries);
 }
@@ -1,6 +1,8 @@
 package com.example.library.loanservice.client;
 
+import com.example.library.loanservice.security.JwtService;
 import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.openfeign.EnableFeignClients;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -14,10 +16,21 @@ import feign.RequestInterceptor;
 /**
  * Configuration Feign pour propager le header Authorization.
  *
+ * <p>Hors requête HTTP (tâches planifiées), un token de service signé avec le secret
+ * partagé est utilisé à la place.</p>
+ *
  * @since 1.0
  */
 @Configuration
 public class FeignAuthConfig {
+    private final JwtService jwtService;
+    private final String serviceName;
+
+    public FeignAuthConfig(JwtService jwtService,
+                           @Value("${spring.application.name}") String serviceName) {
+        this.jwtService = jwtService;
+        this.serviceName = serviceName;
+    }
 
     /**
      * Intercepteur qui transmet le token JWT aux services appelés.
@@ -34,6 +47,8 @@ public class FeignAuthConfig {
                 if (authHeader != null && !authHeader.isBlank()) {
                     template.header(HttpHeaders.AUTHORIZATION, authHeader);
                 }
+            } else if (!template.headers().containsKey(HttpHeaders.AUTHORIZATION)) {
+                template.header(HttpHeaders.AUTHORIZATION, "Bearer " + jwtService.generateServiceToken(serviceName));
             }
         };
     }
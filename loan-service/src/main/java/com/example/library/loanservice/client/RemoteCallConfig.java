@@ -0,0 +1,42 @@
+package com.example.library.loanservice.client;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Executeur des appels distants lances en parallele (threads virtuels).
+ *
+ * <p>Les attributs de la requete HTTP courante sont propages au thread de l'appel, afin
+ * que {@link FeignAuthConfig} transmette le token JWT de l'appelant.</p>
+ *
+ * @since 1.1
+ */
+@Configuration
+public class RemoteCallConfig {
+
+    /**
+     * Executeur a threads virtuels pour les appels Feign concurrents.
+     *
+     * @return executeur.
+     */
+    @Bean
+    public SimpleAsyncTaskExecutor remoteCallExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("remote-call-");
+        executor.setVirtualThreads(true);
+        executor.setTaskDecorator(task -> {
+            RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+            return () -> {
+                RequestContextHolder.setRequestAttributes(attributes);
+                try {
+                    task.run();
+                } finally {
+                    RequestContextHolder.resetRequestAttributes();
+                }
+            };
+        });
+        return executor;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.library.loanservice.client;
+
+import feign.FeignException;
+
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.util.function.Predicate;
+
+/**
+ * Retient pour une nouvelle tentative les seuls echecs ou la requete n'a pas atteint le
+ * Book Service : connexion refusee ou impossible, hote inconnu, aucune instance
+ * disponible (503 du load balancer).
+ *
+ * <p>Un delai de lecture depasse n'est pas retenu : la decrementation a pu etre appliquee
+ * et la rejouer retirerait une seconde copie.</p>
+ *
+ * @since 1.1
+ */
+public class RequestNotSentPredicate implements Predicate<Throwable> {
+
+    @Override
+    public boolean test(Throwable throwable) {
+        if (throwable instanceof FeignException.ServiceUnavailable) {
+            return true;
+        }
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException
+                    || cause instanceof NoRouteToHostException
+                    || cause instanceof UnknownHostException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
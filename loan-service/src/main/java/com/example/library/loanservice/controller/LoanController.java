@@ -2,18 +2,32 @@ package com.example.library.loanservice.controller;
 
 import com.example.library.loanservice.dto.BorrowRequest;
 import com.example.library.loanservice.dto.LoanDto;
+import com.example.library.loanservice.dto.LoanFilter;
+import com.example.library.loanservice.dto.LoanPage;
 import com.example.library.loanservice.dto.ReservationDto;
 import com.example.library.loanservice.dto.ReturnRequest;
+import com.example.library.loanservice.model.LoanStatus;
+import com.example.library.loanservice.service.IdempotencyService;
 import com.example.library.loanservice.service.LoanService;
 import jakarta.validation.Valid;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.ObjectMapper;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -26,9 +40,13 @@ import java.util.List;
 public class LoanController {
 
     private final LoanService loanService;
+    private final IdempotencyService idempotencyService;
+    private final ObjectMapper objectMapper;
 
-    public LoanController(LoanService loanService) {
+    public LoanController(LoanService loanService, IdempotencyService idempotencyService, ObjectMapper objectMapper) {
         this.loanService = loanService;
+        this.idempotencyService = idempotencyService;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -41,6 +59,33 @@ public class LoanController {
         return ResponseEntity.ok(loanService.findAll());
     }
 
+    /**
+     * Liste une page d'emprunts par curseur (keyset sur l'id), filtrée par statut
+     * ({@code status}, répétable) et date d'emprunt ({@code from}, {@code to}).
+     *
+     * @param after dernier id de la page précédente.
+     * @param size taille de page (plafonnée).
+     * @param filter filtres optionnels.
+     * @return page d'emprunts et curseur suivant.
+     */
+    @GetMapping(params = "size")
+    public ResponseEntity<LoanPage> findPage(@RequestParam(value = "after", required = false) Long after,
+                                             @RequestParam("size") int size,
+                                             LoanFilter filter) {
+        return ResponseEntity.ok(loanService.findPage(filter, after, size));
+    }
+
+    /**
+     * Diffuse les emprunts filtrés en NDJSON (une ligne JSON par emprunt).
+     *
+     * @param filter filtres optionnels.
+     * @return flux NDJSON.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> stream(LoanFilter filter) {
+        return ndjson(out -> loanService.streamAll(filter, loan -> writeLine(out, loan)));
+    }
+
     /**
      * Récupère un emprunt par id.
      *
@@ -63,6 +108,35 @@ public class LoanController {
         return ResponseEntity.ok(loanService.findByUserId(userId));
     }
 
+    /**
+     * Liste une page des emprunts d'un utilisateur par curseur, avec filtres.
+     *
+     * @param userId identifiant utilisateur.
+     * @param after dernier id de la page précédente.
+     * @param size taille de page (plafonnée).
+     * @param filter filtres optionnels.
+     * @return page d'emprunts et curseur suivant.
+     */
+    @GetMapping(value = "/user/{userId}", params = "size")
+    public ResponseEntity<LoanPage> findPageByUser(@PathVariable Long userId,
+                                                   @RequestParam(value = "after", required = false) Long after,
+                                                   @RequestParam("size") int size,
+                                                   LoanFilter filter) {
+        return ResponseEntity.ok(loanService.findPageByUserId(userId, filter, after, size));
+    }
+
+    /**
+     * Diffuse les emprunts filtrés d'un utilisateur en NDJSON.
+     *
+     * @param userId identifiant utilisateur.
+     * @param filter filtres optionnels.
+     * @return flux NDJSON.
+     */
+    @GetMapping(value = "/user/{userId}/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamByUser(@PathVariable Long userId, LoanFilter filter) {
+        return ndjson(out -> loanService.streamByUserId(userId, filter, loan -> writeLine(out, loan)));
+    }
+
     /**
      * Liste les emprunts d'un livre.
      *
@@ -74,37 +148,110 @@ public class LoanController {
         return ResponseEntity.ok(loanService.findByBookId(bookId));
     }
 
+    /**
+     * Liste une page des emprunts d'un livre par curseur, avec filtres.
+     *
+     * @param bookId identifiant livre.
+     * @param after dernier id de la page précédente.
+     * @param size taille de page (plafonnée).
+     * @param filter filtres optionnels.
+     * @return page d'emprunts et curseur suivant.
+     */
+    @GetMapping(value = "/book/{bookId}", params = "size")
+    public ResponseEntity<LoanPage> findPageByBook(@PathVariable Long bookId,
+                                                   @RequestParam(value = "after", required = false) Long after,
+                                                   @RequestParam("size") int size,
+                                                   LoanFilter filter) {
+        return ResponseEntity.ok(loanService.findPageByBookId(bookId, filter, after, size));
+    }
+
+    /**
+     * Diffuse les emprunts filtrés d'un livre en NDJSON.
+     *
+     * @param bookId identifiant livre.
+     * @param filter filtres optionnels.
+     * @return flux NDJSON.
+     */
+    @GetMapping(value = "/book/{bookId}/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamByBook(@PathVariable Long bookId, LoanFilter filter) {
+        return ndjson(out -> loanService.streamByBookId(bookId, filter, loan -> writeLine(out, loan)));
+    }
+
     /**
      * Crée un emprunt (borrow).
      *
+     * <p>Avec un en-tête {@code Idempotency-Key}, une nouvelle tentative reçoit la réponse
+     * de la première sans nouvel emprunt. Après un emprunt {@code PENDING}, la même requête
+     * peut être renvoyée : la décrémentation du stock n'est appliquée qu'une fois.</p>
+     *
+     * @param idempotencyKey clé d'idempotence (optionnelle).
      * @param request données d'emprunt.
      * @return emprunt.
      */
     @PostMapping("/borrow")
-    public ResponseEntity<LoanDto> borrow(@Valid @RequestBody BorrowRequest request) {
-        return ResponseEntity.ok(loanService.borrow(request));
+    public ResponseEntity<LoanDto> borrow(@RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+                                          @Valid @RequestBody BorrowRequest request) {
+        return idempotencyService.execute(idempotencyKey, "borrow", request, LoanDto.class,
+                copiesKey -> loanService.borrow(request, copiesKey),
+                loan -> !LoanStatus.PENDING.name().equals(loan.getStatus()));
     }
 
     /**
      * Retourne un livre (return).
      *
      * @param id identifiant emprunt.
+     * @param idempotencyKey clé d'idempotence (optionnelle).
      * @param request données de retour.
      * @return emprunt mis à jour.
      */
     @PostMapping("/{id}/return")
-    public ResponseEntity<LoanDto> returnLoan(@PathVariable Long id, @RequestBody(required = false) ReturnRequest request) {
-        return ResponseEntity.ok(loanService.returnLoan(id, request != null ? request.getReturnDate() : null));
+    public ResponseEntity<LoanDto> returnLoan(@PathVariable Long id,
+                                              @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+                                              @RequestBody(required = false) ReturnRequest request) {
+        LocalDate returnDate = request != null ? request.getReturnDate() : null;
+        return idempotencyService.execute(idempotencyKey, "return", Arrays.asList(id, returnDate), LoanDto.class,
+                () -> loanService.returnLoan(id, returnDate),
+                loan -> true);
     }
 
     /**
      * Cree une reservation de livre.
      *
+     * @param idempotencyKey clé d'idempotence (optionnelle).
      * @param request demande de reservation.
      * @return reservation creee.
      */
     @PostMapping("/reserve")
-    public ResponseEntity<ReservationDto> reserve(@Valid @RequestBody BorrowRequest request) {
-        return ResponseEntity.ok(loanService.reserve(request));
+    public ResponseEntity<ReservationDto> reserve(@RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+                                                  @Valid @RequestBody BorrowRequest request) {
+        return idempotencyService.execute(idempotencyKey, "reserve", request, ReservationDto.class,
+                () -> loanService.reserve(request),
+                reservation -> true);
+    }
+
+    /**
+     * File de réservations d'un livre (copies mises de côté puis demandes en attente).
+     *
+     * @param bookId identifiant livre.
+     * @return réservations par ordre d'arrivée.
+     */
+    @GetMapping("/reservations/book/{bookId}")
+    public ResponseEntity<List<ReservationDto>> reservationQueue(@PathVariable Long bookId) {
+        return ResponseEntity.ok(loanService.findReservationQueue(bookId));
+    }
+
+    private static ResponseEntity<StreamingResponseBody> ndjson(StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    private void writeLine(OutputStream out, LoanDto loan) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(loan));
+            out.write('\n');
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
     }
 }
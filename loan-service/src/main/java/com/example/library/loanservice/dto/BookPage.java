@@ -0,0 +1,11 @@
+package com.example.library.loanservice.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BookPage {
+    private List<BookDto> items;
+    private Long nextCursor;
+}
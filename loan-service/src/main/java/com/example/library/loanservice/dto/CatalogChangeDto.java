@@ -0,0 +1,13 @@
+package com.example.library.loanservice.dto;
+
+import lombok.Data;
+import tools.jackson.databind.JsonNode;
+
+@Data
+public class CatalogChangeDto {
+    private long sequence;
+    private long eventId;
+    private Long bookId;
+    private String type;
+    private JsonNode payload;
+}
@@ -0,0 +1,14 @@
+package com.example.library.loanservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CopiesBatchEntry {
+    private Long bookId;
+    private Integer deltaAvailable;
+    private Integer deltaTotal;
+}
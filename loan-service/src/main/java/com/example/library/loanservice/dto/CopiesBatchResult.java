@@ -0,0 +1,11 @@
+package com.example.library.loanservice.dto;
+
+import lombok.Data;
+
+@Data
+public class CopiesBatchResult {
+    private Long bookId;
+    private String status;
+    private Integer availableCopies;
+    private Integer totalCopies;
+}
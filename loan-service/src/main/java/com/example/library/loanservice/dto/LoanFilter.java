@@ -0,0 +1,24 @@
+package com.example.library.loanservice.dto;
+
+import com.example.library.loanservice.model.LoanStatus;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Filtres des listes d'emprunts (paramètres de requête).
+ *
+ * @since 1.1
+ */
+@Data
+public class LoanFilter {
+    private List<LoanStatus> status;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate from;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate to;
+}
@@ -0,0 +1,13 @@
+package com.example.library.loanservice.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class LoanPage {
+    private List<LoanDto> items;
+    private Long nextCursor;
+}
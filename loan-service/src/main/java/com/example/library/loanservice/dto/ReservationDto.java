@@ -3,6 +3,7 @@ package com.example.library.loanservice.dto;
 import lombok.Builder;
 import lombok.Data;
 
+import java.time.Instant;
 import java.time.LocalDate;
 
 /**
@@ -18,4 +19,5 @@ public class ReservationDto {
     private Long bookId;
     private LocalDate createdAt;
     private String status;
+    private Instant holdExpiresAt;
 }
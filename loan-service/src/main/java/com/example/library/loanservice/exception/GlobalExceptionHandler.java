@@ -54,6 +54,30 @@ public class GlobalExceptionHandler {
         return buildError(HttpStatus.CONFLICT, ex.getMessage(), request.getRequestURI());
     }
 
+    /**
+     * Geree les cles d'idempotence en cours de traitement.
+     *
+     * @param ex exception.
+     * @param request requete HTTP.
+     * @return reponse 409.
+     */
+    @ExceptionHandler(IdempotencyConflictException.class)
+    public ResponseEntity<ErrorResponse> handleIdempotencyConflict(IdempotencyConflictException ex, HttpServletRequest request) {
+        return buildError(HttpStatus.CONFLICT, ex.getMessage(), request.getRequestURI());
+    }
+
+    /**
+     * Geree les cles d'idempotence reutilisees pour une autre requete.
+     *
+     * @param ex exception.
+     * @param request requete HTTP.
+     * @return reponse 422.
+     */
+    @ExceptionHandler(IdempotencyKeyMismatchException.class)
+    public ResponseEntity<ErrorResponse> handleIdempotencyKeyMismatch(IdempotencyKeyMismatchException ex, HttpServletRequest request) {
+        return buildError(HttpStatus.UNPROCESSABLE_CONTENT, ex.getMessage(), request.getRequestURI());
+    }
+
     /**
      * Geree les erreurs de validation.
      *
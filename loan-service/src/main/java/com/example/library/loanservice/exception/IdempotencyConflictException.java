@@ -0,0 +1,17 @@
+package com.example.library.loanservice.exception;
+
+/**
+ * Exception levee quand une requete portant la meme cle d'idempotence est encore en cours.
+ *
+ * @since 1.1
+ */
+public class IdempotencyConflictException extends RuntimeException {
+    /**
+     * Construit l'exception pour une cle en cours de traitement.
+     *
+     * @param key cle d'idempotence.
+     */
+    public IdempotencyConflictException(String key) {
+        super("A request with this Idempotency-Key is still in progress: " + key);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.library.loanservice.exception;
+
+/**
+ * Exception levee quand une cle d'idempotence est reutilisee pour une requete differente.
+ *
+ * @since 1.1
+ */
+public class IdempotencyKeyMismatchException extends RuntimeException {
+    /**
+     * Construit l'exception pour une cle reutilisee.
+     *
+     * @param key cle d'idempotence.
+     */
+    public IdempotencyKeyMismatchException(String key) {
+        super("Idempotency-Key reused with a different request: " + key);
+    }
+}
@@ -2,6 +2,7 @@ package com.example.library.loanservice.mapper;
 
 import com.example.library.loanservice.dto.LoanDto;
 import com.example.library.loanservice.model.Loan;
+import com.example.library.loanservice.repository.LoanRow;
 
 public final class LoanMapper {
     private LoanMapper() {}
@@ -20,4 +21,19 @@ public final class LoanMapper {
                 .status(loan.getStatus().name())
                 .build();
     }
+
+    public static LoanDto toDto(LoanRow row) {
+        if (row == null) {
+            return null;
+        }
+        return LoanDto.builder()
+                .id(row.id())
+                .userId(row.userId())
+                .bookId(row.bookId())
+                .borrowDate(row.borrowDate())
+                .dueDate(row.dueDate())
+                .returnDate(row.returnDate())
+                .status(row.status().name())
+                .build();
+    }
 }
@@ -21,6 +21,7 @@ public final class ReservationMapper {
                 .bookId(reservation.getBookId())
                 .createdAt(reservation.getCreatedAt())
                 .status(reservation.getStatus().name())
+                .holdExpiresAt(reservation.getHoldExpiresAt())
                 .build();
     }
 }
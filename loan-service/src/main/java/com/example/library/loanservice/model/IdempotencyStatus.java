@@ -0,0 +1,7 @@
+package com.example.library.loanservice.model;
+
+public enum IdempotencyStatus {
+    IN_PROGRESS,
+    UNCERTAIN,
+    COMPLETED
+}
@@ -2,6 +2,8 @@ package com.example.library.loanservice.model;
 
 public enum ReservationStatus {
     REQUESTED,
+    HELD,
     CONFIRMED,
+    EXPIRED,
     CANCELLED
 }
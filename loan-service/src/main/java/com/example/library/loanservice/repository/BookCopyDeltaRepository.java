@@ -0,0 +1,75 @@
+package com.example.library.loanservice.repository;
+
+import com.example.library.loanservice.model.BookCopyDelta;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository de l'outbox des variations de copies a envoyer au Book Service.
+ *
+ * @since 1.1
+ */
+public interface BookCopyDeltaRepository extends JpaRepository<BookCopyDelta, Long> {
+    /**
+     * Verrouille les plus anciennes variations en attente, en ignorant celles deja
+     * verrouillees par une autre instance (transaction requise).
+     *
+     * @param limit nombre maximal de lignes.
+     * @return variations triees par id.
+     */
+    @Query(value = "select * from book_copy_outbox order by id limit :limit for update skip locked", nativeQuery = true)
+    List<BookCopyDelta> lockBatch(@Param("limit") int limit);
+
+    /**
+     * Verrouille toutes les variations d'un lot d'envoi ; si une autre instance envoie deja
+     * ce lot, attend la fin de son envoi (un lot n'est jamais scinde entre deux envois).
+     *
+     * @param batchId lot d'envoi.
+     * @return variations du lot restantes, triees par id.
+     */
+    @Query(value = "select * from book_copy_outbox where batch_id = :batchId order by id for update",
+            nativeQuery = true)
+    List<BookCopyDelta> lockByBatchId(@Param("batchId") String batchId);
+
+    /**
+     * Attribue un lot d'envoi a des variations.
+     *
+     * @param batchId lot d'envoi.
+     * @param ids variations.
+     * @return nombre de lignes mises a jour.
+     */
+    @Modifying
+    @Query("update BookCopyDelta d set d.batchId = :batchId where d.id in :ids")
+    int assignBatch(@Param("batchId") String batchId, @Param("ids") Collection<Long> ids);
+
+    /**
+     * Retire d'un lot d'envoi les variations d'un livre, qui seront renvoyees dans un
+     * prochain lot (nouvelle cle d'idempotence).
+     *
+     * @param batchId lot d'envoi.
+     * @param bookId livre dont les variations sont remises en attente.
+     * @return nombre de lignes remises en attente.
+     */
+    @Modifying
+    @Query("update BookCopyDelta d set d.batchId = null where d.batchId = :batchId and d.bookId = :bookId")
+    int releaseFromBatch(@Param("batchId") String batchId, @Param("bookId") Long bookId);
+
+    /**
+     * Copie les variations refusees d'un lot dans la table des rejets.
+     *
+     * @param batchId lot d'envoi.
+     * @param bookId livre refuse.
+     * @param status statut renvoye par le Book Service.
+     * @return nombre de lignes copiees.
+     */
+    @Modifying
+    @Query(value = "insert into book_copy_dead_letter (id, book_id, delta_available, created_at, batch_id, status) "
+            + "select id, book_id, delta_available, created_at, batch_id, :status from book_copy_outbox "
+            + "where batch_id = :batchId and book_id = :bookId on conflict (id) do nothing", nativeQuery = true)
+    int deadLetter(@Param("batchId") String batchId, @Param("bookId") Long bookId, @Param("status") String status);
+}
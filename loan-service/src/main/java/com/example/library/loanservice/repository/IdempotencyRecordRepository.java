@@ -0,0 +1,108 @@
+package com.example.library.loanservice.repository;
+
+import com.example.library.loanservice.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+/**
+ * Repository des cles d'idempotence.
+ *
+ * @since 1.1
+ */
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+    /**
+     * Reserve une cle si elle n'existe pas encore (insertion atomique).
+     *
+     * @param key cle.
+     * @param fingerprint empreinte de la requete.
+     * @param downstreamKey cle transmise au Book Service.
+     * @param now date courante.
+     * @param expiresAt date d'expiration.
+     * @return 1 si la cle a ete reservee, 0 si elle existait deja.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "insert into idempotency_keys (idempotency_key, fingerprint, downstream_key, status, created_at, expires_at) "
+            + "values (:key, :fingerprint, :downstreamKey, 'IN_PROGRESS', :now, :expiresAt) on conflict do nothing",
+            nativeQuery = true)
+    int claim(@Param("key") String key,
+              @Param("fingerprint") String fingerprint,
+              @Param("downstreamKey") String downstreamKey,
+              @Param("now") Instant now,
+              @Param("expiresAt") Instant expiresAt);
+
+    /**
+     * Reprend une cle expiree, restee en cours au-dela du delai (traitement interrompu) ou
+     * dont l'issue est incertaine pour la meme requete.
+     *
+     * <p>Hors expiration, la cle transmise au Book Service est conservee pour la meme
+     * requete : une decrementation peut-etre appliquee n'est pas appliquee une seconde fois.</p>
+     *
+     * @param key cle.
+     * @param fingerprint empreinte de la nouvelle requete.
+     * @param downstreamKey nouvelle cle transmise au Book Service, si l'ancienne est abandonnee.
+     * @param now date courante.
+     * @param staleBefore date avant laquelle une cle en cours est abandonnee.
+     * @param expiresAt nouvelle date d'expiration.
+     * @return 1 si la cle a ete reprise.
+     */
+    @Transactional
+    @Modifying
+    @Query("update IdempotencyRecord r set "
+            + "r.downstreamKey = case when r.expiresAt < :now or r.downstreamKey is null or r.fingerprint <> :fingerprint "
+            + "then :downstreamKey else r.downstreamKey end, "
+            + "r.fingerprint = :fingerprint, "
+            + "r.status = com.example.library.loanservice.model.IdempotencyStatus.IN_PROGRESS, "
+            + "r.responseBody = null, r.createdAt = :now, r.expiresAt = :expiresAt "
+            + "where r.key = :key and (r.expiresAt < :now or "
+            + "(r.status = com.example.library.loanservice.model.IdempotencyStatus.IN_PROGRESS and r.createdAt < :staleBefore) or "
+            + "(r.status = com.example.library.loanservice.model.IdempotencyStatus.UNCERTAIN and r.fingerprint = :fingerprint))")
+    int takeOver(@Param("key") String key,
+                 @Param("fingerprint") String fingerprint,
+                 @Param("downstreamKey") String downstreamKey,
+                 @Param("now") Instant now,
+                 @Param("staleBefore") Instant staleBefore,
+                 @Param("expiresAt") Instant expiresAt);
+
+    /**
+     * Marque une cle reservee dont l'issue est incertaine (reponse provisoire) : elle peut
+     * etre reprise aussitot par la meme requete.
+     *
+     * @param key cle.
+     * @return nombre de lignes modifiees.
+     */
+    @Transactional
+    @Modifying
+    @Query("update IdempotencyRecord r set "
+            + "r.status = com.example.library.loanservice.model.IdempotencyStatus.UNCERTAIN where r.key = :key")
+    int markUncertain(@Param("key") String key);
+
+    /**
+     * Enregistre la reponse d'une cle reservee.
+     *
+     * @param key cle.
+     * @param responseBody reponse serialisee en JSON.
+     * @return nombre de lignes modifiees.
+     */
+    @Transactional
+    @Modifying
+    @Query("update IdempotencyRecord r set r.responseBody = :responseBody, "
+            + "r.status = com.example.library.loanservice.model.IdempotencyStatus.COMPLETED where r.key = :key")
+    int complete(@Param("key") String key, @Param("responseBody") String responseBody);
+
+    /**
+     * Supprime les cles expirees.
+     *
+     * @param now date courante.
+     * @return nombre de cles supprimees.
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.expiresAt < :now")
+    int deleteExpired(@Param("now") Instant now);
+}
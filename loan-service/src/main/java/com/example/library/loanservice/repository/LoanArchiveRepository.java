@@ -0,0 +1,166 @@
+package com.example.library.loanservice.repository;
+
+import com.example.library.loanservice.model.LoanStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Acces JDBC a l'archive des emprunts rendus (table {@code loans_archive}, partitionnee
+ * par annee de retour).
+ *
+ * @since 1.1
+ */
+@Repository
+public class LoanArchiveRepository {
+    private static final String SELECT_COLUMNS =
+            "select id, user_id, book_id, borrow_date, due_date, return_date, status from loans_archive ";
+    private static final String MOVE_SQL = "with moved as ("
+            + "delete from loans where id in ("
+            + "select id from loans where status = 'RETURNED' and return_date < ? "
+            + "order by id limit ? for update skip locked) "
+            + "returning id, user_id, book_id, borrow_date, due_date, return_date, status) "
+            + "insert into loans_archive (id, user_id, book_id, borrow_date, due_date, return_date, status) "
+            + "select id, user_id, book_id, borrow_date, due_date, return_date, status from moved";
+    private static final RowMapper<LoanRow> ROW_MAPPER = (rs, rowNum) -> new LoanRow(
+            rs.getLong("id"),
+            rs.getLong("user_id"),
+            rs.getLong("book_id"),
+            rs.getObject("borrow_date", LocalDate.class),
+            rs.getObject("due_date", LocalDate.class),
+            rs.getObject("return_date", LocalDate.class),
+            LoanStatus.valueOf(rs.getString("status")));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
+
+    public LoanArchiveRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.streamingJdbcTemplate.setFetchSize(500);
+    }
+
+    /**
+     * Annees de retour des emprunts rendus avant la date limite, encore dans la table chaude.
+     *
+     * @param cutoff date de retour limite (exclue).
+     * @return annees distinctes, croissantes.
+     */
+    public List<Integer> findReturnYearsBefore(LocalDate cutoff) {
+        List<Integer> years = new ArrayList<>();
+        jdbcTemplate.query("select extract(year from min(return_date))::int as first_year, "
+                        + "extract(year from max(return_date))::int as last_year "
+                        + "from loans where status = 'RETURNED' and return_date < ?",
+                rs -> {
+                    int first = rs.getInt("first_year");
+                    if (!rs.wasNull()) {
+                        for (int year = first; year <= rs.getInt("last_year"); year++) {
+                            years.add(year);
+                        }
+                    }
+                }, cutoff);
+        return years;
+    }
+
+    /**
+     * Cree la partition d'une annee si elle n'existe pas.
+     *
+     * @param year annee de retour.
+     */
+    public void createYearPartition(int year) {
+        jdbcTemplate.execute("create table if not exists loans_archive_" + year
+                + " partition of loans_archive for values from ('" + year + "-01-01') to ('" + (year + 1) + "-01-01')");
+    }
+
+    /**
+     * Deplace un lot d'emprunts rendus avant la date limite vers l'archive, en une
+     * instruction (suppression et insertion dans la transaction appelante).
+     *
+     * @param cutoff date de retour limite (exclue).
+     * @param limit nombre maximal d'emprunts.
+     * @return nombre d'emprunts archives.
+     */
+    public int moveReturnedBefore(LocalDate cutoff, int limit) {
+        return jdbcTemplate.update(MOVE_SQL, cutoff, limit);
+    }
+
+    /**
+     * Emprunt archive par id.
+     *
+     * @param id identifiant emprunt.
+     * @return emprunt eventuel.
+     */
+    public Optional<LoanRow> findById(Long id) {
+        return jdbcTemplate.query(SELECT_COLUMNS + "where id = ?", ROW_MAPPER, id).stream().findFirst();
+    }
+
+    /**
+     * Emprunts archives d'un utilisateur ou d'un livre (optionnels).
+     *
+     * @param userId identifiant utilisateur (null : tous).
+     * @param bookId identifiant livre (null : tous).
+     * @return emprunts tries par id.
+     */
+    public List<LoanRow> findAll(Long userId, Long bookId) {
+        List<Object> args = new ArrayList<>();
+        String sql = SELECT_COLUMNS + where(userId, bookId, 0L, LocalDate.of(1, 1, 1), LocalDate.of(9999, 12, 31), args)
+                + " order by id";
+        return jdbcTemplate.query(sql, ROW_MAPPER, args.toArray());
+    }
+
+    /**
+     * Emprunts archives, filtres par utilisateur ou livre (optionnels) et date d'emprunt,
+     * apres un curseur.
+     *
+     * @param userId identifiant utilisateur (null : tous).
+     * @param bookId identifiant livre (null : tous).
+     * @param afterId dernier id deja lu.
+     * @param from premiere date d'emprunt incluse.
+     * @param to derniere date d'emprunt incluse.
+     * @param limit nombre maximal de lignes.
+     * @return emprunts tries par id.
+     */
+    public List<LoanRow> findPageAfter(Long userId, Long bookId, long afterId, LocalDate from, LocalDate to, int limit) {
+        List<Object> args = new ArrayList<>();
+        String sql = SELECT_COLUMNS + where(userId, bookId, afterId, from, to, args) + " order by id limit ?";
+        args.add(limit);
+        return jdbcTemplate.query(sql, ROW_MAPPER, args.toArray());
+    }
+
+    /**
+     * Parcourt les emprunts archives filtres via un curseur base de donnees (transaction requise).
+     *
+     * @param userId identifiant utilisateur (null : tous).
+     * @param bookId identifiant livre (null : tous).
+     * @param from premiere date d'emprunt incluse.
+     * @param to derniere date d'emprunt incluse.
+     * @return flux d'emprunts tries par id, a fermer.
+     */
+    public Stream<LoanRow> stream(Long userId, Long bookId, LocalDate from, LocalDate to) {
+        List<Object> args = new ArrayList<>();
+        String sql = SELECT_COLUMNS + where(userId, bookId, 0L, from, to, args) + " order by id";
+        return streamingJdbcTemplate.queryForStream(sql, ROW_MAPPER, args.toArray());
+    }
+
+    private static String where(Long userId, Long bookId, long afterId, LocalDate from, LocalDate to, List<Object> args) {
+        StringBuilder where = new StringBuilder("where id > ? and borrow_date between ? and ?");
+        args.add(afterId);
+        args.add(from);
+        args.add(to);
+        if (userId != null) {
+            where.append(" and user_id = ?");
+            args.add(userId);
+        }
+        if (bookId != null) {
+            where.append(" and book_id = ?");
+            args.add(bookId);
+        }
+        return where.toString();
+    }
+}
@@ -1,9 +1,20 @@
 package com.example.library.loanservice.repository;
 
 import com.example.library.loanservice.model.Loan;
+import com.example.library.loanservice.model.LoanStatus;
+import org.springframework.data.domain.Pageable;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Repository JPA pour les emprunts.
@@ -11,6 +22,10 @@ import java.util.List;
  * @since 1.0
  */
 public interface LoanRepository extends JpaRepository<Loan, Long> {
+    String LOAN_ROW_SELECT = "select new com.example.library.loanservice.repository.LoanRow("
+            + "l.id, l.userId, l.bookId, l.borrowDate, l.dueDate, l.returnDate, l.status) from Loan l ";
+    String FILTER_CONDITION = "l.status in :statuses and l.borrowDate between :from and :to";
+
     /**
      * Liste les emprunts d'un utilisateur.
      *
@@ -26,4 +41,150 @@ public interface LoanRepository extends JpaRepository<Loan, Long> {
      * @return liste d'emprunts.
      */
     List<Loan> findByBookId(Long bookId);
+
+    /**
+     * Page d'emprunts filtres apres un curseur (keyset sur l'id).
+     *
+     * @param afterId dernier id de la page precedente (0 pour la premiere page).
+     * @param statuses statuts retenus.
+     * @param from premiere date d'emprunt incluse.
+     * @param to derniere date d'emprunt incluse.
+     * @param pageable taille de page.
+     * @return emprunts tries par id.
+     */
+    @Query(LOAN_ROW_SELECT + "where l.id > :afterId and " + FILTER_CONDITION + " order by l.id")
+    List<LoanRow> findPageAfter(@Param("afterId") long afterId,
+                                @Param("statuses") Collection<LoanStatus> statuses,
+                                @Param("from") LocalDate from,
+                                @Param("to") LocalDate to,
+                                Pageable pageable);
+
+    /**
+     * Page d'emprunts filtres d'un utilisateur apres un curseur (keyset sur l'id).
+     *
+     * @param userId identifiant utilisateur.
+     * @param afterId dernier id de la page precedente (0 pour la premiere page).
+     * @param statuses statuts retenus.
+     * @param from premiere date d'emprunt incluse.
+     * @param to derniere date d'emprunt incluse.
+     * @param pageable taille de page.
+     * @return emprunts tries par id.
+     */
+    @Query(LOAN_ROW_SELECT + "where l.userId = :userId and l.id > :afterId and " + FILTER_CONDITION + " order by l.id")
+    List<LoanRow> findUserPageAfter(@Param("userId") Long userId,
+                                    @Param("afterId") long afterId,
+                                    @Param("statuses") Collection<LoanStatus> statuses,
+                                    @Param("from") LocalDate from,
+                                    @Param("to") LocalDate to,
+                                    Pageable pageable);
+
+    /**
+     * Page d'emprunts filtres d'un livre apres un curseur (keyset sur l'id).
+     *
+     * @param bookId identifiant livre.
+     * @param afterId dernier id de la page precedente (0 pour la premiere page).
+     * @param statuses statuts retenus.
+     * @param from premiere date d'emprunt incluse.
+     * @param to derniere date d'emprunt incluse.
+     * @param pageable taille de page.
+     * @return emprunts tries par id.
+     */
+    @Query(LOAN_ROW_SELECT + "where l.bookId = :bookId and l.id > :afterId and " + FILTER_CONDITION + " order by l.id")
+    List<LoanRow> findBookPageAfter(@Param("bookId") Long bookId,
+                                    @Param("afterId") long afterId,
+                                    @Param("statuses") Collection<LoanStatus> statuses,
+                                    @Param("from") LocalDate from,
+                                    @Param("to") LocalDate to,
+                                    Pageable pageable);
+
+    /**
+     * Parcourt les emprunts filtres via un curseur base de donnees (transaction requise).
+     *
+     * @param statuses statuts retenus.
+     * @param from premiere date d'emprunt incluse.
+     * @param to derniere date d'emprunt incluse.
+     * @return flux d'emprunts tries par id.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500")
+    })
+    @Query(LOAN_ROW_SELECT + "where " + FILTER_CONDITION + " order by l.id")
+    Stream<LoanRow> streamFiltered(@Param("statuses") Collection<LoanStatus> statuses,
+                                   @Param("from") LocalDate from,
+                                   @Param("to") LocalDate to);
+
+    /**
+     * Parcourt les emprunts filtres d'un utilisateur via un curseur base de donnees
+     * (transaction requise).
+     *
+     * @param userId identifiant utilisateur.
+     * @param statuses statuts retenus.
+     * @param from premiere date d'emprunt incluse.
+     * @param to derniere date d'emprunt incluse.
+     * @return flux d'emprunts tries par id.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500")
+    })
+    @Query(LOAN_ROW_SELECT + "where l.userId = :userId and " + FILTER_CONDITION + " order by l.id")
+    Stream<LoanRow> streamByUserId(@Param("userId") Long userId,
+                                   @Param("statuses") Collection<LoanStatus> statuses,
+                                   @Param("from") LocalDate from,
+                                   @Param("to") LocalDate to);
+
+    /**
+     * Parcourt les emprunts filtres d'un livre via un curseur base de donnees
+     * (transaction requise).
+     *
+     * @param bookId identifiant livre.
+     * @param statuses statuts retenus.
+     * @param from premiere date d'emprunt incluse.
+     * @param to derniere date d'emprunt incluse.
+     * @return flux d'emprunts tries par id.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500")
+    })
+    @Query(LOAN_ROW_SELECT + "where l.bookId = :bookId and " + FILTER_CONDITION + " order by l.id")
+    Stream<LoanRow> streamByBookId(@Param("bookId") Long bookId,
+                                   @Param("statuses") Collection<LoanStatus> statuses,
+                                   @Param("from") LocalDate from,
+                                   @Param("to") LocalDate to);
+
+    /**
+     * Passe un emprunt au statut RETURNED s'il ne l'est pas deja (instruction atomique :
+     * deux retours concurrents ne rendent la copie qu'une fois).
+     *
+     * @param id identifiant emprunt.
+     * @param returnDate date de retour.
+     * @return 1 si l'emprunt a ete retourne, 0 s'il l'etait deja ou n'existe pas.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Loan l set l.status = com.example.library.loanservice.model.LoanStatus.RETURNED, "
+            + "l.returnDate = :returnDate "
+            + "where l.id = :id and l.status <> com.example.library.loanservice.model.LoanStatus.RETURNED")
+    int markReturned(@Param("id") Long id, @Param("returnDate") LocalDate returnDate);
+
+    /**
+     * Verrouille un lot d'emprunts actifs dont l'echeance est passee, via l'index
+     * (status, due_date) ; les lignes deja verrouillees sont sautees (transaction requise).
+     *
+     * @param today date du jour (exclue).
+     * @param limit nombre maximal de lignes.
+     * @return emprunts tries par echeance.
+     */
+    @Query(value = "select * from loans where status = 'ACTIVE' and due_date < :today "
+            + "order by due_date, id limit :limit for update skip locked", nativeQuery = true)
+    List<Loan> lockActiveDueBefore(@Param("today") LocalDate today, @Param("limit") int limit);
+
+    /**
+     * Passe des emprunts actifs au statut OVERDUE.
+     *
+     * @param ids identifiants emprunts.
+     * @return nombre d'emprunts modifies.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Loan l set l.status = com.example.library.loanservice.model.LoanStatus.OVERDUE "
+            + "where l.id in :ids and l.status = com.example.library.loanservice.model.LoanStatus.ACTIVE")
+    int markOverdue(@Param("ids") Collection<Long> ids);
 }
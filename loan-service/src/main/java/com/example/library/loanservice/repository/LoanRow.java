@@ -0,0 +1,20 @@
+package com.example.library.loanservice.repository;
+
+import com.example.library.loanservice.model.LoanStatus;
+
+import java.time.LocalDate;
+
+/**
+ * Projection a plat d'un emprunt (expression constructeur JPQL), sans entite geree :
+ * les pages et les flux ne remplissent pas le contexte de persistance.
+ *
+ * @since 1.1
+ */
+public record LoanRow(Long id,
+                      Long userId,
+                      Long bookId,
+                      LocalDate borrowDate,
+                      LocalDate dueDate,
+                      LocalDate returnDate,
+                      LoanStatus status) {
+}
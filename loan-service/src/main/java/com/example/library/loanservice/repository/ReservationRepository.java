@@ -1,7 +1,16 @@
 package com.example.library.loanservice.repository;
 
 import com.example.library.loanservice.model.Reservation;
+import com.example.library.loanservice.model.ReservationStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 /**
  * Repository JPA pour les reservations.
@@ -9,4 +18,58 @@ import org.springframework.data.jpa.repository.JpaRepository;
  * @since 1.0
  */
 public interface ReservationRepository extends JpaRepository<Reservation, Long> {
+    /**
+     * Verrouille la plus ancienne reservation en attente d'un livre (tete de file, via
+     * l'index (book_id, status, id)) ; une tete deja verrouillee est sautee.
+     *
+     * @param bookId identifiant livre.
+     * @return reservation eventuelle.
+     */
+    @Query(value = "select * from reservations where book_id = :bookId and status = 'REQUESTED' "
+            + "order by id limit 1 for update skip locked", nativeQuery = true)
+    Optional<Reservation> lockNextRequested(@Param("bookId") Long bookId);
+
+    /**
+     * Verrouille un lot de reservations dont la mise de cote a expire (transaction requise).
+     *
+     * @param now date courante.
+     * @param limit nombre maximal de lignes.
+     * @return reservations triees par date d'expiration.
+     */
+    @Query(value = "select * from reservations where status = 'HELD' and hold_expires_at <= :now "
+            + "order by hold_expires_at limit :limit for update skip locked", nativeQuery = true)
+    List<Reservation> lockExpiredHolds(@Param("now") Instant now, @Param("limit") int limit);
+
+    /**
+     * Plus ancienne reservation d'un utilisateur sur un livre, dans un statut donne.
+     *
+     * @param userId identifiant utilisateur.
+     * @param bookId identifiant livre.
+     * @param status statut recherche.
+     * @return reservation eventuelle.
+     */
+    Optional<Reservation> findFirstByUserIdAndBookIdAndStatusOrderByIdAsc(Long userId, Long bookId,
+                                                                          ReservationStatus status);
+
+    /**
+     * File d'un livre : reservations dans les statuts fournis, par ordre d'arrivee.
+     *
+     * @param bookId identifiant livre.
+     * @param statuses statuts retenus.
+     * @return reservations triees par id.
+     */
+    List<Reservation> findByBookIdAndStatusInOrderByIdAsc(Long bookId, Collection<ReservationStatus> statuses);
+
+    /**
+     * Confirme une mise de cote encore valide (instruction atomique : une seule confirmation).
+     *
+     * @param id identifiant reservation.
+     * @param now date courante.
+     * @return 1 si la reservation a ete confirmee.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Reservation r set r.status = com.example.library.loanservice.model.ReservationStatus.CONFIRMED "
+            + "where r.id = :id and r.status = com.example.library.loanservice.model.ReservationStatus.HELD "
+            + "and r.holdExpiresAt > :now")
+    int confirmHold(@Param("id") Long id, @Param("now") Instant now);
 }
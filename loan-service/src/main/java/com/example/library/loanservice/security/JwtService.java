@@ -10,6 +10,7 @@ import org.springframework.stereotype.Service;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
 import java.time.Instant;
+import java.util.Date;
 import java.util.List;
 import java.util.Set;
 
@@ -98,6 +99,24 @@ public class JwtService {
         }
     }
 
+    /**
+     * Génère un token de service, sans utilisateur ni rôle, pour les appels émis hors
+     * requête HTTP (tâches planifiées).
+     *
+     * @param subject nom du service appelant.
+     * @return JWT signé.
+     */
+    public String generateServiceToken(String subject) {
+        Instant now = Instant.now();
+        return Jwts.builder()
+                .setSubject(subject)
+                .claim("roles", List.of())
+                .setIssuedAt(Date.from(now))
+                .setExpiration(Date.from(now.plusMillis(expirationMillis)))
+                .signWith(getSigningKey())
+                .compact();
+    }
+
     private Claims getClaims(String token) {
         return Jwts.parserBuilder()
                 .setSigningKey(getSigningKey())
@@ -0,0 +1,159 @@
+package com.example.library.loanservice.service;
+
+import com.example.library.loanservice.client.BookClient;
+import com.example.library.loanservice.dto.BookDto;
+import com.example.library.loanservice.dto.BookPage;
+import com.example.library.loanservice.dto.CatalogChangeDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.JsonNode;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Réplique locale, à cohérence différée, des copies disponibles par livre.
+ *
+ * <p>La réplique est chargée par pages depuis le Book Service, puis tenue à jour en suivant
+ * le flux {@code GET /api/books/changes} à partir de la séquence lue avant le chargement
+ * (les contenus portent des compteurs absolus, rejouer une mutation est sans effet).
+ * Elle ne sert qu'à éviter des appels distants : un livre connu sans copie est refusé
+ * localement, un livre connu n'est pas relu avant une réservation. La décision qui fait
+ * foi reste la décrémentation conditionnelle du Book Service. Au-delà de
+ * {@code loans.availability.max-staleness} sans synchronisation réussie, la réplique
+ * n'est plus consultée ; après {@code loans.availability.resync-after}, elle est rechargée.</p>
+ *
+ * @since 1.1
+ */
+@Service
+public class BookAvailabilityReplica {
+    private static final Logger log = LoggerFactory.getLogger(BookAvailabilityReplica.class);
+
+    private final BookClient bookClient;
+    private final boolean enabled;
+    private final int pageSize;
+    private final Duration maxStaleness;
+    private final Duration resyncAfter;
+
+    private volatile Map<Long, Integer> available = new ConcurrentHashMap<>();
+    private volatile long lastSequence;
+    private volatile Instant lastSync;
+
+    public BookAvailabilityReplica(BookClient bookClient,
+                                   @Value("${loans.availability.enabled:true}") boolean enabled,
+                                   @Value("${loans.availability.page-size:500}") int pageSize,
+                                   @Value("${loans.availability.max-staleness:10s}") Duration maxStaleness,
+                                   @Value("${loans.availability.resync-after:1h}") Duration resyncAfter) {
+        this.bookClient = bookClient;
+        this.enabled = enabled;
+        this.pageSize = pageSize;
+        this.maxStaleness = maxStaleness;
+        this.resyncAfter = resyncAfter;
+    }
+
+    /**
+     * Indique si la réplique, à jour, connaît ce livre sans copie disponible.
+     *
+     * @param bookId identifiant livre.
+     * @return true si le livre peut être refusé sans appel distant.
+     */
+    public boolean isKnownUnavailable(Long bookId) {
+        if (!isFresh()) {
+            return false;
+        }
+        Integer copies = available.get(bookId);
+        return copies != null && copies <= 0;
+    }
+
+    /**
+     * Indique si la réplique, à jour, connaît ce livre.
+     *
+     * @param bookId identifiant livre.
+     * @return true si le livre existe selon la réplique.
+     */
+    public boolean isKnown(Long bookId) {
+        return isFresh() && available.containsKey(bookId);
+    }
+
+    /**
+     * Enregistre les compteurs renvoyés par un appel au Book Service.
+     *
+     * @param book livre renvoyé.
+     */
+    public void record(BookDto book) {
+        if (enabled && book != null && book.getId() != null && book.getAvailableCopies() != null) {
+            available.put(book.getId(), book.getAvailableCopies());
+        }
+    }
+
+    /**
+     * Charge la réplique si nécessaire, puis applique les mutations publiées depuis la
+     * dernière séquence lue.
+     */
+    @Scheduled(fixedDelayString = "${loans.availability.poll-interval-ms:1000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            if (lastSync == null || lastSync.isBefore(Instant.now().minus(resyncAfter))) {
+                reload();
+            } else {
+                followChanges();
+            }
+            lastSync = Instant.now();
+        } catch (RuntimeException ex) {
+            log.warn("Book availability replica refresh failed, borrows will rely on book-service", ex);
+        }
+    }
+
+    private void reload() {
+        long head = bookClient.changesHead();
+        Map<Long, Integer> loaded = new ConcurrentHashMap<>();
+        Long cursor = null;
+        do {
+            BookPage page = bookClient.findPage(cursor, pageSize);
+            for (BookDto book : page.getItems()) {
+                loaded.put(book.getId(), book.getAvailableCopies());
+            }
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        available = loaded;
+        lastSequence = head;
+        followChanges();
+        log.info("Book availability replica loaded: {} books, sequence {}", loaded.size(), lastSequence);
+    }
+
+    private void followChanges() {
+        List<CatalogChangeDto> changes;
+        do {
+            changes = bookClient.changes(lastSequence, pageSize);
+            for (CatalogChangeDto change : changes) {
+                apply(change);
+                lastSequence = change.getSequence();
+            }
+        } while (changes.size() == pageSize);
+    }
+
+    private void apply(CatalogChangeDto change) {
+        if ("BOOK_DELETED".equals(change.getType())) {
+            available.remove(change.getBookId());
+            return;
+        }
+        JsonNode copies = change.getPayload() != null ? change.getPayload().get("availableCopies") : null;
+        if (copies != null && copies.isNumber()) {
+            available.put(change.getBookId(), copies.asInt());
+        }
+    }
+
+    private boolean isFresh() {
+        Instant synced = lastSync;
+        return enabled && synced != null && synced.isAfter(Instant.now().minus(maxStaleness));
+    }
+}
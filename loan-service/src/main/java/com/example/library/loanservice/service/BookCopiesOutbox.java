@@ -0,0 +1,167 @@
+package com.example.library.loanservice.service;
+
+import com.example.library.loanservice.client.BookClient;
+import com.example.library.loanservice.dto.CopiesBatchEntry;
+import com.example.library.loanservice.dto.CopiesBatchResult;
+import com.example.library.loanservice.model.BookCopyDelta;
+import com.example.library.loanservice.repository.BookCopyDeltaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Outbox des variations de copies destinées au Book Service.
+ *
+ * <p>Les variations sont écrites dans la table {@code book_copy_outbox} dans la même
+ * transaction que l'emprunt : elles ne sont envoyées que si l'emprunt est enregistré,
+ * et ne sont pas perdues si le Book Service est indisponible. Un répartiteur planifié
+ * verrouille les plus anciennes lignes ({@code skip locked}, plusieurs instances possibles),
+ * leur attribue un lot d'envoi (committé avant l'appel), les cumule par livre et les envoie
+ * en un seul appel {@code PATCH /api/books/copies} portant l'identifiant du lot comme clé
+ * d'idempotence ; les lignes ne sont supprimées qu'après la réponse. Un lot dont la réponse
+ * est perdue est renvoyé à l'identique avec la même clé, et le Book Service ne l'applique
+ * qu'une fois. Les variations refusées sont conservées dans {@code book_copy_dead_letter}.
+ * Celles d'un titre chaud arrivées sur une instance qui n'en tient pas le stock
+ * ({@code OWNED_ELSEWHERE}, rien n'est appliqué) sont retirées du lot et repartent dans
+ * un lot suivant, sans bloquer le reste.</p>
+ *
+ * @since 1.1
+ */
+@Service
+public class BookCopiesOutbox {
+    private static final Logger log = LoggerFactory.getLogger(BookCopiesOutbox.class);
+    private static final String OWNED_ELSEWHERE = "OWNED_ELSEWHERE";
+
+    private final BookCopyDeltaRepository repository;
+    private final BookClient bookClient;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public BookCopiesOutbox(BookCopyDeltaRepository repository,
+                            BookClient bookClient,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${loans.copies-outbox.batch-size:500}") int batchSize) {
+        this.repository = repository;
+        this.bookClient = bookClient;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Ajoute une variation dans la transaction courante.
+     *
+     * @param bookId identifiant livre.
+     * @param deltaAvailable variation des copies disponibles.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(Long bookId, int deltaAvailable) {
+        repository.save(delta(bookId, deltaAvailable));
+    }
+
+    /**
+     * Ajoute une variation dans sa propre transaction (compensation hors transaction métier).
+     *
+     * @param bookId identifiant livre.
+     * @param deltaAvailable variation des copies disponibles.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void appendNow(Long bookId, int deltaAvailable) {
+        repository.save(delta(bookId, deltaAvailable));
+    }
+
+    /**
+     * Envoie les variations en attente, lot par lot, jusqu'à vider l'outbox.
+     */
+    @Scheduled(fixedDelayString = "${loans.copies-outbox.dispatch-interval-ms:500}")
+    public void dispatch() {
+        try {
+            Integer sent;
+            do {
+                String batchId = transactionTemplate.execute(status -> prepareBatch());
+                sent = batchId != null ? transactionTemplate.execute(status -> sendBatch(batchId)) : null;
+            } while (sent != null && sent == batchSize);
+        } catch (RuntimeException ex) {
+            log.warn("Copy delta dispatch failed, pending deltas will be retried", ex);
+        }
+    }
+
+    private String prepareBatch() {
+        List<BookCopyDelta> pending = repository.lockBatch(batchSize);
+        if (pending.isEmpty()) {
+            return null;
+        }
+        String oldest = pending.get(0).getBatchId();
+        if (oldest != null) {
+            return oldest;
+        }
+        String batchId = UUID.randomUUID().toString();
+        List<Long> ids = pending.stream()
+                .filter(delta -> delta.getBatchId() == null)
+                .map(BookCopyDelta::getId)
+                .toList();
+        repository.assignBatch(batchId, ids);
+        return batchId;
+    }
+
+    private int sendBatch(String batchId) {
+        List<BookCopyDelta> pending = repository.lockByBatchId(batchId);
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        Map<Long, Integer> coalesced = new LinkedHashMap<>();
+        for (BookCopyDelta delta : pending) {
+            coalesced.merge(delta.getBookId(), delta.getDeltaAvailable(), Integer::sum);
+        }
+        List<CopiesBatchEntry> entries = new ArrayList<>(coalesced.size());
+        coalesced.forEach((bookId, deltaAvailable) -> {
+            if (deltaAvailable != 0) {
+                entries.add(new CopiesBatchEntry(bookId, deltaAvailable, 0));
+            }
+        });
+        Set<Long> requeued = new HashSet<>();
+        if (!entries.isEmpty()) {
+            List<CopiesBatchResult> results = bookClient.updateCopiesBatch(batchId, entries);
+            for (int i = 0; i < results.size(); i++) {
+                CopiesBatchResult result = results.get(i);
+                CopiesBatchEntry entry = entries.get(i);
+                if (OWNED_ELSEWHERE.equals(result.getStatus())) {
+                    log.debug("Copy delta for hot title {} reached a non-owner instance, requeued", entry.getBookId());
+                    repository.releaseFromBatch(batchId, entry.getBookId());
+                    requeued.add(entry.getBookId());
+                } else if (!"UPDATED".equals(result.getStatus())) {
+                    log.warn("Copy delta {} for book {} rejected by book-service ({}), moved to dead letters",
+                            entry.getDeltaAvailable(), entry.getBookId(), result.getStatus());
+                    repository.deadLetter(batchId, entry.getBookId(), result.getStatus());
+                }
+            }
+        }
+        List<BookCopyDelta> done = pending.stream()
+                .filter(delta -> !requeued.contains(delta.getBookId()))
+                .toList();
+        repository.deleteAllInBatch(done);
+        return done.size();
+    }
+
+    private static BookCopyDelta delta(Long bookId, int deltaAvailable) {
+        return BookCopyDelta.builder()
+                .bookId(bookId)
+                .deltaAvailable(deltaAvailable)
+                .createdAt(Instant.now())
+                .build();
+    }
+}
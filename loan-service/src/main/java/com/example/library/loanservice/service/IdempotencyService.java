@@ -0,0 +1,222 @@
+package com.example.library.loanservice.service;
+
+import com.example.library.loanservice.exception.IdempotencyConflictException;
+import com.example.library.loanservice.exception.IdempotencyKeyMismatchException;
+import com.example.library.loanservice.model.IdempotencyRecord;
+import com.example.library.loanservice.model.IdempotencyStatus;
+import com.example.library.loanservice.repository.IdempotencyRecordRepository;
+import com.example.library.loanservice.security.UserPrincipal;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.ObjectMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Rejeu des réponses des requêtes portant un en-tête {@code Idempotency-Key}.
+ *
+ * <p>La première requête réserve la clé en base (insertion atomique), exécute l'opération
+ * puis enregistre sa réponse ; une nouvelle tentative avec la même clé reçoit la réponse
+ * enregistrée sans rejouer les appels distants. Les réponses terminées sont aussi gardées
+ * en mémoire pour éviter la lecture en base. Les clés sont propres à chaque utilisateur
+ * et expirent après {@code loans.idempotency.ttl}. Une opération en échec libère la clé.</p>
+ *
+ * <p>Une réponse provisoire (emprunt {@code PENDING} : le Book Service n'a pas répondu) ne
+ * libère pas la clé : elle reste incertaine et seule la même requête peut la reprendre.
+ * L'opération reçoit une clé à transmettre au Book Service, conservée d'une tentative à
+ * l'autre tant que l'issue est incertaine : une décrémentation peut-être appliquée avant un
+ * délai de lecture dépassé ne l'est pas une seconde fois.</p>
+ *
+ * <p>Une clé en cours n'est reprise qu'après la durée maximale d'une opération : toutes
+ * les tentatives Resilience4j, chacune bornée par les délais de connexion et de lecture
+ * Feign, plus une marge. Une reprise plus précoce pourrait rejouer une décrémentation
+ * encore en vol.</p>
+ *
+ * @since 1.1
+ */
+@Service
+public class IdempotencyService {
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private final IdempotencyRecordRepository repository;
+    private final ObjectMapper objectMapper;
+    private final Cache<String, IdempotencyRecord> completed;
+    private final Duration ttl;
+    private final Duration inProgressTimeout;
+
+    public IdempotencyService(IdempotencyRecordRepository repository,
+                              ObjectMapper objectMapper,
+                              @Value("${loans.idempotency.ttl:24h}") Duration ttl,
+                              @Value("${spring.cloud.openfeign.client.config.default.connect-timeout:10000}") long connectTimeoutMs,
+                              @Value("${spring.cloud.openfeign.client.config.default.read-timeout:60000}") long readTimeoutMs,
+                              @Value("${resilience4j.retry.instances.bookService.max-attempts:3}") int retryAttempts,
+                              @Value("${resilience4j.retry.instances.bookService.wait-duration:500ms}") Duration retryWait,
+                              @Value("${loans.idempotency.in-progress-margin:10s}") Duration inProgressMargin,
+                              @Value("${loans.idempotency.memory-size:10000}") long memorySize) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.inProgressTimeout = Duration.ofMillis(connectTimeoutMs + readTimeoutMs)
+                .multipliedBy(Math.max(1, retryAttempts))
+                .plus(retryWait.multipliedBy(Math.max(0, retryAttempts - 1)))
+                .plus(inProgressMargin);
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(memorySize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Exécute une opération au plus une fois par clé d'idempotence.
+     *
+     * @param key valeur de l'en-tête (null : pas d'idempotence).
+     * @param operation nom de l'opération (fait partie de la clé).
+     * @param request contenu de la requête, comparé lors d'un rejeu.
+     * @param type type de la réponse.
+     * @param action opération.
+     * @param storable indique si la réponse est définitive (sinon la clé reste incertaine).
+     * @param <T> type de la réponse.
+     * @return réponse de l'opération, ou réponse enregistrée lors d'un rejeu.
+     * @throws IdempotencyConflictException si la même clé est en cours de traitement.
+     * @throws IdempotencyKeyMismatchException si la clé a servi pour une autre requête.
+     */
+    public <T> ResponseEntity<T> execute(String key,
+                                         String operation,
+                                         Object request,
+                                         Class<T> type,
+                                         Supplier<T> action,
+                                         Predicate<T> storable) {
+        return execute(key, operation, request, type, downstreamKey -> action.get(), storable);
+    }
+
+    /**
+     * Exécute une opération au plus une fois par clé d'idempotence, en lui transmettant la
+     * clé à propager au service appelé.
+     *
+     * @param key valeur de l'en-tête (null : pas d'idempotence).
+     * @param operation nom de l'opération (fait partie de la clé).
+     * @param request contenu de la requête, comparé lors d'un rejeu.
+     * @param type type de la réponse.
+     * @param action opération, recevant la clé à propager (null sans idempotence).
+     * @param storable indique si la réponse est définitive (sinon la clé reste incertaine).
+     * @param <T> type de la réponse.
+     * @return réponse de l'opération, ou réponse enregistrée lors d'un rejeu.
+     * @throws IdempotencyConflictException si la même clé est en cours de traitement.
+     * @throws IdempotencyKeyMismatchException si la clé a servi pour une autre requête.
+     */
+    public <T> ResponseEntity<T> execute(String key,
+                                         String operation,
+                                         Object request,
+                                         Class<T> type,
+                                         Function<String, T> action,
+                                         Predicate<T> storable) {
+        if (key == null || key.isBlank()) {
+            return ResponseEntity.ok(action.apply(null));
+        }
+        String scopedKey = currentUser() + ":" + operation + ":" + key.trim();
+        String fingerprint = fingerprint(operation, request);
+
+        IdempotencyRecord cached = completed.getIfPresent(scopedKey);
+        if (cached != null) {
+            return replay(key, cached, fingerprint, type);
+        }
+
+        Instant now = Instant.now();
+        String downstreamKey = UUID.randomUUID().toString();
+        if (repository.claim(scopedKey, fingerprint, downstreamKey, now, now.plus(ttl)) == 0) {
+            if (repository.takeOver(scopedKey, fingerprint, downstreamKey, now, now.minus(inProgressTimeout), now.plus(ttl)) == 1) {
+                downstreamKey = repository.findById(scopedKey)
+                        .map(IdempotencyRecord::getDownstreamKey)
+                        .orElse(downstreamKey);
+            } else {
+                Optional<IdempotencyRecord> existing = repository.findById(scopedKey);
+                if (existing.isPresent() && existing.get().getStatus() == IdempotencyStatus.UNCERTAIN
+                        && !existing.get().getFingerprint().equals(fingerprint)) {
+                    throw new IdempotencyKeyMismatchException(key);
+                }
+                if (existing.isEmpty() || existing.get().getStatus() != IdempotencyStatus.COMPLETED) {
+                    throw new IdempotencyConflictException(key);
+                }
+                completed.put(scopedKey, existing.get());
+                return replay(key, existing.get(), fingerprint, type);
+            }
+        }
+
+        T response;
+        try {
+            response = action.apply(downstreamKey);
+        } catch (RuntimeException ex) {
+            repository.deleteById(scopedKey);
+            throw ex;
+        }
+        if (!storable.test(response)) {
+            repository.markUncertain(scopedKey);
+            return ResponseEntity.ok(response);
+        }
+        String body = objectMapper.writeValueAsString(response);
+        repository.complete(scopedKey, body);
+        completed.put(scopedKey, IdempotencyRecord.builder()
+                .key(scopedKey)
+                .fingerprint(fingerprint)
+                .status(IdempotencyStatus.COMPLETED)
+                .responseBody(body)
+                .createdAt(now)
+                .expiresAt(now.plus(ttl))
+                .build());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Supprime périodiquement les clés expirées.
+     */
+    @Scheduled(fixedDelayString = "${loans.idempotency.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        repository.deleteExpired(Instant.now());
+    }
+
+    private <T> ResponseEntity<T> replay(String key, IdempotencyRecord record, String fingerprint, Class<T> type) {
+        if (!record.getFingerprint().equals(fingerprint)) {
+            throw new IdempotencyKeyMismatchException(key);
+        }
+        return ResponseEntity.ok()
+                .header(REPLAYED_HEADER, "true")
+                .body(objectMapper.readValue(record.getResponseBody(), type));
+    }
+
+    private String fingerprint(String operation, Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(operation.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            digest.update(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserPrincipal principal) {
+            return String.valueOf(principal.getId());
+        }
+        return authentication != null ? authentication.getName() : "anonymous";
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.library.loanservice.service;
+
+import com.example.library.loanservice.repository.LoanArchiveRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+/**
+ * Archive les emprunts rendus depuis plus de {@code loans.archive.min-age}.
+ *
+ * <p>Les emprunts sont déplacés de {@code loans} vers {@code loans_archive} (partition
+ * par année de retour) par lots de {@code loans.archive.batch-size} : chaque lot est une
+ * seule instruction (suppression et insertion) dans sa propre transaction, sur des lignes
+ * verrouillées ({@code skip locked}). La table chaude et ses index ne portent ainsi que
+ * les emprunts en cours et l'historique récent.</p>
+ *
+ * @since 1.1
+ */
+@Service
+public class LoanArchiver {
+    private static final Logger log = LoggerFactory.getLogger(LoanArchiver.class);
+
+    private final LoanArchiveRepository archiveRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Duration minAge;
+    private final int batchSize;
+
+    public LoanArchiver(LoanArchiveRepository archiveRepository,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${loans.archive.enabled:true}") boolean enabled,
+                        @Value("${loans.archive.min-age:365d}") Duration minAge,
+                        @Value("${loans.archive.batch-size:1000}") int batchSize) {
+        this.archiveRepository = archiveRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.minAge = minAge;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Déplace, lot par lot, les emprunts rendus avant la date limite vers l'archive.
+     */
+    @Scheduled(cron = "${loans.archive.cron:0 30 1 * * *}")
+    public void archive() {
+        if (!enabled) {
+            return;
+        }
+        LocalDate cutoff = LocalDate.now().minusDays(minAge.toDays());
+        int total = 0;
+        try {
+            for (int year : archiveRepository.findReturnYearsBefore(cutoff)) {
+                createPartition(year);
+            }
+            Integer moved;
+            do {
+                moved = transactionTemplate.execute(status -> archiveRepository.moveReturnedBefore(cutoff, batchSize));
+                total += moved != null ? moved : 0;
+            } while (moved != null && moved == batchSize);
+        } catch (RuntimeException ex) {
+            log.warn("Loan archival stopped after {} loans, will resume on next run", total, ex);
+            return;
+        }
+        if (total > 0) {
+            log.info("{} returned loans archived (returned before {})", total, cutoff);
+        }
+    }
+
+    private void createPartition(int year) {
+        try {
+            archiveRepository.createYearPartition(year);
+        } catch (RuntimeException ex) {
+            log.warn("Archive partition for {} could not be created, loans will go to the default partition", year, ex);
+        }
+    }
+}
@@ -5,8 +5,12 @@ import com.example.library.loanservice.client.UserClient;
 import com.example.library.loanservice.dto.BookDto;
 import com.example.library.loanservice.dto.BorrowRequest;
 import com.example.library.loanservice.dto.LoanDto;
+import com.example.library.loanservice.dto.LoanFilter;
+import com.example.library.loanservice.dto.LoanPage;
 import com.example.library.loanservice.dto.ReservationDto;
 import com.example.library.loanservice.dto.UpdateCopiesRequest;
+import com.example.library.loanservice.dto.UserDto;
+import com.example.library.loanservice.exception.BadRequestException;
 import com.example.library.loanservice.exception.BookNotAvailableException;
 import com.example.library.loanservice.exception.NotFoundException;
 import com.example.library.loanservice.mapper.LoanMapper;
@@ -15,80 +19,152 @@ import com.example.library.loanservice.model.Loan;
 import com.example.library.loanservice.model.LoanStatus;
 import com.example.library.loanservice.model.Reservation;
 import com.example.library.loanservice.model.ReservationStatus;
+import com.example.library.loanservice.repository.LoanArchiveRepository;
 import com.example.library.loanservice.repository.LoanRepository;
+import com.example.library.loanservice.repository.LoanRow;
 import com.example.library.loanservice.repository.ReservationRepository;
+import feign.FeignException;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.retry.annotation.Retry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Service métier pour la gestion des emprunts.
  *
+ * <p>Les lectures fusionnent la table chaude {@code loans} et l'archive des emprunts
+ * rendus (voir {@link LoanArchiver}) : un emprunt archivé reste visible partout, trié
+ * par id avec les autres.</p>
+ *
  * @since 1.0
  */
 @Service
 public class LoanService {
+    private static final Logger log = LoggerFactory.getLogger(LoanService.class);
+    private static final LocalDate MIN_DATE = LocalDate.of(1, 1, 1);
+    private static final LocalDate MAX_DATE = LocalDate.of(9999, 12, 31);
 
     private final LoanRepository loanRepository;
+    private final LoanArchiveRepository archiveRepository;
     private final BookClient bookClient;
     private final UserClient userClient;
     private final ReservationRepository reservationRepository;
+    private final BookCopiesOutbox copiesOutbox;
+    private final BookAvailabilityReplica availabilityReplica;
+    private final ReservationQueue reservationQueue;
+    private final Executor remoteCallExecutor;
+    private final int maxPageSize;
 
     public LoanService(LoanRepository loanRepository,
+                       LoanArchiveRepository archiveRepository,
                        BookClient bookClient,
                        UserClient userClient,
-                       ReservationRepository reservationRepository) {
+                       ReservationRepository reservationRepository,
+                       BookCopiesOutbox copiesOutbox,
+                       BookAvailabilityReplica availabilityReplica,
+                       ReservationQueue reservationQueue,
+                       @Qualifier("remoteCallExecutor") Executor remoteCallExecutor,
+                       @Value("${loans.page.max-size:500}") int maxPageSize) {
         this.loanRepository = loanRepository;
+        this.archiveRepository = archiveRepository;
         this.bookClient = bookClient;
         this.userClient = userClient;
         this.reservationRepository = reservationRepository;
+        this.copiesOutbox = copiesOutbox;
+        this.availabilityReplica = availabilityReplica;
+        this.reservationQueue = reservationQueue;
+        this.remoteCallExecutor = remoteCallExecutor;
+        this.maxPageSize = maxPageSize;
     }
 
     /**
      * Crée un emprunt en appelant User Service et Book Service.
      *
-     * <p>Protégé par CircuitBreaker/Retry via Resilience4j.</p>
+     * <p>La vérification de l'utilisateur et la décrémentation du stock partent en
+     * parallèle : la décrémentation conditionnelle du Book Service tient lieu de contrôle
+     * de disponibilité (409 si aucune copie) et reste donc synchrone. Si l'utilisateur est
+     * introuvable ou si l'enregistrement de l'emprunt échoue, la copie est rendue via
+     * l'outbox des copies. Un livre que la réplique locale sait sans copie est refusé
+     * sans appel distant.</p>
+     *
+     * <p>Si l'utilisateur est titulaire d'une copie mise de côté pour ce livre, l'emprunt
+     * consomme cette copie, sans appel distant.</p>
+     *
+     * <p>Protégé par CircuitBreaker/Retry via Resilience4j ; seuls les échecs où la requête
+     * n'a pas été envoyée sont retentés ({@code RequestNotSentPredicate}), une décrémentation
+     * peut-être appliquée n'est jamais rejouée.</p>
+     *
+     * <p>Avec une clé de décrémentation, le Book Service n'applique la décrémentation qu'une
+     * fois par clé : une nouvelle tentative après un emprunt {@code PENDING} (délai de lecture
+     * dépassé) ne retire pas une seconde copie.</p>
      *
      * @param request demande d'emprunt.
+     * @param copiesKey clé d'idempotence de la décrémentation (optionnelle).
      * @return emprunt créé.
+     * @throws BookNotAvailableException si aucune copie n'est disponible.
      */
     @CircuitBreaker(name = "bookService", fallbackMethod = "borrowFallback")
     @Retry(name = "bookService", fallbackMethod = "borrowFallback")
-    public LoanDto borrow(BorrowRequest request) {
-        userClient.findById(request.getUserId());
-
-        BookDto book = bookClient.findById(request.getBookId());
-        if (book.getAvailableCopies() == null || book.getAvailableCopies() < 1) {
-            throw new BookNotAvailableException(request.getBookId());
+    public LoanDto borrow(BorrowRequest request, String copiesKey) {
+        Long bookId = request.getBookId();
+        Optional<Loan> held = reservationQueue.borrowHeld(newLoan(request));
+        if (held.isPresent()) {
+            return LoanMapper.toDto(held.get());
         }
+        if (availabilityReplica.isKnownUnavailable(bookId)) {
+            throw new BookNotAvailableException(bookId);
+        }
+        CompletableFuture<UserDto> user = CompletableFuture.supplyAsync(
+                () -> userClient.findById(request.getUserId()), remoteCallExecutor);
+        CompletableFuture<BookDto> decrement = CompletableFuture.supplyAsync(
+                () -> bookClient.updateCopies(bookId, copiesKey, copiesDelta(-1)), remoteCallExecutor);
 
-        Loan loan = Loan.builder()
-                .userId(request.getUserId())
-                .bookId(request.getBookId())
-                .borrowDate(LocalDate.now())
-                .dueDate(LocalDate.now().plusWeeks(3))
-                .status(LoanStatus.ACTIVE)
-                .build();
-
-        UpdateCopiesRequest update = new UpdateCopiesRequest();
-        update.setDeltaAvailable(-1);
-        bookClient.updateCopies(request.getBookId(), update);
-
-        return LoanMapper.toDto(loanRepository.save(loan));
+        try {
+            availabilityReplica.record(await(decrement, bookId, "Book not found"));
+        } catch (RuntimeException ex) {
+            user.cancel(true);
+            throw ex;
+        }
+        try {
+            await(user, bookId, "User not found");
+            return LoanMapper.toDto(loanRepository.save(newLoan(request)));
+        } catch (RuntimeException ex) {
+            releaseCopy(bookId);
+            throw ex;
+        }
     }
 
     /**
      * Fallback en cas d'indisponibilité du Book Service.
      *
      * @param request demande d'emprunt.
+     * @param copiesKey clé d'idempotence de la décrémentation.
      * @param ex exception déclenchée.
      * @return emprunt en statut PENDING.
      */
-    public LoanDto borrowFallback(BorrowRequest request, Throwable ex) {
+    public LoanDto borrowFallback(BorrowRequest request, String copiesKey, Throwable ex) {
         return LoanDto.builder()
                 .userId(request.getUserId())
                 .bookId(request.getBookId())
@@ -97,38 +173,91 @@ public class LoanService {
                 .build();
     }
 
+    /**
+     * Un livre sans copie disponible n'est pas une indisponibilité du service : l'erreur
+     * est propagée (409).
+     *
+     * @param request demande d'emprunt.
+     * @param copiesKey clé d'idempotence de la décrémentation.
+     * @param ex exception déclenchée.
+     * @return jamais.
+     */
+    public LoanDto borrowFallback(BorrowRequest request, String copiesKey, BookNotAvailableException ex) {
+        throw ex;
+    }
+
+    /**
+     * Un utilisateur ou un livre inconnu n'est pas une indisponibilité du service :
+     * l'erreur est propagée (404).
+     *
+     * @param request demande d'emprunt.
+     * @param copiesKey clé d'idempotence de la décrémentation.
+     * @param ex exception déclenchée.
+     * @return jamais.
+     */
+    public LoanDto borrowFallback(BorrowRequest request, String copiesKey, NotFoundException ex) {
+        throw ex;
+    }
+
+    /**
+     * Un emprunt que la base n'a pas pu enregistrer n'est pas une indisponibilité du Book
+     * Service : sa copie a été rendue, l'erreur est propagée plutôt qu'un emprunt
+     * {@code PENDING}, afin que la clé d'idempotence soit libérée et qu'une nouvelle
+     * tentative décrémente à nouveau le stock.
+     *
+     * @param request demande d'emprunt.
+     * @param copiesKey clé d'idempotence de la décrémentation.
+     * @param ex exception déclenchée.
+     * @return jamais.
+     */
+    public LoanDto borrowFallback(BorrowRequest request, String copiesKey, DataAccessException ex) {
+        throw ex;
+    }
+
     /**
      * Retourne un emprunt et incrémente les copies du livre.
      *
+     * <p>Si des réservations attendent ce livre, la copie est mise de côté pour la tête de
+     * file ; sinon l'incrément est écrit dans l'outbox des copies, dans la même transaction
+     * que l'emprunt : le retour n'attend pas le Book Service.</p>
+     *
      * @param id identifiant emprunt.
      * @param returnDate date de retour (optionnelle).
      * @return emprunt mis à jour.
      */
+    @Transactional
     public LoanDto returnLoan(Long id, LocalDate returnDate) {
-        Loan loan = loanRepository.findById(id)
-                .orElseThrow(() -> new NotFoundException("Loan not found"));
+        Optional<Loan> hot = loanRepository.findById(id);
+        if (hot.isEmpty()) {
+            return findArchived(id);
+        }
+        Loan loan = hot.get();
         if (loan.getStatus() == LoanStatus.RETURNED) {
             return LoanMapper.toDto(loan);
         }
-        loan.setReturnDate(returnDate != null ? returnDate : LocalDate.now());
-        loan.setStatus(LoanStatus.RETURNED);
-
-        UpdateCopiesRequest update = new UpdateCopiesRequest();
-        update.setDeltaAvailable(1);
-        bookClient.updateCopies(loan.getBookId(), update);
-
-        return LoanMapper.toDto(loanRepository.save(loan));
+        if (loanRepository.markReturned(id, returnDate != null ? returnDate : LocalDate.now()) == 1
+                && reservationQueue.holdNext(loan.getBookId()).isEmpty()) {
+            copiesOutbox.append(loan.getBookId(), 1);
+        }
+        return findById(id);
     }
 
     /**
      * Cree une reservation de livre.
      *
+     * <p>Un livre connu de la replique locale n'est pas relu aupres du Book Service.</p>
+     *
      * @param request demande de reservation.
      * @return reservation creee.
      */
     public ReservationDto reserve(BorrowRequest request) {
-        userClient.findById(request.getUserId());
-        bookClient.findById(request.getBookId());
+        CompletableFuture<UserDto> user = CompletableFuture.supplyAsync(
+                () -> userClient.findById(request.getUserId()), remoteCallExecutor);
+        CompletableFuture<BookDto> book = availabilityReplica.isKnown(request.getBookId())
+                ? CompletableFuture.completedFuture(null)
+                : CompletableFuture.supplyAsync(() -> bookClient.findById(request.getBookId()), remoteCallExecutor);
+        await(user, request.getBookId(), "User not found");
+        await(book, request.getBookId(), "Book not found");
 
         Reservation reservation = Reservation.builder()
                 .userId(request.getUserId())
@@ -146,9 +275,7 @@ public class LoanService {
      * @return liste d'emprunts.
      */
     public List<LoanDto> findAll() {
-        return loanRepository.findAll().stream()
-                .map(LoanMapper::toDto)
-                .collect(Collectors.toList());
+        return merge(loanRepository.findAll(), archiveRepository.findAll(null, null));
     }
 
     /**
@@ -158,8 +285,9 @@ public class LoanService {
      * @return emprunt.
      */
     public LoanDto findById(Long id) {
-        return LoanMapper.toDto(loanRepository.findById(id)
-                .orElseThrow(() -> new NotFoundException("Loan not found")));
+        return loanRepository.findById(id)
+                .map(LoanMapper::toDto)
+                .orElseGet(() -> findArchived(id));
     }
 
     /**
@@ -169,9 +297,7 @@ public class LoanService {
      * @return liste d'emprunts.
      */
     public List<LoanDto> findByUserId(Long userId) {
-        return loanRepository.findByUserId(userId).stream()
-                .map(LoanMapper::toDto)
-                .collect(Collectors.toList());
+        return merge(loanRepository.findByUserId(userId), archiveRepository.findAll(userId, null));
     }
 
     /**
@@ -181,8 +307,227 @@ public class LoanService {
      * @return liste d'emprunts.
      */
     public List<LoanDto> findByBookId(Long bookId) {
-        return loanRepository.findByBookId(bookId).stream()
-                .map(LoanMapper::toDto)
+        return merge(loanRepository.findByBookId(bookId), archiveRepository.findAll(null, bookId));
+    }
+
+    /**
+     * Retourne une page d'emprunts filtrés par curseur (keyset sur l'id).
+     *
+     * @param filter statuts et dates d'emprunt (optionnels).
+     * @param after dernier id de la page précédente (null pour la première page).
+     * @param size taille demandée, plafonnée par {@code loans.page.max-size}.
+     * @return page et curseur suivant (null en fin de liste).
+     */
+    public LoanPage findPage(LoanFilter filter, Long after, int size) {
+        int limit = pageLimit(size);
+        return page(loanRepository.findPageAfter(cursor(after), statuses(filter), from(filter), to(filter),
+                PageRequest.of(0, limit + 1)), archivedPage(null, null, filter, after, limit), limit);
+    }
+
+    /**
+     * Retourne une page des emprunts filtrés d'un utilisateur par curseur.
+     *
+     * @param userId identifiant utilisateur.
+     * @param filter statuts et dates d'emprunt (optionnels).
+     * @param after dernier id de la page précédente (null pour la première page).
+     * @param size taille demandée, plafonnée par {@code loans.page.max-size}.
+     * @return page et curseur suivant (null en fin de liste).
+     */
+    public LoanPage findPageByUserId(Long userId, LoanFilter filter, Long after, int size) {
+        int limit = pageLimit(size);
+        return page(loanRepository.findUserPageAfter(userId, cursor(after), statuses(filter), from(filter), to(filter),
+                PageRequest.of(0, limit + 1)), archivedPage(userId, null, filter, after, limit), limit);
+    }
+
+    /**
+     * Retourne une page des emprunts filtrés d'un livre par curseur.
+     *
+     * @param bookId identifiant livre.
+     * @param filter statuts et dates d'emprunt (optionnels).
+     * @param after dernier id de la page précédente (null pour la première page).
+     * @param size taille demandée, plafonnée par {@code loans.page.max-size}.
+     * @return page et curseur suivant (null en fin de liste).
+     */
+    public LoanPage findPageByBookId(Long bookId, LoanFilter filter, Long after, int size) {
+        int limit = pageLimit(size);
+        return page(loanRepository.findBookPageAfter(bookId, cursor(after), statuses(filter), from(filter), to(filter),
+                PageRequest.of(0, limit + 1)), archivedPage(null, bookId, filter, after, limit), limit);
+    }
+
+    /**
+     * Parcourt les emprunts filtrés via un curseur base de données, à mémoire constante
+     * (table chaude et archive fusionnées par id, lues dans un même instantané).
+     *
+     * @param filter statuts et dates d'emprunt (optionnels).
+     * @param consumer reçoit chaque emprunt dans l'ordre des ids.
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public void streamAll(LoanFilter filter, Consumer<LoanDto> consumer) {
+        forEach(loanRepository.streamFiltered(statuses(filter), from(filter), to(filter)),
+                archivedStream(null, null, filter), consumer);
+    }
+
+    /**
+     * Parcourt les emprunts filtrés d'un utilisateur via un curseur base de données.
+     *
+     * @param userId identifiant utilisateur.
+     * @param filter statuts et dates d'emprunt (optionnels).
+     * @param consumer reçoit chaque emprunt dans l'ordre des ids.
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public void streamByUserId(Long userId, LoanFilter filter, Consumer<LoanDto> consumer) {
+        forEach(loanRepository.streamByUserId(userId, statuses(filter), from(filter), to(filter)),
+                archivedStream(userId, null, filter), consumer);
+    }
+
+    /**
+     * Parcourt les emprunts filtrés d'un livre via un curseur base de données.
+     *
+     * @param bookId identifiant livre.
+     * @param filter statuts et dates d'emprunt (optionnels).
+     * @param consumer reçoit chaque emprunt dans l'ordre des ids.
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public void streamByBookId(Long bookId, LoanFilter filter, Consumer<LoanDto> consumer) {
+        forEach(loanRepository.streamByBookId(bookId, statuses(filter), from(filter), to(filter)),
+                archivedStream(null, bookId, filter), consumer);
+    }
+
+    /**
+     * File d'attente d'un livre (réservations mises de côté puis en attente).
+     *
+     * @param bookId identifiant livre.
+     * @return réservations par ordre d'arrivée.
+     */
+    public List<ReservationDto> findReservationQueue(Long bookId) {
+        return reservationQueue.queue(bookId).stream()
+                .map(ReservationMapper::toDto)
                 .collect(Collectors.toList());
     }
+
+    private int pageLimit(int size) {
+        if (size < 1) {
+            throw new BadRequestException("Page size must be positive");
+        }
+        return Math.min(size, maxPageSize);
+    }
+
+    private static LoanPage page(List<LoanRow> hot, List<LoanRow> archived, int limit) {
+        List<LoanRow> rows = new ArrayList<>(hot.size() + archived.size());
+        rows.addAll(hot);
+        rows.addAll(archived);
+        rows.sort(Comparator.comparing(LoanRow::id));
+        boolean hasMore = rows.size() > limit;
+        List<LoanRow> page = hasMore ? rows.subList(0, limit) : rows;
+        return LoanPage.builder()
+                .items(page.stream().map(LoanMapper::toDto).collect(Collectors.toList()))
+                .nextCursor(hasMore ? page.get(limit - 1).id() : null)
+                .build();
+    }
+
+    private List<LoanRow> archivedPage(Long userId, Long bookId, LoanFilter filter, Long after, int limit) {
+        if (!statuses(filter).contains(LoanStatus.RETURNED)) {
+            return List.of();
+        }
+        return archiveRepository.findPageAfter(userId, bookId, cursor(after), from(filter), to(filter), limit + 1);
+    }
+
+    private Stream<LoanRow> archivedStream(Long userId, Long bookId, LoanFilter filter) {
+        if (!statuses(filter).contains(LoanStatus.RETURNED)) {
+            return Stream.empty();
+        }
+        return archiveRepository.stream(userId, bookId, from(filter), to(filter));
+    }
+
+    private LoanDto findArchived(Long id) {
+        return archiveRepository.findById(id)
+                .map(LoanMapper::toDto)
+                .orElseThrow(() -> new NotFoundException("Loan not found"));
+    }
+
+    private static List<LoanDto> merge(List<Loan> hot, List<LoanRow> archived) {
+        List<LoanDto> loans = new ArrayList<>(hot.size() + archived.size());
+        hot.forEach(loan -> loans.add(LoanMapper.toDto(loan)));
+        archived.forEach(row -> loans.add(LoanMapper.toDto(row)));
+        loans.sort(Comparator.comparing(LoanDto::getId));
+        return loans;
+    }
+
+    private static void forEach(Stream<LoanRow> hot, Stream<LoanRow> archived, Consumer<LoanDto> consumer) {
+        try (hot; archived) {
+            Iterator<LoanRow> left = hot.iterator();
+            Iterator<LoanRow> right = archived.iterator();
+            LoanRow nextLeft = left.hasNext() ? left.next() : null;
+            LoanRow nextRight = right.hasNext() ? right.next() : null;
+            while (nextLeft != null || nextRight != null) {
+                if (nextRight == null || (nextLeft != null && nextLeft.id() < nextRight.id())) {
+                    consumer.accept(LoanMapper.toDto(nextLeft));
+                    nextLeft = left.hasNext() ? left.next() : null;
+                } else {
+                    consumer.accept(LoanMapper.toDto(nextRight));
+                    nextRight = right.hasNext() ? right.next() : null;
+                }
+            }
+        }
+    }
+
+    private static long cursor(Long after) {
+        return after == null ? 0L : after;
+    }
+
+    private static Collection<LoanStatus> statuses(LoanFilter filter) {
+        return filter == null || filter.getStatus() == null || filter.getStatus().isEmpty()
+                ? EnumSet.allOf(LoanStatus.class)
+                : filter.getStatus();
+    }
+
+    private static LocalDate from(LoanFilter filter) {
+        return filter == null || filter.getFrom() == null ? MIN_DATE : filter.getFrom();
+    }
+
+    private static LocalDate to(LoanFilter filter) {
+        return filter == null || filter.getTo() == null ? MAX_DATE : filter.getTo();
+    }
+
+    private static Loan newLoan(BorrowRequest request) {
+        return Loan.builder()
+                .userId(request.getUserId())
+                .bookId(request.getBookId())
+                .borrowDate(LocalDate.now())
+                .dueDate(LocalDate.now().plusWeeks(3))
+                .status(LoanStatus.ACTIVE)
+                .build();
+    }
+
+    private void releaseCopy(Long bookId) {
+        try {
+            copiesOutbox.appendNow(bookId, 1);
+        } catch (RuntimeException ex) {
+            log.error("Could not give back the copy of book {} after a failed borrow", bookId, ex);
+        }
+    }
+
+    private static UpdateCopiesRequest copiesDelta(int deltaAvailable) {
+        UpdateCopiesRequest update = new UpdateCopiesRequest();
+        update.setDeltaAvailable(deltaAvailable);
+        return update;
+    }
+
+    private static <T> T await(CompletableFuture<T> call, Long bookId, String notFoundMessage) {
+        try {
+            return call.join();
+        } catch (CompletionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof FeignException.Conflict) {
+                throw new BookNotAvailableException(bookId);
+            }
+            if (cause instanceof FeignException.NotFound) {
+                throw new NotFoundException(notFoundMessage);
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw ex;
+        }
+    }
 }
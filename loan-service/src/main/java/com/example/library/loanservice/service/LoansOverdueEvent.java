@@ -0,0 +1,15 @@
+package com.example.library.loanservice.service;
+
+import com.example.library.loanservice.dto.LoanDto;
+
+import java.util.List;
+
+/**
+ * Lot d'emprunts passés en retard, publié dans la transaction de la transition
+ * (écouter avec {@code @TransactionalEventListener} pour ne réagir qu'après validation).
+ *
+ * @param loans emprunts passés au statut OVERDUE.
+ * @since 1.1
+ */
+public record LoansOverdueEvent(List<LoanDto> loans) {
+}
@@ -0,0 +1,97 @@
+package com.example.library.loanservice.service;
+
+import com.example.library.loanservice.dto.LoanDto;
+import com.example.library.loanservice.mapper.LoanMapper;
+import com.example.library.loanservice.model.Loan;
+import com.example.library.loanservice.model.LoanStatus;
+import com.example.library.loanservice.repository.LoanRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Passe en retard les emprunts actifs dont l'échéance est dépassée.
+ *
+ * <p>Les emprunts sont lus par l'index (status, due_date) : chaque passage ne touche que
+ * les emprunts actifs échus, par lots de {@code loans.overdue.batch-size} verrouillés
+ * ({@code skip locked}, plusieurs instances possibles), sans parcourir la table. Le
+ * passage a lieu au changement de jour ({@code loans.overdue.cron}) et au démarrage
+ * (rattrapage après un arrêt). Chaque lot publie un {@link LoansOverdueEvent}.</p>
+ *
+ * @since 1.1
+ */
+@Service
+public class OverdueLoanDetector {
+    private static final Logger log = LoggerFactory.getLogger(OverdueLoanDetector.class);
+
+    private final LoanRepository loanRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public OverdueLoanDetector(LoanRepository loanRepository,
+                               ApplicationEventPublisher eventPublisher,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${loans.overdue.batch-size:500}") int batchSize) {
+        this.loanRepository = loanRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Rattrape les échéances passées pendant un arrêt du service.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        detect();
+    }
+
+    /**
+     * Passe en retard, lot par lot, les emprunts actifs échus avant aujourd'hui.
+     */
+    @Scheduled(cron = "${loans.overdue.cron:0 5 0 * * *}")
+    public void detect() {
+        LocalDate today = LocalDate.now();
+        int total = 0;
+        try {
+            Integer marked;
+            do {
+                marked = transactionTemplate.execute(status -> markBatch(today));
+                total += marked != null ? marked : 0;
+            } while (marked != null && marked == batchSize);
+        } catch (RuntimeException ex) {
+            log.warn("Overdue loan detection failed after {} loans, will retry on next run", total, ex);
+            return;
+        }
+        if (total > 0) {
+            log.info("{} loans marked overdue (due before {})", total, today);
+        }
+    }
+
+    private int markBatch(LocalDate today) {
+        List<Loan> due = loanRepository.lockActiveDueBefore(today, batchSize);
+        if (due.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = due.stream().map(Loan::getId).collect(Collectors.toList());
+        loanRepository.markOverdue(ids);
+        due.forEach(loan -> loan.setStatus(LoanStatus.OVERDUE));
+        List<LoanDto> overdue = due.stream()
+                .map(LoanMapper::toDto)
+                .collect(Collectors.toList());
+        eventPublisher.publishEvent(new LoansOverdueEvent(overdue));
+        return due.size();
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.library.loanservice.service;
+
+import com.example.library.loanservice.model.Loan;
+import com.example.library.loanservice.model.Reservation;
+import com.example.library.loanservice.model.ReservationStatus;
+import com.example.library.loanservice.repository.LoanRepository;
+import com.example.library.loanservice.repository.ReservationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * File de réservations par livre, servie dans l'ordre d'arrivée.
+ *
+ * <p>La file est la table {@code reservations} elle-même, indexée sur
+ * (book_id, status, id) : prendre la tête d'une file ou mettre une réservation de côté
+ * coûte une descente d'index, quelle que soit la longueur des files. Une copie rendue
+ * alors que des réservations attendent n'est pas remise en stock : elle est mise de côté
+ * (statut HELD) pour la tête de file jusqu'à {@code loans.reservations.hold-duration}.
+ * L'emprunt par le titulaire consomme la copie mise de côté sans appel au Book Service.
+ * Les mises de côté expirées sont balayées par une tâche planifiée (index
+ * (status, hold_expires_at)) : la copie passe à la réservation suivante, ou retourne
+ * en stock via l'outbox des copies.</p>
+ *
+ * @since 1.1
+ */
+@Service
+public class ReservationQueue {
+    private static final Logger log = LoggerFactory.getLogger(ReservationQueue.class);
+
+    private final ReservationRepository reservationRepository;
+    private final LoanRepository loanRepository;
+    private final BookCopiesOutbox copiesOutbox;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration holdDuration;
+    private final int sweepBatchSize;
+
+    public ReservationQueue(ReservationRepository reservationRepository,
+                            LoanRepository loanRepository,
+                            BookCopiesOutbox copiesOutbox,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${loans.reservations.hold-duration:3d}") Duration holdDuration,
+                            @Value("${loans.reservations.sweep-batch-size:500}") int sweepBatchSize) {
+        this.reservationRepository = reservationRepository;
+        this.loanRepository = loanRepository;
+        this.copiesOutbox = copiesOutbox;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.holdDuration = holdDuration;
+        this.sweepBatchSize = sweepBatchSize;
+    }
+
+    /**
+     * Met de côté une copie rendue pour la tête de file du livre, s'il y en a une.
+     *
+     * @param bookId identifiant livre.
+     * @return réservation mise de côté, vide si la file est vide (la copie retourne en stock).
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Optional<Reservation> holdNext(Long bookId) {
+        Optional<Reservation> next = reservationRepository.lockNextRequested(bookId);
+        next.ifPresent(reservation -> {
+            reservation.setStatus(ReservationStatus.HELD);
+            reservation.setHoldExpiresAt(Instant.now().plus(holdDuration));
+            reservationRepository.saveAndFlush(reservation);
+        });
+        return next;
+    }
+
+    /**
+     * Crée l'emprunt d'un utilisateur titulaire d'une copie mise de côté.
+     *
+     * @param loan emprunt à enregistrer.
+     * @return emprunt enregistré, vide si l'utilisateur n'a pas de copie mise de côté.
+     */
+    @Transactional
+    public Optional<Loan> borrowHeld(Loan loan) {
+        Optional<Reservation> held = reservationRepository.findFirstByUserIdAndBookIdAndStatusOrderByIdAsc(
+                loan.getUserId(), loan.getBookId(), ReservationStatus.HELD);
+        if (held.isEmpty() || reservationRepository.confirmHold(held.get().getId(), Instant.now()) == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(loanRepository.save(loan));
+    }
+
+    /**
+     * File d'attente d'un livre : réservations en attente ou mises de côté.
+     *
+     * @param bookId identifiant livre.
+     * @return réservations par ordre d'arrivée.
+     */
+    @Transactional(readOnly = true)
+    public List<Reservation> queue(Long bookId) {
+        return reservationRepository.findByBookIdAndStatusInOrderByIdAsc(bookId,
+                EnumSet.of(ReservationStatus.HELD, ReservationStatus.REQUESTED));
+    }
+
+    /**
+     * Expire les mises de côté échues, lot par lot, et passe chaque copie à la réservation
+     * suivante ou la rend au stock.
+     */
+    @Scheduled(fixedDelayString = "${loans.reservations.sweep-interval-ms:60000}")
+    public void sweepExpiredHolds() {
+        try {
+            Integer expired;
+            do {
+                expired = transactionTemplate.execute(status -> expireBatch());
+            } while (expired != null && expired == sweepBatchSize);
+        } catch (RuntimeException ex) {
+            log.warn("Expired reservation holds sweep failed, will retry", ex);
+        }
+    }
+
+    private int expireBatch() {
+        List<Reservation> expired = reservationRepository.lockExpiredHolds(Instant.now(), sweepBatchSize);
+        for (Reservation reservation : expired) {
+            reservation.setStatus(ReservationStatus.EXPIRED);
+            reservationRepository.save(reservation);
+            if (holdNext(reservation.getBookId()).isEmpty()) {
+                copiesOutbox.append(reservation.getBookId(), 1);
+            }
+        }
+        return expired.size();
+    }
+}
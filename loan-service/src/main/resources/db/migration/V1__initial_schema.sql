@@ -0,0 +1,48 @@
+-- Schema du Loan Service tel que cree jusqu'ici par Hibernate (ddl-auto: update).
+-- "if not exists" : une base existante est reprise telle quelle (baseline-version 0).
+
+create table if not exists loans (
+    id bigint generated by default as identity primary key,
+    user_id bigint not null,
+    book_id bigint not null,
+    borrow_date date not null,
+    due_date date not null,
+    return_date date,
+    status varchar(255) not null
+);
+
+create table if not exists reservations (
+    id bigint generated by default as identity primary key,
+    user_id bigint not null,
+    book_id bigint not null,
+    created_at date not null,
+    status varchar(255) not null,
+    hold_expires_at timestamp(6) with time zone
+);
+
+alter table reservations add column if not exists hold_expires_at timestamp(6) with time zone;
+
+create table if not exists idempotency_keys (
+    idempotency_key varchar(400) primary key,
+    fingerprint varchar(64) not null,
+    status varchar(255) not null,
+    response_body text,
+    created_at timestamp(6) with time zone not null,
+    expires_at timestamp(6) with time zone not null
+);
+
+create table if not exists book_copy_outbox (
+    id bigint generated by default as identity primary key,
+    book_id bigint not null,
+    delta_available integer not null,
+    created_at timestamp(6) with time zone not null
+);
+
+-- Contraintes generees par Hibernate sur les enums : elles ne suivaient pas l'ajout de valeurs.
+alter table loans drop constraint if exists loans_status_check;
+alter table reservations drop constraint if exists reservations_status_check;
+alter table idempotency_keys drop constraint if exists idempotency_keys_status_check;
+
+create index if not exists idx_idempotency_keys_expires_at on idempotency_keys (expires_at);
+create index if not exists idx_reservations_queue on reservations (book_id, status, id);
+create index if not exists idx_reservations_hold_expiry on reservations (status, hold_expires_at);
@@ -0,0 +1,5 @@
+-- Index des chemins d'acces aux emprunts, crees sans bloquer les ecritures.
+
+create index concurrently if not exists idx_loans_user_status on loans (user_id, status);
+create index concurrently if not exists idx_loans_book_status on loans (book_id, status);
+create index concurrently if not exists idx_loans_status_due_date on loans (status, due_date);
@@ -0,0 +1,23 @@
+-- Archive des emprunts rendus, partitionnee par annee de retour. Les partitions annuelles
+-- sont creees par le job d'archivage ; la partition par defaut recoit le reste.
+
+create table if not exists loans_archive (
+    id bigint not null,
+    user_id bigint not null,
+    book_id bigint not null,
+    borrow_date date not null,
+    due_date date not null,
+    return_date date not null,
+    status varchar(255) not null,
+    archived_at timestamp(6) with time zone not null default now(),
+    primary key (id, return_date)
+) partition by range (return_date);
+
+create table if not exists loans_archive_default partition of loans_archive default;
+
+create index if not exists idx_loans_archive_user on loans_archive (user_id, id);
+create index if not exists idx_loans_archive_book on loans_archive (book_id, id);
+create index if not exists idx_loans_archive_id on loans_archive (id);
+
+-- Selection des emprunts a archiver sans parcourir les emprunts actifs.
+create index concurrently if not exists idx_loans_returned_date on loans (return_date) where status = 'RETURNED';
@@ -0,0 +1,4 @@
+-- Index des pages keyset par utilisateur et par livre (filtre puis tri sur l'id).
+
+create index concurrently if not exists idx_loans_user_id on loans (user_id, id);
+create index concurrently if not exists idx_loans_book_id on loans (book_id, id);
@@ -0,0 +1,17 @@
+-- Lot d'envoi attribue aux variations de copies avant l'appel au Book Service : un lot
+-- renvoye garde sa cle d'idempotence et n'est pas applique deux fois.
+
+alter table book_copy_outbox add column if not exists batch_id varchar(36);
+
+create index if not exists idx_book_copy_outbox_batch on book_copy_outbox (batch_id);
+
+-- Variations refusees par le Book Service, conservees pour reprise manuelle.
+create table if not exists book_copy_dead_letter (
+    id bigint primary key,
+    book_id bigint not null,
+    delta_available integer not null,
+    created_at timestamp(6) with time zone not null,
+    batch_id varchar(36) not null,
+    status varchar(32) not null,
+    failed_at timestamp(6) with time zone not null default now()
+);
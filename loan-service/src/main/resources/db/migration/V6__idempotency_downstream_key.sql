@@ -0,0 +1,5 @@
+-- Cle transmise au Book Service pour la decrementation d'un emprunt : conservee tant que
+-- l'issue de l'appel est incertaine, elle empeche une nouvelle tentative de decrementer
+-- le stock une seconde fois.
+
+alter table idempotency_keys add column if not exists downstream_key varchar(36);